@@ -1,16 +1,14 @@
 /* Made by Jan Frase :) */
 package de.janfrase.blunder;
 
-import de.janfrase.blunder.engine.backend.movegen.KingInCheckDecider;
 import de.janfrase.blunder.engine.backend.movegen.Move;
 import de.janfrase.blunder.engine.backend.movegen.MoveGenerator;
+import de.janfrase.blunder.engine.backend.movegen.MoveList;
 import de.janfrase.blunder.engine.backend.state.game.FenParser;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
 import de.janfrase.blunder.engine.backend.state.game.StatePrinter;
 import de.janfrase.blunder.uci.UciMoveParser;
-import de.janfrase.blunder.utility.Constants;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Comparator;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -19,7 +17,6 @@ import org.apache.logging.log4j.core.config.Configurator;
 
 public class PerftRunner {
     private static final Logger logger = LogManager.getLogger(PerftRunner.class);
-    private static final GameState gameState = GameState.getInstance();
 
     /**
      * This way to call the engine should only be used to run perftree.
@@ -47,23 +44,17 @@ public class PerftRunner {
         String[] moveStrings = new String[args.length - 2];
         System.arraycopy(args, 2, moveStrings, 0, moveStrings.length);
 
-        // ...and convert them to move records.
-        Move[] moves =
-                Arrays.stream(moveStrings)
-                        .map(UciMoveParser::parseUciMove)
-                        .toList()
-                        .toArray(new Move[0]);
-
         // Load the starting position
-        FenParser.loadFenString(fenString);
+        GameState gameState = FenParser.loadFenString(fenString);
 
         // Make all moves that have to be applied before perft can begin.
-        for (Move move : moves) {
-            gameState.makeMove(move);
+        // They have to be parsed one after another, since parsing depends on the current position.
+        for (String moveString : moveStrings) {
+            gameState.makeMove(UciMoveParser.parseUciMove(moveString, gameState));
         }
 
         // Let's go :)
-        perftreeCompatiblePerft(depths);
+        perftreeCompatiblePerft(gameState, depths);
     }
 
     /**
@@ -79,20 +70,21 @@ public class PerftRunner {
      * <p>
      * 8902
      *
+     * @param gameState The position to start from.
      * @param depths How deep we should search. Scales exponentially.
      */
-    private static void perftreeCompatiblePerft(int depths) {
+    private static void perftreeCompatiblePerft(GameState gameState, int depths) {
         long total_nodes = 0;
-        ArrayList<Move> legalMoves = MoveGenerator.generateLegalMoves();
+        ArrayList<Move> legalMoves = MoveGenerator.generateLegalMoves(gameState);
 
         // Since the perftree tool also sorts the moves, it can be helpful to have them in the same
         // order.
         legalMoves.sort(Comparator.comparing(Move::toString));
         for (Move move : legalMoves) {
             gameState.makeMove(move);
-            logger.info(StatePrinter.stateToString());
+            logger.info(StatePrinter.stateToString(gameState));
 
-            long current_nodes = perft(depths - 1);
+            long current_nodes = perft(gameState, depths - 1);
             total_nodes += current_nodes;
             System.out.println(move + " " + current_nodes);
 
@@ -104,39 +96,51 @@ public class PerftRunner {
     }
 
     /**
-     * Starts a perft test from the current position.
+     * Starts a perft test from the given position.
      * <a href="https://www.chessprogramming.org/Perft">Wiki entry.</a>
+     * @param gameState The position to start from. It is the same again once this returns.
      * @param depths How deep we should search. Scales exponentially.
      * @return The number of positions discovered.
      */
-    public static long perft(int depths) {
+    public static long perft(GameState gameState, int depths) {
+        // one list per remaining depth, so the recursion itself does not allocate
+        MoveList[] moveLists = new MoveList[depths + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+
+        return perft(gameState, depths, moveLists);
+    }
+
+    private static long perft(GameState gameState, int depths, MoveList[] moveLists) {
         long nodes = 0;
 
         if (depths == 0) {
             return 1;
         }
 
-        ArrayList<Move> moves = MoveGenerator.generatePseudoLegalMoves();
-        Constants.Side activeSide = gameState.getFriendlySide();
+        MoveList moves = moveLists[depths];
+        MoveGenerator.generateLegalMoves(gameState, moves);
 
-        for (Move move : moves) {
-            gameState.makeMove(move);
-            if (KingInCheckDecider.isKingUnderAttack(activeSide)) {
-                gameState.unmakeMove(move);
-                continue;
-            }
+        // every move is legal, so the last ply does not need to be played out
+        if (depths == 1) {
+            return moves.size();
+        }
 
-            nodes += perft(depths - 1);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            gameState.makeMove(move);
+            nodes += perft(gameState, depths - 1, moveLists);
             gameState.unmakeMove(move);
         }
 
         return nodes;
     }
 
-    public static long perftWithTime(int depths) {
+    public static long perftWithTime(GameState gameState, int depths) {
         long startTime = System.nanoTime();
 
-        long nodes = perft(depths);
+        long nodes = perft(gameState, depths);
 
         long endTime = System.nanoTime();
         long timeElapsed = endTime - startTime;
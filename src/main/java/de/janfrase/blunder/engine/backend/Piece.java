@@ -14,14 +14,34 @@ public class Piece {
     public static final byte QUEEN = 32;
     public static final byte KING = 64;
 
-    public byte value;
+    public final byte value;
+
+    // one shared instance for every possible value, see fromValue
+    private static final Piece[] PIECES_BY_VALUE = new Piece[(KING | BLACK) + 1];
+
+    static {
+        for (int value = 0; value < PIECES_BY_VALUE.length; value++) {
+            PIECES_BY_VALUE[value] = new Piece((byte) (value & ~BLACK), (byte) (value & BLACK));
+        }
+    }
 
     public Piece(byte type, byte side) {
         this.value = (byte) (type | side);
     }
 
-    public static Piece createEmptyPiece() {
-        return new Piece(EMPTY, EMPTY);
+    /**
+     * @param value The value of a piece, i.e. its type and side or-ed together.
+     * @return A shared instance of the piece, so it must not be modified.
+     */
+    public static Piece fromValue(byte value) {
+        return PIECES_BY_VALUE[value];
+    }
+
+    /**
+     * @return A shared instance of the piece, like {@link #fromValue(byte)}.
+     */
+    public static Piece of(byte type, byte side) {
+        return PIECES_BY_VALUE[type | side];
     }
 
     public byte getType() {
@@ -43,4 +63,19 @@ public class Piece {
     public static byte getEnemySide(byte friendlySide) {
         return (byte) (friendlySide ^ BLACK);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Piece piece && piece.value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "Piece{type=" + getType() + ", side=" + getSide() + "}";
+    }
 }
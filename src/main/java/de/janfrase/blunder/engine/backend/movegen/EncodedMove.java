@@ -0,0 +1,166 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+
+/**
+ * Moves packed into a single int, so that move generation and search can pass them around without allocating.
+ * <p>
+ * The int is laid out like this (from the least significant bit):
+ * <ul>
+ *     <li>6 bits: the square the piece moves from</li>
+ *     <li>6 bits: the square the piece moves to</li>
+ *     <li>4 bits: the {@link Move.MoveType}</li>
+ *     <li>7 bits: the value of the captured piece or {@link Piece#EMPTY} if nothing was captured</li>
+ * </ul>
+ * Squares are indexed like in {@link BitBoard#calculateIndex(int, int)}.
+ * <p>
+ * The {@link Move} record is still used wherever readability matters more than speed, e.g. for UCI and in the tests.
+ * See: <a href="https://www.chessprogramming.org/Encoding_Moves">Chess programming wiki.</a>
+ */
+public class EncodedMove {
+
+    /** Never a real move, since it would move from a8 to a8. */
+    public static final int NO_MOVE = 0;
+
+    private static final int FROM_SHIFT = 0;
+    private static final int TO_SHIFT = 6;
+    private static final int MOVE_TYPE_SHIFT = 12;
+    private static final int CAPTURED_PIECE_SHIFT = 16;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int MOVE_TYPE_MASK = 0xF;
+    private static final int CAPTURED_PIECE_MASK = 0x7F;
+    // everything except the captured piece
+    private static final int FROM_TO_TYPE_MASK = (1 << CAPTURED_PIECE_SHIFT) - 1;
+
+    // values() creates a new array on every call
+    private static final Move.MoveType[] MOVE_TYPES = Move.MoveType.values();
+
+    /**
+     * Not meant for instantiation.
+     */
+    private EncodedMove() {}
+
+    public static int encode(
+            int fromSquare, int toSquare, Move.MoveType moveType, byte capturedPiece) {
+        return fromSquare << FROM_SHIFT
+                | toSquare << TO_SHIFT
+                | moveType.ordinal() << MOVE_TYPE_SHIFT
+                | capturedPiece << CAPTURED_PIECE_SHIFT;
+    }
+
+    public static int encode(int fromX, int fromY, int toX, int toY) {
+        return encode(fromX, fromY, toX, toY, Move.MoveType.NORMAL_MOVE, Piece.EMPTY);
+    }
+
+    public static int encode(int fromX, int fromY, int toX, int toY, Move.MoveType moveType) {
+        return encode(fromX, fromY, toX, toY, moveType, Piece.EMPTY);
+    }
+
+    public static int encode(int fromX, int fromY, int toX, int toY, Piece capturedPiece) {
+        return encode(fromX, fromY, toX, toY, Move.MoveType.NORMAL_MOVE, capturedPiece.value);
+    }
+
+    public static int encode(
+            int fromX, int fromY, int toX, int toY, Move.MoveType moveType, Piece capturedPiece) {
+        return encode(fromX, fromY, toX, toY, moveType, capturedPiece.value);
+    }
+
+    private static int encode(
+            int fromX, int fromY, int toX, int toY, Move.MoveType moveType, byte capturedPiece) {
+        return encode(
+                BitBoard.calculateIndex(fromX, fromY),
+                BitBoard.calculateIndex(toX, toY),
+                moveType,
+                capturedPiece);
+    }
+
+    public static int getFromSquare(int move) {
+        return (move >>> FROM_SHIFT) & SQUARE_MASK;
+    }
+
+    public static int getToSquare(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    public static int getFromX(int move) {
+        return getFromSquare(move) % 8;
+    }
+
+    public static int getFromY(int move) {
+        return getFromSquare(move) / 8;
+    }
+
+    public static int getToX(int move) {
+        return getToSquare(move) % 8;
+    }
+
+    public static int getToY(int move) {
+        return getToSquare(move) / 8;
+    }
+
+    public static Move.MoveType getMoveType(int move) {
+        return MOVE_TYPES[(move >>> MOVE_TYPE_SHIFT) & MOVE_TYPE_MASK];
+    }
+
+    /**
+     * @return The value of the captured piece or {@link Piece#EMPTY}. En passant captures are not stored here.
+     */
+    public static byte getCapturedPiece(int move) {
+        return (byte) ((move >>> CAPTURED_PIECE_SHIFT) & CAPTURED_PIECE_MASK);
+    }
+
+    public static boolean isCapture(int move) {
+        return getCapturedPiece(move) != Piece.EMPTY
+                || getMoveType(move) == Move.MoveType.EP_CAPTURE;
+    }
+
+    public static boolean isPromotion(int move) {
+        return switch (getMoveType(move)) {
+            case ROOK_PROMOTION, KNIGHT_PROMOTION, BISHOP_PROMOTION, QUEEN_PROMOTION -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return The type of the piece the pawn promotes to. Only valid if {@link #isPromotion(int)}.
+     */
+    public static byte getPromotedPieceType(int move) {
+        return switch (getMoveType(move)) {
+            case ROOK_PROMOTION -> Piece.ROOK;
+            case KNIGHT_PROMOTION -> Piece.KNIGHT;
+            case BISHOP_PROMOTION -> Piece.BISHOP;
+            case QUEEN_PROMOTION -> Piece.QUEEN;
+            default -> throw new IllegalStateException("Not a promotion: " + getMoveType(move));
+        };
+    }
+
+    /**
+     * @return true if both moves have the same from square, to square and move type. The captured piece is ignored.
+     */
+    public static boolean isSameMove(int move, int otherMove) {
+        return (move & FROM_TO_TYPE_MASK) == (otherMove & FROM_TO_TYPE_MASK);
+    }
+
+    public static int fromMove(Move move) {
+        return encode(
+                move.fromX(),
+                move.fromY(),
+                move.toX(),
+                move.toY(),
+                move.moveType(),
+                move.capturedPieceType());
+    }
+
+    public static Move toMove(int move) {
+        return new Move(
+                getFromX(move),
+                getFromY(move),
+                getToX(move),
+                getToY(move),
+                getMoveType(move),
+                Piece.fromValue(getCapturedPiece(move)));
+    }
+}
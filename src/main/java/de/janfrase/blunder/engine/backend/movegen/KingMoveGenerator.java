@@ -2,10 +2,9 @@
 package de.janfrase.blunder.engine.backend.movegen;
 
 import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
 import de.janfrase.blunder.engine.backend.state.board.BitBoards;
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.CastlingRights;
-import de.janfrase.blunder.utility.Constants;
-import java.util.ArrayList;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
 
 /**
  * A utility class that provides functionality for generating valid moves for a king in a chess game.
@@ -15,70 +14,42 @@ public class KingMoveGenerator {
     protected static final int SHORT_CASTLE_X_OFFSET = 2;
 
     protected static void generateKingMoves(
-            ArrayList<Move> moves,
+            MoveList moves,
             int x,
             int y,
             BitBoards board,
             byte activeSide,
-            CastlingRights castlingRights) {
+            long irreversibleData,
+            MoveGenerator.MoveSelection selection,
+            long allowedTargets) {
         // takes care of normal king moves - leaves castles for later
-        generateNormalMoves(moves, x, y, board, activeSide);
+        generateNormalMoves(moves, x, y, board, activeSide, selection, allowedTargets);
 
-        generateCastleMoves(moves, x, y, board, activeSide, castlingRights);
+        // castles never capture anything and check the squares the king passes themselves
+        if (selection.includesQuiets()) {
+            generateCastleMoves(moves, x, y, board, activeSide, irreversibleData);
+        }
     }
 
     private static void generateNormalMoves(
-            ArrayList<Move> moves,
+            MoveList moves,
             int x,
             int y,
-            BoardRepresentation board,
-            Constants.Side activeSide) {
-        for (int yOffset = -1; yOffset <= 1; yOffset++) {
-            int targetY = y + yOffset;
-            // we are above or below the board - nothing to do
-            if (targetY < 0 || targetY >= Constants.BOARD_SIDE_LENGTH) continue;
-
-            for (int xOffset = -1; xOffset <= 1; xOffset++) {
-
-                if (xOffset == 0 && yOffset == 0) continue;
-
-                int targetX = x + xOffset;
-                // we are left or right of the board - nothing to do
-                if (targetX < 0 || targetX >= Constants.BOARD_SIDE_LENGTH) continue;
-
-                Constants.PieceType targetPieceType = board.getPieceAt(targetX, targetY);
-                Constants.Side targetPieceSide = board.getSideAt(targetX, targetY);
-
-                // a quiet move since the square is empty
-                if (targetPieceSide == Constants.Side.EMPTY) {
-                    Move quietMove = new Move(x, y, targetX, targetY);
-                    moves.add(quietMove);
-                    continue;
-                }
-
-                boolean friendlyPiece = activeSide == targetPieceSide;
-                // the square is already occupied by a friendly piece - nothing to do
-                if (friendlyPiece) {
-                    continue;
-                }
-
-                // an enemy is on the square - KILL HIM
-                Move captureMove = new Move(x, y, targetX, targetY, targetPieceType);
-                moves.add(captureMove);
-            }
-        }
+            BitBoards board,
+            byte activeSide,
+            MoveGenerator.MoveSelection selection,
+            long allowedTargets) {
+        long attacks = LeaperAttacks.getKingAttacks(BitBoard.calculateIndex(x, y));
+        MoveGenerator.generateMovesToAttackedSquares(
+                moves, x, y, board, activeSide, attacks & allowedTargets, selection);
     }
 
     private static void generateCastleMoves(
-            ArrayList<Move> moves,
-            int x,
-            int y,
-            BitBoards board,
-            Piece activeSide,
-            CastlingRights castlingRights) {
+            MoveList moves, int x, int y, BitBoards board, byte activeSide, long irreversibleData) {
         // let's make some castles. 🏰
-        boolean canLongCastle = castlingRights.getLongCastle(activeSide);
-        boolean canShortCastle = castlingRights.getShortCastle(activeSide);
+        boolean canLongCastle = EncodedIrreversibleData.canLongCastle(irreversibleData, activeSide);
+        boolean canShortCastle =
+                EncodedIrreversibleData.canShortCastle(irreversibleData, activeSide);
 
         // we can't castle anymore
         if (!(canLongCastle || canShortCastle)) {
@@ -86,7 +57,7 @@ public class KingMoveGenerator {
         }
 
         // if the king is under attack, we can't castle -> return
-        if (KingInCheckDecider.isKingUnderAttack(x, y, activeSide)) return;
+        if (isAttacked(board, x, y, activeSide)) return;
 
         generateShortCastles(moves, x, y, board, activeSide, canShortCastle);
 
@@ -94,50 +65,56 @@ public class KingMoveGenerator {
     }
 
     private static void generateShortCastles(
-            ArrayList<Move> moves,
+            MoveList moves,
             int x,
             int y,
             BitBoards board,
-            Piece activeSide,
+            byte activeSide,
             boolean canShortCastle) {
         if (!canShortCastle) return;
 
-        boolean sideOneRight = board.getAllPieces().getBit(x + 1, y);
-        boolean sideTwoRight = board.getAllPieces().getBit(x + 2, y);
+        long squaresBetween =
+                BitBoard.getLongWithBitAtIndex(x + 1, y) | BitBoard.getLongWithBitAtIndex(x + 2, y);
 
         // there is something between the king and the rook -> return
-        if (sideOneRight || sideTwoRight) return;
+        if ((board.getOccupancy() & squaresBetween) != 0) return;
 
         // if one of the squares the king is passing through -> return
-        if (KingInCheckDecider.isKingUnderAttack(x + 1, y, activeSide)
-                || KingInCheckDecider.isKingUnderAttack(x + 2, y, activeSide)) return;
+        if (isAttacked(board, x + 1, y, activeSide) || isAttacked(board, x + 2, y, activeSide))
+            return;
 
-        Move castleMove = new Move(x, y, x + SHORT_CASTLE_X_OFFSET, y, Move.MoveType.SHORT_CASTLE);
+        int castleMove =
+                EncodedMove.encode(x, y, x + SHORT_CASTLE_X_OFFSET, y, Move.MoveType.SHORT_CASTLE);
         moves.add(castleMove);
     }
 
     private static void generateLongCastles(
-            ArrayList<Move> moves,
+            MoveList moves,
             int x,
             int y,
-            BoardRepresentation board,
-            Constants.Side activeSide,
+            BitBoards board,
+            byte activeSide,
             boolean canLongCastle) {
         if (!canLongCastle) return;
 
-        Constants.Side sideOneRight = board.getSideAt(x - 1, y);
-        Constants.Side sideTwoRight = board.getSideAt(x - 2, y);
-        Constants.Side sideThreeRight = board.getSideAt(x - 3, y);
+        long squaresBetween =
+                BitBoard.getLongWithBitAtIndex(x - 1, y)
+                        | BitBoard.getLongWithBitAtIndex(x - 2, y)
+                        | BitBoard.getLongWithBitAtIndex(x - 3, y);
 
-        // there is nothing between the king and the rook
-        if (sideOneRight != Constants.Side.EMPTY
-                || sideTwoRight != Constants.Side.EMPTY
-                || sideThreeRight != Constants.Side.EMPTY) return;
+        // there is something between the king and the rook -> return
+        if ((board.getOccupancy() & squaresBetween) != 0) return;
 
-        if (KingInCheckDecider.isKingUnderAttack(x - 1, y, activeSide)
-                || KingInCheckDecider.isKingUnderAttack(x - 2, y, activeSide)) return;
+        if (isAttacked(board, x - 1, y, activeSide) || isAttacked(board, x - 2, y, activeSide))
+            return;
 
-        Move castleMove = new Move(x, y, x + LONG_CASTLE_X_OFFSET, y, Move.MoveType.LONG_CASTLE);
+        int castleMove =
+                EncodedMove.encode(x, y, x + LONG_CASTLE_X_OFFSET, y, Move.MoveType.LONG_CASTLE);
         moves.add(castleMove);
     }
+
+    private static boolean isAttacked(BitBoards board, int x, int y, byte activeSide) {
+        return KingInCheckDecider.isSquareAttacked(
+                board, BitBoard.calculateIndex(x, y), Piece.getEnemySide(activeSide));
+    }
 }
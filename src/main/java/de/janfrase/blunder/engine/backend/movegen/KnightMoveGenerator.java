@@ -1,9 +1,8 @@
 /* Made by Jan Frase :) */
 package de.janfrase.blunder.engine.backend.movegen;
 
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
 import de.janfrase.blunder.engine.backend.state.board.BitBoards;
-import de.janfrase.blunder.utility.Constants;
-import java.util.ArrayList;
 
 /**
  * A utility class that provides functionality for generating valid moves for a knight in a chess game.
@@ -11,30 +10,15 @@ import java.util.ArrayList;
 public class KnightMoveGenerator {
 
     protected static void generateKnightMoves(
-            ArrayList<Move> moves, int x, int y, BitBoards board, byte activeSide) {
-        for (int[] direction : Constants.KNIGHT_DIRECTIONS) {
-            int currentX = x + direction[0];
-            int currentY = y + direction[1];
-
-            // Check if we're still on the board
-            if (Constants.isOffBoard(currentX, currentY)) {
-                continue;
-            }
-
-            Constants.PieceType pieceAtDestination = board.getPieceAt(currentX, currentY);
-            Constants.Side sideAtDestination = board.getSideAt(currentX, currentY);
-
-            // Empty square - add move and continue
-            if (pieceAtDestination == Constants.PieceType.EMPTY) {
-                moves.add(new Move(x, y, currentX, currentY));
-                continue;
-            }
-
-            // Enemy piece
-            if (sideAtDestination != activeSide) {
-                // add capture move and stop in this direction
-                moves.add(new Move(x, y, currentX, currentY, pieceAtDestination));
-            }
-        }
+            MoveList moves,
+            int x,
+            int y,
+            BitBoards board,
+            byte activeSide,
+            MoveGenerator.MoveSelection selection,
+            long allowedTargets) {
+        long attacks = LeaperAttacks.getKnightAttacks(BitBoard.calculateIndex(x, y));
+        MoveGenerator.generateMovesToAttackedSquares(
+                moves, x, y, board, activeSide, attacks & allowedTargets, selection);
     }
 }
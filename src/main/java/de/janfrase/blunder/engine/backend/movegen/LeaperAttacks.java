@@ -0,0 +1,71 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+import de.janfrase.blunder.utility.Constants;
+
+/**
+ * Precomputed attack masks for knights, kings and pawns.
+ * <p>
+ * These pieces can not be blocked, so their attacks only depend on the square they stand on.
+ * Squares are indexed like in {@link BitBoard#calculateIndex(int, int)}.
+ */
+public class LeaperAttacks {
+
+    private static final long[] KNIGHT_ATTACKS = new long[Constants.BOARD_TOTAL_SIZE];
+    private static final long[] KING_ATTACKS = new long[Constants.BOARD_TOTAL_SIZE];
+    // indexed by the side of the pawn first
+    private static final long[][] PAWN_ATTACKS = new long[2][Constants.BOARD_TOTAL_SIZE];
+
+    private static final int[][] WHITE_PAWN_ATTACK_DIRECTIONS = {{1, -1}, {-1, -1}};
+    private static final int[][] BLACK_PAWN_ATTACK_DIRECTIONS = {{1, 1}, {-1, 1}};
+
+    static {
+        for (int square = 0; square < Constants.BOARD_TOTAL_SIZE; square++) {
+            KNIGHT_ATTACKS[square] = calculateAttacks(square, Constants.KNIGHT_DIRECTIONS);
+            KING_ATTACKS[square] =
+                    calculateAttacks(square, Constants.STRAIGHT_DIRECTIONS)
+                            | calculateAttacks(square, Constants.DIAGONAL_DIRECTIONS);
+            PAWN_ATTACKS[Piece.WHITE][square] =
+                    calculateAttacks(square, WHITE_PAWN_ATTACK_DIRECTIONS);
+            PAWN_ATTACKS[Piece.BLACK][square] =
+                    calculateAttacks(square, BLACK_PAWN_ATTACK_DIRECTIONS);
+        }
+    }
+
+    /**
+     * Not meant for instantiation.
+     */
+    private LeaperAttacks() {}
+
+    public static long getKnightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long getKingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @param square The square the pawn stands on.
+     * @param side   The side of the pawn, since white pawns attack upwards and black pawns downwards.
+     * @return The two (or one on the edge of the board) squares the pawn can capture on.
+     */
+    public static long getPawnAttacks(int square, byte side) {
+        return PAWN_ATTACKS[side][square];
+    }
+
+    private static long calculateAttacks(int square, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int targetX = square % 8 + direction[0];
+            int targetY = square / 8 + direction[1];
+
+            if (!Constants.isOffBoard(targetX, targetY)) {
+                attacks |= BitBoard.getLongWithBitAtIndex(targetX, targetY);
+            }
+        }
+        return attacks;
+    }
+}
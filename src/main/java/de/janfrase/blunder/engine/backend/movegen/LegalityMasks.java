@@ -0,0 +1,152 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+
+/**
+ * Everything the {@link MoveGenerator} needs to only generate legal moves, computed once per position:
+ * <ul>
+ *     <li>the pieces giving check</li>
+ *     <li>the squares a piece other than the king has to move to, so that a check is resolved</li>
+ *     <li>our pieces that are pinned to our king</li>
+ *     <li>the squares our king can move to without walking into an attack</li>
+ * </ul>
+ * This replaces making every move and checking whether our king can be captured afterward.
+ * <p>
+ * The search keeps one instance per ply and recomputes it for every node.
+ * See: <a href="https://www.chessprogramming.org/Move_Generation#Legal">Chess programming wiki.</a>
+ */
+public class LegalityMasks {
+
+    private BitBoards board;
+    private byte enemySide;
+
+    int kingSquare;
+    long checkers;
+    // every square if we are not in check, the checker and the squares in between for a single
+    // check and no square at all for a double check, since then only the king can move
+    long checkMask;
+    long pinned;
+    long kingTargets;
+
+    /**
+     * Computes the masks for the side to move. Has to be called again once the position changed.
+     */
+    public void compute(GameState gameState) {
+        board = gameState.getBitBoards();
+        byte activeSide = gameState.getFriendlySide();
+        enemySide = Piece.getEnemySide(activeSide);
+
+        long king = KingInCheckDecider.getPieces(board, Piece.KING, activeSide);
+        if (king == 0) {
+            throw new IllegalStateException("King position is empty");
+        }
+        kingSquare = Long.numberOfTrailingZeros(king);
+
+        long occupancy = board.getOccupancy();
+        checkers = KingInCheckDecider.attackersTo(board, kingSquare, enemySide, occupancy);
+
+        if (checkers == 0) {
+            checkMask = MoveGenerator.ALL_SQUARES;
+        } else if (Long.bitCount(checkers) == 1) {
+            int checkerSquare = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | SliderAttacks.getSquaresBetween(kingSquare, checkerSquare);
+        } else {
+            checkMask = 0L;
+        }
+
+        pinned = calculatePinned(board.getOccupancy(activeSide), occupancy);
+        kingTargets = calculateKingTargets(board.getOccupancy(activeSide), occupancy, king);
+    }
+
+    /**
+     * @return true if the side to move is in check. Only valid after {@link #compute(GameState)}.
+     */
+    public boolean isInCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * @return The squares the piece on the given square may move to. En passant and castles are checked separately.
+     */
+    long getAllowedTargets(int square) {
+        if (square == kingSquare) {
+            return kingTargets;
+        }
+
+        // a pinned piece can only move along the line between our king and the pinning piece
+        if ((pinned & (1L << square)) != 0) {
+            return checkMask & SliderAttacks.getLine(kingSquare, square);
+        }
+        return checkMask;
+    }
+
+    /**
+     * En passant is the only move that removes a piece from a square it does not move to.
+     * This can uncover a check along the rank of both pawns, which the pin masks do not see.
+     * So we just take both pawns off the board and check whether our king is attacked.
+     */
+    boolean isEnPassantLegal(int fromX, int fromY, int toX, int toY) {
+        long fromBit = BitBoard.getLongWithBitAtIndex(fromX, fromY);
+        long toBit = BitBoard.getLongWithBitAtIndex(toX, toY);
+        long capturedBit = BitBoard.getLongWithBitAtIndex(toX, fromY);
+
+        long occupancy = (board.getOccupancy() & ~fromBit & ~capturedBit) | toBit;
+        long attackers = KingInCheckDecider.attackersTo(board, kingSquare, enemySide, occupancy);
+
+        // the captured pawn is still in its bitboard, but it can not attack anymore
+        return (attackers & ~capturedBit) == 0;
+    }
+
+    /**
+     * Looks from our king in every direction for enemy sliders. If exactly one piece stands in between
+     * and it is one of ours, it is pinned.
+     */
+    private long calculatePinned(long friendlyOccupancy, long occupancy) {
+        long enemyQueens = KingInCheckDecider.getPieces(board, Piece.QUEEN, enemySide);
+        long diagonalSliders =
+                KingInCheckDecider.getPieces(board, Piece.BISHOP, enemySide) | enemyQueens;
+        long straightSliders =
+                KingInCheckDecider.getPieces(board, Piece.ROOK, enemySide) | enemyQueens;
+
+        long snipers =
+                (SliderAttacks.getBishopAttacks(kingSquare, 0L) & diagonalSliders)
+                        | (SliderAttacks.getRookAttacks(kingSquare, 0L) & straightSliders);
+
+        long pinnedPieces = 0L;
+        while (snipers != 0) {
+            int sniperSquare = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+
+            long blockers = SliderAttacks.getSquaresBetween(kingSquare, sniperSquare) & occupancy;
+            if (Long.bitCount(blockers) == 1) {
+                pinnedPieces |= blockers & friendlyOccupancy;
+            }
+        }
+        return pinnedPieces;
+    }
+
+    /**
+     * The king is taken off the board first, otherwise it would block a slider
+     * attacking the square behind it and could step back along the line of the check.
+     */
+    private long calculateKingTargets(long friendlyOccupancy, long occupancy, long king) {
+        long candidates = LeaperAttacks.getKingAttacks(kingSquare) & ~friendlyOccupancy;
+        long occupancyWithoutKing = occupancy & ~king;
+
+        long targets = 0L;
+        while (candidates != 0) {
+            int square = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+
+            if (KingInCheckDecider.attackersTo(board, square, enemySide, occupancyWithoutKing)
+                    == 0) {
+                targets |= 1L << square;
+            }
+        }
+        return targets;
+    }
+}
@@ -19,49 +19,9 @@ import de.janfrase.blunder.engine.backend.Piece;
  */
 public record Move(
         int fromX, int fromY, int toX, int toY, MoveType moveType, Piece capturedPieceType) {
-    // PERFORMANCE: This could be squeezed into a single 16 bit type:
-    // to and from: 2^6=64 -> 6bits each -> 12 bits
-    // promotion piece: 2^2=4 -> 2bits for the 4 different pieces
-    // leaves 2 bits for various data: en passant, check, capture ... whatever seems useful
-
-    /**
-     * Initializes a new move with the specified starting and ending positions, defaulting
-     * to a {@code SpecialMoveType.NORMAL_MOVE} and a {@code Constants.PieceType.EMPTY} for the captured piece.}.
-     *
-     * @param fromX The starting x-coordinate of the move, specifying the column position (0-based).
-     * @param fromY The starting y-coordinate of the move, specifying the row position (0-based).
-     * @param toX   The ending x-coordinate of the move, specifying the column position (0-based).
-     * @param toY   The ending y-coordinate of the move, specifying the row position (0-based).
-     */
-    public Move(int fromX, int fromY, int toX, int toY) {
-        this(fromX, fromY, toX, toY, MoveType.NORMAL_MOVE, Piece.createEmptyPiece());
-    }
-
-    /**
-     * Initializes a new move with the specified starting and ending positions, defaulting
-     * to a {@code Constants.PieceType.EMPTY} for the captured piece.
-     *
-     * @param fromX The starting x-coordinate of the move, specifying the column position (0-based).
-     * @param fromY The starting y-coordinate of the move, specifying the row position (0-based).
-     * @param toX   The ending x-coordinate of the move, specifying the column position (0-based).
-     * @param toY   The ending y-coordinate of the move, specifying the row position (0-based).
-     */
-    public Move(int fromX, int fromY, int toX, int toY, MoveType moveType) {
-        this(fromX, fromY, toX, toY, moveType, Piece.createEmptyPiece());
-    }
-
-    /**
-     * Initializes a new move with the specified starting and ending positions, defaulting
-     * to a {@code Constants.PieceType.EMPTY} for the captured piece.
-     *
-     * @param fromX The starting x-coordinate of the move, specifying the column position (0-based).
-     * @param fromY The starting y-coordinate of the move, specifying the row position (0-based).
-     * @param toX   The ending x-coordinate of the move, specifying the column position (0-based).
-     * @param toY   The ending y-coordinate of the move, specifying the row position (0-based).
-     */
-    public Move(int fromX, int fromY, int toX, int toY, Piece capturedPieceType) {
-        this(fromX, fromY, toX, toY, MoveType.NORMAL_MOVE, capturedPieceType);
-    }
+    // PERFORMANCE: The search does not use this record, but packs the same information into an int.
+    // See EncodedMove. Moves are only turned into this record at the edges, e.g. to print the
+    // principal variation or the best move, so it is only ever created by EncodedMove.toMove.
 
     @Override
     public String toString() {
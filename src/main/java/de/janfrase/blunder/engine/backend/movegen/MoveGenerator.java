@@ -2,46 +2,88 @@
 package de.janfrase.blunder.engine.backend.movegen;
 
 import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
 import de.janfrase.blunder.engine.backend.state.board.BitBoards;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.IrreversibleData;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
 import de.janfrase.blunder.utility.Constants;
 import java.util.ArrayList;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * The MoveGenerator class is responsible for generating both pseudo-legal
- * and legal moves for the active player in the current game state.
+ * The MoveGenerator class is responsible for generating the legal moves for the active player in the current game state.
+ * <p>
+ * The piece generators only produce moves to the squares {@link LegalityMasks} allows,
+ * so no move has to be made and taken back to find out whether it leaves our king in check.
  */
 public class MoveGenerator {
 
     // PERFORMANCE:
     /*
      * 1. One could implement multi-threading.
-     * 2. When using something like alpha-beta pruning, it might happen that we generate all the moves for a given position and then notice after the first one that we don't even need to consider the others.
-     *       In that case it could be useful to only generate the moves lazily when needed. However, this might conflict with move ordering etc.
      */
 
     private static final Logger logger = LogManager.getLogger(MoveGenerator.class);
 
+    // a target mask that does not restrict anything
+    static final long ALL_SQUARES = ~0L;
+
+    /**
+     * Decides which moves get generated, so that the search can generate the captures first and the quiet moves only if it still needs them.
+     */
+    public enum MoveSelection {
+        ALL,
+        /** Captures, en passant captures and promotions. */
+        CAPTURES,
+        /** Everything that is not part of {@link #CAPTURES}, including castles. */
+        QUIETS;
+
+        boolean includesCaptures() {
+            return this != QUIETS;
+        }
+
+        boolean includesQuiets() {
+            return this != CAPTURES;
+        }
+    }
+
     /**
-     * Generates a list of all possible PSEUDO-legal moves for the active side
-     * in the current game state.
+     * Generates all legal moves for the active side in the given game state.
      * The method considers the positions
      * and types of pieces, the board configuration, and specific rules
      * such as castling rights.
      *
-     * @return a list of {@code Move} objects representing all legal moves
-     *         for the active player in the current game state.
+     * @param gameState The position to generate moves for.
+     * @param moves     The list the moves are written to. It is cleared first, so it can be reused.
+     */
+    public static void generateLegalMoves(GameState gameState, MoveList moves) {
+        LegalityMasks legalityMasks = new LegalityMasks();
+        legalityMasks.compute(gameState);
+
+        moves.clear();
+        generateLegalMoves(gameState, legalityMasks, moves, MoveSelection.ALL);
+    }
+
+    /**
+     * Same as {@link #generateLegalMoves(GameState, MoveList)}, but only generates the selected kind of moves.
+     * Does NOT clear the list, so that the search can append the quiet moves once it needs them.
+     *
+     * @param legalityMasks Has to be computed for exactly this position.
      */
-    public static ArrayList<Move> generatePseudoLegalMoves() {
+    public static void generateLegalMoves(
+            GameState gameState,
+            LegalityMasks legalityMasks,
+            MoveList moves,
+            MoveSelection selection) {
+        if (legalityMasks.isInCheck()) {
+            generateEvasions(gameState, legalityMasks, moves, selection);
+            return;
+        }
+
         logger.trace("Starting move generation");
-        ArrayList<Move> moves = new ArrayList<>();
 
-        GameState gameState = GameState.getInstance();
         BitBoards board = gameState.getBitBoards();
-        IrreversibleData irreversibleData = gameState.getIrreversibleData();
         byte activeSide = gameState.getFriendlySide();
 
         for (int y = 0; y < Constants.BOARD_SIDE_LENGTH; y++) {
@@ -58,56 +100,212 @@ public class MoveGenerator {
                     continue;
                 }
 
-                switch (piece.getType()) {
-                    case Piece.KING -> KingMoveGenerator.generateKingMoves(
-                            moves, x, y, board, activeSide, irreversibleData.castlingRights());
-                    case Piece.QUEEN -> {
-                        LineMoveGenerator.generateStraightMoves(moves, x, y, board, activeSide);
-                        LineMoveGenerator.generateDiagonalMoves(moves, x, y, board, activeSide);
-                    }
-                    case Piece.ROOK -> LineMoveGenerator.generateStraightMoves(
-                            moves, x, y, board, activeSide);
-                    case Piece.BISHOP -> LineMoveGenerator.generateDiagonalMoves(
-                            moves, x, y, board, activeSide);
-                    case Piece.KNIGHT -> KnightMoveGenerator.generateKnightMoves(
-                            moves, x, y, board, activeSide);
-                    case Piece.PAWN -> PawnMoveGenerator.generatePawnMove(
-                            moves, x, y, board, activeSide, irreversibleData.enPassantX());
-                    case Piece.EMPTY -> throw new IllegalStateException(
-                            "Empty piece type should have been skipped");
-                }
+                generatePieceMoves(gameState, legalityMasks, moves, x, y, piece, selection);
             }
         }
 
         logger.trace("Finished move generation");
-        return moves;
     }
 
     /**
-     * Generates a list of all possible legal moves for the active side
-     * in the current game state.
+     * Generates the moves that get our king out of check: king moves, captures of the checking piece
+     * and moves onto the squares between the checking piece and our king.
      * <p>
-     * This works by first generating all pseudo legal moves,
-     * then making each one and checking if the opponent can capture our king.
+     * Only the king and pieces that are not pinned need to be looked at,
+     * since a pinned piece can never resolve a check. In a double check only the king can move.
+     */
+    private static void generateEvasions(
+            GameState gameState,
+            LegalityMasks legalityMasks,
+            MoveList moves,
+            MoveSelection selection) {
+        BitBoards board = gameState.getBitBoards();
+        int kingSquare = legalityMasks.kingSquare;
+
+        generatePieceMoves(
+                gameState,
+                legalityMasks,
+                moves,
+                kingSquare % 8,
+                kingSquare / 8,
+                board.getPieceAt(kingSquare % 8, kingSquare / 8),
+                selection);
+
+        if (Long.bitCount(legalityMasks.checkers) > 1) {
+            return;
+        }
+
+        long defenders =
+                board.getOccupancy(gameState.getFriendlySide())
+                        & ~legalityMasks.pinned
+                        & ~(1L << kingSquare);
+        while (defenders != 0) {
+            int square = Long.numberOfTrailingZeros(defenders);
+            defenders &= defenders - 1;
+
+            int x = square % 8;
+            int y = square / 8;
+            generatePieceMoves(
+                    gameState, legalityMasks, moves, x, y, board.getPieceAt(x, y), selection);
+        }
+    }
+
+    /**
+     * Finds the legal move that matches the given move, e.g. one that was stored in the transposition table.
+     * Stored moves might not be playable in the current position, since different positions can end up in the same entry.
+     *
+     * @param legalityMasks Has to be computed for exactly this position.
+     * @param move          The move to look for. Only its lower 16 bits (from, to and move type) are compared.
+     * @param scratch       A list that gets overwritten while searching.
+     * @return The complete move including the captured piece or {@link EncodedMove#NO_MOVE} if the move can not be played.
+     */
+    public static int findLegalMove(
+            GameState gameState, LegalityMasks legalityMasks, int move, MoveList scratch) {
+        if (move == EncodedMove.NO_MOVE) {
+            return EncodedMove.NO_MOVE;
+        }
+
+        int fromX = EncodedMove.getFromX(move);
+        int fromY = EncodedMove.getFromY(move);
+        Piece piece = gameState.getBitBoards().getPieceAt(fromX, fromY);
+        if (piece.isEmpty() || piece.getSide() != gameState.getFriendlySide()) {
+            return EncodedMove.NO_MOVE;
+        }
+
+        scratch.clear();
+        generatePieceMoves(
+                gameState, legalityMasks, scratch, fromX, fromY, piece, MoveSelection.ALL);
+        for (int i = 0; i < scratch.size(); i++) {
+            if (EncodedMove.isSameMove(scratch.get(i), move)) {
+                return scratch.get(i);
+            }
+        }
+        return EncodedMove.NO_MOVE;
+    }
+
+    private static void generatePieceMoves(
+            GameState gameState,
+            LegalityMasks legalityMasks,
+            MoveList moves,
+            int x,
+            int y,
+            Piece piece,
+            MoveSelection selection) {
+        BitBoards board = gameState.getBitBoards();
+        long irreversibleData = gameState.getEncodedIrreversibleData();
+        byte activeSide = piece.getSide();
+        long allowedTargets = legalityMasks.getAllowedTargets(BitBoard.calculateIndex(x, y));
+
+        // in a double check only the king can move
+        if (allowedTargets == 0 && piece.getType() != Piece.KING) {
+            return;
+        }
+
+        switch (piece.getType()) {
+            case Piece.KING -> KingMoveGenerator.generateKingMoves(
+                    moves,
+                    x,
+                    y,
+                    board,
+                    activeSide,
+                    irreversibleData,
+                    selection,
+                    allowedTargets);
+            case Piece.QUEEN -> {
+                LineMoveGenerator.generateStraightMoves(
+                        moves, x, y, board, activeSide, selection, allowedTargets);
+                LineMoveGenerator.generateDiagonalMoves(
+                        moves, x, y, board, activeSide, selection, allowedTargets);
+            }
+            case Piece.ROOK -> LineMoveGenerator.generateStraightMoves(
+                    moves, x, y, board, activeSide, selection, allowedTargets);
+            case Piece.BISHOP -> LineMoveGenerator.generateDiagonalMoves(
+                    moves, x, y, board, activeSide, selection, allowedTargets);
+            case Piece.KNIGHT -> KnightMoveGenerator.generateKnightMoves(
+                    moves, x, y, board, activeSide, selection, allowedTargets);
+            case Piece.PAWN -> PawnMoveGenerator.generatePawnMove(
+                    moves,
+                    x,
+                    y,
+                    board,
+                    activeSide,
+                    getLegalEnPassantX(legalityMasks, x, y, activeSide, irreversibleData),
+                    selection,
+                    allowedTargets);
+            case Piece.EMPTY -> throw new IllegalStateException(
+                    "Empty piece type should have been skipped");
+        }
+    }
+
+    /**
+     * @return The en passant file, if the pawn on the given square could capture en passant without exposing our king.
+     * {@link EncodedIrreversibleData#NO_EN_PASSANT} otherwise.
+     */
+    private static int getLegalEnPassantX(
+            LegalityMasks legalityMasks, int x, int y, byte activeSide, long irreversibleData) {
+        int enPassantX = EncodedIrreversibleData.getEnPassantX(irreversibleData);
+        // only pawns right next to the pawn that just double pushed can capture it
+        if (enPassantX == EncodedIrreversibleData.NO_EN_PASSANT || Math.abs(enPassantX - x) != 1) {
+            return EncodedIrreversibleData.NO_EN_PASSANT;
+        }
+
+        int enPassantY = activeSide == Piece.WHITE ? 2 : 5;
+        if (!legalityMasks.isEnPassantLegal(x, y, enPassantX, enPassantY)) {
+            return EncodedIrreversibleData.NO_EN_PASSANT;
+        }
+        return enPassantX;
+    }
+
+    /**
+     * Generates a list of all possible legal moves for the active side
+     * in the given game state.
      * <p>
-     * This needs one make and one unmake causing the method to be rather slow.
+     * Same as {@link #generateLegalMoves(GameState, MoveList)}, but decodes the moves,
+     * which allocates. So this should not be used during the search.
      *
+     * @param gameState The position to generate moves for.
      * @return a list of {@code Move} objects representing all legal moves
      *         for the active player in the current game state.
      */
-    public static ArrayList<Move> generateLegalMoves() {
-        ArrayList<Move> pseudoLegalMoves = MoveGenerator.generatePseudoLegalMoves();
-        ArrayList<Move> legalMoves = new ArrayList<>();
+    public static ArrayList<Move> generateLegalMoves(GameState gameState) {
+        MoveList legalMoves = new MoveList();
+        generateLegalMoves(gameState, legalMoves);
+        return legalMoves.toMoves();
+    }
+
+    /**
+     * Adds a move for every attacked square that is not blocked by a friendly piece.
+     *
+     * @param attacks All squares the piece attacks, including the ones occupied by friendly pieces.
+     */
+    static void generateMovesToAttackedSquares(
+            MoveList moves,
+            int x,
+            int y,
+            BitBoards board,
+            byte activeSide,
+            long attacks,
+            MoveSelection selection) {
+        // Empty squares - quiet moves
+        long quietTargets = selection.includesQuiets() ? attacks & ~board.getOccupancy() : 0L;
+        while (quietTargets != 0) {
+            int square = Long.numberOfTrailingZeros(quietTargets);
+            quietTargets &= quietTargets - 1;
+
+            moves.add(EncodedMove.encode(x, y, square % 8, square / 8));
+        }
 
-        byte activeSide = GameState.getInstance().getFriendlySide();
+        // Enemy pieces - captures
+        long captureTargets =
+                selection.includesCaptures()
+                        ? attacks & board.getOccupancy(Piece.getEnemySide(activeSide))
+                        : 0L;
+        while (captureTargets != 0) {
+            int square = Long.numberOfTrailingZeros(captureTargets);
+            captureTargets &= captureTargets - 1;
 
-        for (Move move : pseudoLegalMoves) {
-            GameState.getInstance().makeMove(move);
-            if (!KingInCheckDecider.isKingUnderAttack(activeSide)) {
-                legalMoves.add(move);
-            }
-            GameState.getInstance().unmakeMove(move);
+            Piece pieceAtDestination = board.getPieceAt(square % 8, square / 8);
+            moves.add(EncodedMove.encode(x, y, square % 8, square / 8, pieceAtDestination));
         }
-        return legalMoves;
     }
 }
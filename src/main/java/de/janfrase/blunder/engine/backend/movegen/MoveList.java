@@ -0,0 +1,103 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import java.util.ArrayList;
+
+/**
+ * A fixed size list of {@link EncodedMove}s, each with a score that can be used for move ordering.
+ * <p>
+ * The search keeps one instance per ply and reuses it for every node, so that generating moves does not allocate.
+ */
+public class MoveList {
+
+    // no chess position has more moves than this
+    public static final int MAX_MOVES = 256;
+
+    private final int[] moves = new int[MAX_MOVES];
+    private final int[] scores = new int[MAX_MOVES];
+    private int size = 0;
+
+    public void add(int move) {
+        moves[size] = move;
+        scores[size] = 0;
+        size++;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setScore(int index, int score) {
+        scores[index] = score;
+    }
+
+    /**
+     * Swaps the move with the highest score among the moves from {@code index} on to {@code index} and returns it.
+     * Picking one move after another is cheaper than sorting everything, since the search often cuts off after a few moves.
+     */
+    public int pickBest(int index) {
+        int bestIndex = index;
+        for (int i = index + 1; i < size; i++) {
+            if (scores[i] > scores[bestIndex]) {
+                bestIndex = i;
+            }
+        }
+
+        int move = moves[bestIndex];
+        int score = scores[bestIndex];
+        moves[bestIndex] = moves[index];
+        scores[bestIndex] = scores[index];
+        moves[index] = move;
+        scores[index] = score;
+
+        return move;
+    }
+
+    /**
+     * Sorts the moves so that the highest score comes first. Moves with the same score keep their order.
+     */
+    public void sortByScore() {
+        // insertion sort, since the lists are short and this does not allocate
+        for (int i = 1; i < size; i++) {
+            int move = moves[i];
+            int score = scores[i];
+
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Decodes all moves. This allocates, so it should not be used during the search.
+     */
+    public ArrayList<Move> toMoves() {
+        ArrayList<Move> decodedMoves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            decodedMoves.add(EncodedMove.toMove(moves[i]));
+        }
+        return decodedMoves;
+    }
+}
@@ -1,40 +1,48 @@
 /* Made by Jan Frase :) */
 package de.janfrase.blunder.engine.backend.movegen;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
 import de.janfrase.blunder.engine.backend.state.board.BitBoards;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
 import de.janfrase.blunder.utility.Constants;
-import java.util.ArrayList;
-import java.util.OptionalInt;
 
 public class PawnMoveGenerator {
 
-    private static final int[] x_attack_directions = {1, -1};
-
     // I have to admit - this method is a bit ugly
+    // The en passant capture is not restricted by allowedTargets, the caller has to check it.
     protected static void generatePawnMove(
-            ArrayList<Move> moves,
+            MoveList moves,
             int x,
             int y,
             BitBoards board,
             byte activeSide,
-            OptionalInt enPassantX) {
-        int moveDirection = (activeSide == Constants.Side.WHITE ? -1 : 1);
+            int enPassantX,
+            MoveGenerator.MoveSelection selection,
+            long allowedTargets) {
+        int moveDirection = (activeSide == Piece.WHITE ? -1 : 1);
         int yDestination = y + moveDirection;
 
-        generateStepForward(moves, x, y, board, yDestination);
+        generateStepForward(moves, x, y, board, yDestination, selection, allowedTargets);
 
-        generateDoubleStepForward(moves, x, y, board, moveDirection, activeSide);
+        if (selection.includesQuiets()) {
+            generateDoubleStepForward(
+                    moves, x, y, board, moveDirection, activeSide, allowedTargets);
+        }
 
-        generateAttacks(moves, x, y, board, activeSide, yDestination, enPassantX);
+        if (selection.includesCaptures()) {
+            generateAttacks(moves, x, y, board, activeSide, enPassantX, allowedTargets);
+        }
     }
 
     private static void generateDoubleStepForward(
-            ArrayList<Move> moves,
+            MoveList moves,
             int x,
             int y,
-            BoardRepresentation board,
+            BitBoards board,
             int moveDirection,
-            Constants.Side activeSide) {
+            byte activeSide,
+            long allowedTargets) {
         // can't double push outside the starting square
         if (!isOnStartingSquare(y, activeSide)) {
             return;
@@ -43,56 +51,54 @@ public class PawnMoveGenerator {
         int yInBetween = y + moveDirection;
         int yDestination = y + 2 * moveDirection;
 
-        Constants.Side sideInBetween = board.getSideAt(x, yInBetween);
-        Constants.Side sideAtDestination = board.getSideAt(x, yDestination);
+        boolean isInBetweenEmpty = board.getPieceAt(x, yInBetween).isEmpty();
+        boolean isDestinationEmpty = board.getPieceAt(x, yDestination).isEmpty();
+
+        boolean isDestinationAllowed =
+                (BitBoard.getLongWithBitAtIndex(x, yDestination) & allowedTargets) != 0;
 
         // both squares in front are empty
-        if (sideInBetween == Constants.Side.EMPTY && sideAtDestination == Constants.Side.EMPTY) {
-            moves.add(new Move(x, y, x, yDestination, Move.MoveType.DOUBLE_PAWN_PUSH));
+        if (isInBetweenEmpty && isDestinationEmpty && isDestinationAllowed) {
+            moves.add(EncodedMove.encode(x, y, x, yDestination, Move.MoveType.DOUBLE_PAWN_PUSH));
         }
     }
 
     private static void generateAttacks(
-            ArrayList<Move> moves,
+            MoveList moves,
             int x,
             int y,
-            BoardRepresentation board,
-            Constants.Side activeSide,
-            int yDestination,
-            OptionalInt enPassantX) {
-        for (int x_attack_dir : x_attack_directions) {
-            int xDestination = x + x_attack_dir;
-
-            if (Constants.isOffBoard(xDestination, yDestination)) continue;
+            BitBoards board,
+            byte activeSide,
+            int enPassantX,
+            long allowedTargets) {
+        long attacks = LeaperAttacks.getPawnAttacks(BitBoard.calculateIndex(x, y), activeSide);
 
-            int enPassantY = activeSide == Constants.Side.WHITE ? 2 : 5;
+        // we can capture an en passant :D
+        if (enPassantX != EncodedIrreversibleData.NO_EN_PASSANT) {
+            int enPassantY = activeSide == Piece.WHITE ? 2 : 5;
+            long enPassantSquare = BitBoard.getLongWithBitAtIndex(enPassantX, enPassantY);
 
-            // we can capture an en passant :D
-            if (enPassantX.isPresent()
-                    && xDestination == enPassantX.getAsInt()
-                    && yDestination == enPassantY) {
-                moves.add(new Move(x, y, xDestination, yDestination, Move.MoveType.EP_CAPTURE));
-                continue;
+            if ((attacks & enPassantSquare) != 0) {
+                moves.add(
+                        EncodedMove.encode(x, y, enPassantX, enPassantY, Move.MoveType.EP_CAPTURE));
             }
+        }
 
-            Constants.Side sideAtAttackDestination = board.getSideAt(xDestination, yDestination);
-            Constants.PieceType pieceAtAttackDestination =
-                    board.getPieceAt(xDestination, yDestination);
-
-            // nothing to capture
-            if (sideAtAttackDestination == Constants.Side.EMPTY) {
-                continue;
-            }
+        // only squares with an enemy on them can be captured
+        long targets =
+                attacks & board.getOccupancy(Piece.getEnemySide(activeSide)) & allowedTargets;
+        while (targets != 0) {
+            int square = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
 
-            // can't capture friendly piece
-            if (sideAtAttackDestination == activeSide) {
-                continue;
-            }
+            int xDestination = square % 8;
+            int yDestination = square / 8;
+            Piece pieceAtAttackDestination = board.getPieceAt(xDestination, yDestination);
 
             // we are promoting!
             if (yDestination == 0 || yDestination == Constants.BOARD_SIDE_LENGTH - 1) {
                 moves.add(
-                        new Move(
+                        EncodedMove.encode(
                                 x,
                                 y,
                                 xDestination,
@@ -100,7 +106,7 @@ public class PawnMoveGenerator {
                                 Move.MoveType.ROOK_PROMOTION,
                                 pieceAtAttackDestination));
                 moves.add(
-                        new Move(
+                        EncodedMove.encode(
                                 x,
                                 y,
                                 xDestination,
@@ -108,7 +114,7 @@ public class PawnMoveGenerator {
                                 Move.MoveType.KNIGHT_PROMOTION,
                                 pieceAtAttackDestination));
                 moves.add(
-                        new Move(
+                        EncodedMove.encode(
                                 x,
                                 y,
                                 xDestination,
@@ -116,7 +122,7 @@ public class PawnMoveGenerator {
                                 Move.MoveType.BISHOP_PROMOTION,
                                 pieceAtAttackDestination));
                 moves.add(
-                        new Move(
+                        EncodedMove.encode(
                                 x,
                                 y,
                                 xDestination,
@@ -124,33 +130,54 @@ public class PawnMoveGenerator {
                                 Move.MoveType.QUEEN_PROMOTION,
                                 pieceAtAttackDestination));
             } else {
-                moves.add(new Move(x, y, xDestination, yDestination, pieceAtAttackDestination));
+                moves.add(
+                        EncodedMove.encode(
+                                x, y, xDestination, yDestination, pieceAtAttackDestination));
             }
         }
     }
 
     private static void generateStepForward(
-            ArrayList<Move> moves, int x, int y, BoardRepresentation board, int yDestination) {
-        Constants.Side sideAtDestination = board.getSideAt(x, yDestination);
+            MoveList moves,
+            int x,
+            int y,
+            BitBoards board,
+            int yDestination,
+            MoveGenerator.MoveSelection selection,
+            long allowedTargets) {
+        if ((BitBoard.getLongWithBitAtIndex(x, yDestination) & allowedTargets) == 0) {
+            return;
+        }
+
         // the square in front is empty
-        if (sideAtDestination == Constants.Side.EMPTY) {
+        if (board.getPieceAt(x, yDestination).isEmpty()) {
+            boolean isPromotion =
+                    yDestination == 0 || yDestination == Constants.BOARD_SIDE_LENGTH - 1;
+
+            // promotions are generated together with the captures, since they change the material
+            if (isPromotion ? !selection.includesCaptures() : !selection.includesQuiets()) {
+                return;
+            }
+
             // we are promoting!
-            if (yDestination == 0 || yDestination == Constants.BOARD_SIDE_LENGTH - 1) {
-                moves.add(new Move(x, y, x, yDestination, Move.MoveType.ROOK_PROMOTION));
-                moves.add(new Move(x, y, x, yDestination, Move.MoveType.KNIGHT_PROMOTION));
-                moves.add(new Move(x, y, x, yDestination, Move.MoveType.BISHOP_PROMOTION));
-                moves.add(new Move(x, y, x, yDestination, Move.MoveType.QUEEN_PROMOTION));
+            if (isPromotion) {
+                moves.add(EncodedMove.encode(x, y, x, yDestination, Move.MoveType.ROOK_PROMOTION));
+                moves.add(
+                        EncodedMove.encode(x, y, x, yDestination, Move.MoveType.KNIGHT_PROMOTION));
+                moves.add(
+                        EncodedMove.encode(x, y, x, yDestination, Move.MoveType.BISHOP_PROMOTION));
+                moves.add(EncodedMove.encode(x, y, x, yDestination, Move.MoveType.QUEEN_PROMOTION));
             } else {
-                moves.add(new Move(x, y, x, yDestination));
+                moves.add(EncodedMove.encode(x, y, x, yDestination));
             }
         }
     }
 
-    private static boolean isOnStartingSquare(int y, Constants.Side activeSide) {
-        if (activeSide == Constants.Side.WHITE) {
+    private static boolean isOnStartingSquare(int y, byte activeSide) {
+        if (activeSide == Piece.WHITE) {
             return y == 6;
         }
-        if (activeSide == Constants.Side.BLACK) {
+        if (activeSide == Piece.BLACK) {
             return y == 1;
         }
         throw new IllegalStateException("We should not be here!");
@@ -0,0 +1,286 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+import de.janfrase.blunder.utility.Constants;
+
+/**
+ * Precomputed attack tables for bishops, rooks and queens using magic bitboards.
+ * <p>
+ * For every square only the pieces between the slider and the edge of the board can block it - the relevant occupancy.
+ * Multiplying the relevant occupancy with a magic number gathers its bits in the top bits of the product,
+ * which are then used as index into a table holding the attacks for exactly that occupancy.
+ * <p>
+ * The magic numbers were found once by trial and error with random numbers that have only few bits set.
+ * They are hard-coded, since searching for them took seconds that the first search had to pay for.
+ * When this class is loaded, every magic is checked to map all occupancies without a harmful collision.
+ * <p>
+ * Squares are indexed like in {@link BitBoard#calculateIndex(int, int)}.
+ * See: <a href="https://www.chessprogramming.org/Magic_Bitboards">Chess programming wiki.</a>
+ */
+public class SliderAttacks {
+
+    private static final long[] ROOK_MASKS = new long[Constants.BOARD_TOTAL_SIZE];
+    private static final int[] ROOK_SHIFTS = new int[Constants.BOARD_TOTAL_SIZE];
+    private static final long[][] ROOK_ATTACKS = new long[Constants.BOARD_TOTAL_SIZE][];
+
+    private static final long[] BISHOP_MASKS = new long[Constants.BOARD_TOTAL_SIZE];
+    private static final int[] BISHOP_SHIFTS = new int[Constants.BOARD_TOTAL_SIZE];
+    private static final long[][] BISHOP_ATTACKS = new long[Constants.BOARD_TOTAL_SIZE][];
+
+    // indexed by square
+    private static final long[] ROOK_MAGICS = {
+        0x2080_0022_1040_0280L, 0x0140_0041_B000_6000L,
+        0x0100_2000_1100_0842L, 0x1280_0800_9002_0480L,
+        0x0200_1020_0200_0408L, 0x0100_0801_0002_0400L,
+        0x8300_1200_0400_8100L, 0x0080_0646_3100_0180L,
+        0x4009_8001_8070_4001L, 0x2000_4010_0040_2000L,
+        0x2700_8020_0080_1002L, 0x8000_8008_0010_0080L,
+        0x8020_8008_0182_0400L, 0x8008_8080_0200_0400L,
+        0x0002_0004_8200_0108L, 0x0001_0001_0020_4082L,
+        0x0000_8180_0040_0030L, 0x2088_4840_1000_2000L,
+        0x2500_8880_2000_1000L, 0x0004_0900_1000_2100L,
+        0x0002_0200_1004_2008L, 0x000A_8080_0400_0200L,
+        0x0000_0400_0891_5012L, 0x2050_0200_0080_4401L,
+        0x0200_4000_8000_8030L, 0x0000_2000_8040_0086L,
+        0x0040_2001_0011_0040L, 0x0801_0021_0008_1000L,
+        0x8400_0800_8004_0080L, 0x0400_0400_8002_0080L,
+        0x0850_4104_0048_2210L, 0x4008_0042_0001_0084L,
+        0x0213_30C0_0480_0080L, 0x0280_4010_00C0_2000L,
+        0x0010_1000_8080_2000L, 0x0308_4012_0200_200AL,
+        0x0051_0085_3100_0800L, 0x9004_8004_0080_0200L,
+        0x0800_18A3_0400_0650L, 0x0088_0085_0200_204CL,
+        0x1040_4000_8004_8020L, 0x0110_0020_0040_400CL,
+        0x0001_2001_0611_0040L, 0x0400_1000_0800_8080L,
+        0x0214_0800_0400_8080L, 0x0200_C010_A008_0104L,
+        0x2020_0100_0200_8080L, 0x1034_0891_0042_0024L,
+        0x0004_8000_2845_0100L, 0x0000_2000_8040_0080L,
+        0x0842_2000_1000_8480L, 0x0800_2010_0842_0200L,
+        0x0020_8004_0008_0080L, 0x3850_0400_8002_0080L,
+        0x8009_0002_0024_1100L, 0x0408_0060_9504_0200L,
+        0x0905_0840_1022_8001L, 0x220A_2200_8040_1102L,
+        0x4000_4100_0810_2001L, 0x0001_01A0_0410_0009L,
+        0x0682_0050_1820_04F2L, 0x0202_0004_0810_0102L,
+        0x2902_9008_0251_0094L, 0x0810_0104_0688_C422L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+        0x1044_2430_1401_0014L, 0x8010_0200_D102_0034L,
+        0x0028_B084_0081_4201L, 0x1084_1042_0000_1000L,
+        0x8004_0420_2042_0845L, 0x0810_8250_4080_0002L,
+        0x0001_0C10_0504_0201L, 0x0000_1442_0210_4020L,
+        0x0020_0960_0112_0220L, 0x0408_1030_4121_0020L,
+        0x1D40_0848_0100_2100L, 0x0200_4220_9200_0000L,
+        0x4408_3C10_2880_0403L, 0x0264_0101_8840_2001L,
+        0x0000_5888_0148_2000L, 0x0822_0202_1084_840CL,
+        0x0040_0206_1002_2202L, 0x4902_0004_0408_0208L,
+        0x0042_0204_0C04_0008L, 0x0008_2064_0408_1021L,
+        0x0002_8104_02A0_2400L, 0x1201_001A_0504_821AL,
+        0x8010_480A_2104_2044L, 0x0002_0400_8200_8240L,
+        0x01C2_1001_4010_0290L, 0x0404_0400_02B8_0800L,
+        0x7200_3000_8814_8020L, 0x0861_0800_0100_4100L,
+        0x0081_0100_0410_4008L, 0x0502_0020_8200_9000L,
+        0x2202_4200_0888_0120L, 0x8008_4104_2201_0101L,
+        0x0241_1040_0010_0404L, 0x0002_11C4_0020_0800L,
+        0x1480_2030_0428_0481L, 0x8480_0404_0048_0120L,
+        0x2404_0484_0002_0102L, 0x8801_0041_0002_0100L,
+        0x0002_00A1_0804_0402L, 0x0002_1410_2081_0080L,
+        0x0006_0910_4220_88A0L, 0x1064_0CC2_3000_9808L,
+        0x0002_0200_2C00_0600L, 0x0800_0040_1040_0204L,
+        0x004A_1441_0A00_0C00L, 0x0801_0200_8200_0900L,
+        0x0450_8A88_0444_0106L, 0x0005_0206_0208_4851L,
+        0x1074_2C24_0208_0000L, 0x0001_0520_8220_10C0L,
+        0x4542_0204_4A08_0180L, 0x00C0_0004_8404_3490L,
+        0xF082_0412_120A_0400L, 0x1C00_1020_0109_1204L,
+        0x0061_5404_1800_4011L, 0x4018_2210_8212_1000L,
+        0x5800_1080_9008_2000L, 0x0820_0880_4402_2000L,
+        0x0204_0001_0051_1005L, 0x4058_1008_0442_0200L,
+        0x0004_2260_D006_0A20L, 0x4800_0411_A001_0100L,
+        0x9108_0822_1002_2220L, 0x0004_2000_8420_8080L
+    };
+
+    // indexed by two squares, empty if they do not share a rank, file or diagonal
+    private static final long[][] SQUARES_BETWEEN =
+            new long[Constants.BOARD_TOTAL_SIZE][Constants.BOARD_TOTAL_SIZE];
+    private static final long[][] LINES =
+            new long[Constants.BOARD_TOTAL_SIZE][Constants.BOARD_TOTAL_SIZE];
+
+    static {
+        for (int square = 0; square < Constants.BOARD_TOTAL_SIZE; square++) {
+            initSquare(
+                    square,
+                    Constants.STRAIGHT_DIRECTIONS,
+                    ROOK_MASKS,
+                    ROOK_MAGICS,
+                    ROOK_SHIFTS,
+                    ROOK_ATTACKS);
+            initSquare(
+                    square,
+                    Constants.DIAGONAL_DIRECTIONS,
+                    BISHOP_MASKS,
+                    BISHOP_MAGICS,
+                    BISHOP_SHIFTS,
+                    BISHOP_ATTACKS);
+        }
+
+        // needs the attack tables above
+        for (int square = 0; square < Constants.BOARD_TOTAL_SIZE; square++) {
+            initLines(square);
+        }
+    }
+
+    /**
+     * Not meant for instantiation.
+     */
+    private SliderAttacks() {}
+
+    /**
+     * @param square    The square the rook stands on.
+     * @param occupancy All pieces on the board. The first piece in every direction is attacked, no matter the side.
+     * @return All squares the rook attacks.
+     */
+    public static long getRookAttacks(int square, long occupancy) {
+        int index =
+                (int)
+                        (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square])
+                                >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    /**
+     * @param square    The square the bishop stands on.
+     * @param occupancy All pieces on the board. The first piece in every direction is attacked, no matter the side.
+     * @return All squares the bishop attacks.
+     */
+    public static long getBishopAttacks(int square, long occupancy) {
+        int index =
+                (int)
+                        (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square])
+                                >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    public static long getQueenAttacks(int square, long occupancy) {
+        return getRookAttacks(square, occupancy) | getBishopAttacks(square, occupancy);
+    }
+
+    /**
+     * @return The squares strictly between the two squares, if they share a rank, file or diagonal. Otherwise 0.
+     */
+    public static long getSquaresBetween(int square, int otherSquare) {
+        return SQUARES_BETWEEN[square][otherSquare];
+    }
+
+    /**
+     * @return The whole rank, file or diagonal from edge to edge that goes through both squares. 0 if there is none.
+     */
+    public static long getLine(int square, int otherSquare) {
+        return LINES[square][otherSquare];
+    }
+
+    private static void initLines(int square) {
+        long squareBit = 1L << square;
+        for (int otherSquare = 0; otherSquare < Constants.BOARD_TOTAL_SIZE; otherSquare++) {
+            long otherSquareBit = 1L << otherSquare;
+
+            if ((getRookAttacks(square, 0L) & otherSquareBit) != 0) {
+                SQUARES_BETWEEN[square][otherSquare] =
+                        getRookAttacks(square, otherSquareBit)
+                                & getRookAttacks(otherSquare, squareBit);
+                LINES[square][otherSquare] =
+                        (getRookAttacks(square, 0L) & getRookAttacks(otherSquare, 0L))
+                                | squareBit
+                                | otherSquareBit;
+            } else if ((getBishopAttacks(square, 0L) & otherSquareBit) != 0) {
+                SQUARES_BETWEEN[square][otherSquare] =
+                        getBishopAttacks(square, otherSquareBit)
+                                & getBishopAttacks(otherSquare, squareBit);
+                LINES[square][otherSquare] =
+                        (getBishopAttacks(square, 0L) & getBishopAttacks(otherSquare, 0L))
+                                | squareBit
+                                | otherSquareBit;
+            }
+        }
+    }
+
+    private static void initSquare(
+            int square,
+            int[][] directions,
+            long[] masks,
+            long[] magics,
+            int[] shifts,
+            long[][] attacks) {
+        long mask = calculateRelevantOccupancy(square, directions);
+        int relevantBits = Long.bitCount(mask);
+        int occupancyCount = 1 << relevantBits;
+
+        // enumerate every subset of the mask, see "Traversing Subsets of a Set" on the wiki
+        long[] occupancies = new long[occupancyCount];
+        long[] expectedAttacks = new long[occupancyCount];
+        long occupancy = 0;
+        for (int i = 0; i < occupancyCount; i++) {
+            occupancies[i] = occupancy;
+            expectedAttacks[i] = calculateAttacksByWalking(square, occupancy, directions);
+            occupancy = (occupancy - mask) & mask;
+        }
+
+        int shift = Long.SIZE - relevantBits;
+        long magic = magics[square];
+        long[] table = new long[occupancyCount];
+        boolean[] isWritten = new boolean[occupancyCount];
+        for (int i = 0; i < occupancyCount; i++) {
+            int index = (int) ((occupancies[i] * magic) >>> shift);
+
+            // two occupancies may only share an entry if they have the same attacks
+            if (isWritten[index] && table[index] != expectedAttacks[i]) {
+                throw new IllegalStateException("Invalid magic for square " + square);
+            }
+            isWritten[index] = true;
+            table[index] = expectedAttacks[i];
+        }
+
+        masks[square] = mask;
+        shifts[square] = shift;
+        attacks[square] = table;
+    }
+
+    /**
+     * The squares on the edge of the board can never block anything, so they are not part of the mask.
+     */
+    private static long calculateRelevantOccupancy(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int currentX = square % 8 + direction[0];
+            int currentY = square / 8 + direction[1];
+
+            while (!Constants.isOffBoard(currentX + direction[0], currentY + direction[1])) {
+                mask |= BitBoard.getLongWithBitAtIndex(currentX, currentY);
+                currentX += direction[0];
+                currentY += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long calculateAttacksByWalking(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int currentX = square % 8 + direction[0];
+            int currentY = square / 8 + direction[1];
+
+            while (!Constants.isOffBoard(currentX, currentY)) {
+                long currentSquare = BitBoard.getLongWithBitAtIndex(currentX, currentY);
+                attacks |= currentSquare;
+
+                // the first piece we hit blocks everything behind it
+                if ((occupancy & currentSquare) != 0) {
+                    break;
+                }
+
+                currentX += direction[0];
+                currentY += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
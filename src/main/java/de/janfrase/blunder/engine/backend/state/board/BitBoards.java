@@ -3,7 +3,6 @@ package de.janfrase.blunder.engine.backend.state.board;
 
 import de.janfrase.blunder.engine.backend.Piece;
 import de.janfrase.blunder.utility.Constants;
-import java.util.Optional;
 
 public class BitBoards {
 
@@ -36,24 +35,55 @@ public class BitBoards {
     };
 
     public static final Piece[] allPossiblePieces = {
-        new Piece(Piece.PAWN, Piece.WHITE),
-        new Piece(Piece.PAWN, Piece.BLACK),
-        new Piece(Piece.ROOK, Piece.WHITE),
-        new Piece(Piece.ROOK, Piece.BLACK),
-        new Piece(Piece.KNIGHT, Piece.WHITE),
-        new Piece(Piece.KNIGHT, Piece.BLACK),
-        new Piece(Piece.BISHOP, Piece.WHITE),
-        new Piece(Piece.BISHOP, Piece.BLACK),
-        new Piece(Piece.QUEEN, Piece.WHITE),
-        new Piece(Piece.QUEEN, Piece.BLACK),
-        new Piece(Piece.KING, Piece.WHITE),
-        new Piece(Piece.KING, Piece.BLACK)
+        Piece.of(Piece.PAWN, Piece.WHITE),
+        Piece.of(Piece.PAWN, Piece.BLACK),
+        Piece.of(Piece.ROOK, Piece.WHITE),
+        Piece.of(Piece.ROOK, Piece.BLACK),
+        Piece.of(Piece.KNIGHT, Piece.WHITE),
+        Piece.of(Piece.KNIGHT, Piece.BLACK),
+        Piece.of(Piece.BISHOP, Piece.WHITE),
+        Piece.of(Piece.BISHOP, Piece.BLACK),
+        Piece.of(Piece.QUEEN, Piece.WHITE),
+        Piece.of(Piece.QUEEN, Piece.BLACK),
+        Piece.of(Piece.KING, Piece.WHITE),
+        Piece.of(Piece.KING, Piece.BLACK)
     };
 
+    // the value of the piece on every square, indexed like the bits of a bitboard
+    // this way we don't have to look through all 12 bitboards to find out what stands somewhere
+    private final byte[] mailbox = new byte[Constants.BOARD_TOTAL_SIZE];
+
+    // which squares are occupied at all, kept up to date on every set and clear
+    private long whiteOccupancy = 0;
+    private long blackOccupancy = 0;
+    private long occupancy = 0;
+
+    // the material and piece-square values of all pieces, white minus black, and the game phase,
+    // kept up to date the same way, so that the evaluation does not have to look at every square
+    private int midgameScore = 0;
+    private int endgameScore = 0;
+    private int phase = 0;
+
     public BitBoards() {}
 
-    private int pieceToIndex(Piece piece) {
-        return switch (piece.value) {
+    /**
+     * Creates a deep copy of the given bitboards.
+     */
+    public BitBoards(BitBoards other) {
+        for (int i = 0; i < bitBoards.length; i++) {
+            bitBoards[i].value = other.bitBoards[i].value;
+        }
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        whiteOccupancy = other.whiteOccupancy;
+        blackOccupancy = other.blackOccupancy;
+        occupancy = other.occupancy;
+        midgameScore = other.midgameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+    }
+
+    private int pieceToIndex(byte pieceValue) {
+        return switch (pieceValue) {
             case Piece.WHITE | Piece.PAWN -> 0;
             case Piece.BLACK | Piece.PAWN -> 1;
             case Piece.WHITE | Piece.ROOK -> 2;
@@ -67,85 +97,110 @@ public class BitBoards {
             case Piece.WHITE | Piece.KING -> 10;
             case Piece.BLACK | Piece.KING -> 11;
 
-            default -> throw new IllegalStateException("Unexpected value: " + piece);
+            default -> throw new IllegalStateException("Unexpected value: " + pieceValue);
         };
     }
 
     public void clearSquare(int x, int y) {
-        for (BitBoard bitBoard : bitBoards) {
-            bitBoard.clearBit(x, y);
+        int square = BitBoard.calculateIndex(x, y);
+        byte pieceValue = mailbox[square];
+
+        // nothing to clear
+        if (pieceValue == Piece.EMPTY) {
+            return;
         }
+
+        bitBoards[pieceToIndex(pieceValue)].clearBit(x, y);
+        mailbox[square] = Piece.EMPTY;
+
+        long notSquare = ~(1L << square);
+        whiteOccupancy &= notSquare;
+        blackOccupancy &= notSquare;
+        occupancy &= notSquare;
+
+        Piece piece = Piece.fromValue(pieceValue);
+        midgameScore -= PieceSquareTables.getMidgameScore(piece, square);
+        endgameScore -= PieceSquareTables.getEndgameScore(piece, square);
+        phase -= PieceSquareTables.getPhase(piece);
     }
 
+    /**
+     * @return The piece on the square. The instance is shared, so it must not be modified.
+     */
     public Piece getPieceAt(int x, int y) {
-        for (int i = 0; i < bitBoards.length; i++) {
-            BitBoard bitBoard = bitBoards[i];
-            boolean isNotEmpty = bitBoard.getBit(x, y);
-            if (isNotEmpty) {
-                return allPossiblePieces[i];
-            }
-        }
-        return Piece.createEmptyPiece();
+        return Piece.fromValue(mailbox[BitBoard.calculateIndex(x, y)]);
     }
 
     public void setPieceAt(int x, int y, Piece piece) {
-        BitBoard bitBoard = bitBoards[pieceToIndex(piece)];
+        // whatever stood here before is replaced
+        clearSquare(x, y);
+
+        BitBoard bitBoard = bitBoards[pieceToIndex(piece.value)];
         bitBoard.setBit(x, y);
+
+        int square = BitBoard.calculateIndex(x, y);
+        mailbox[square] = piece.value;
+
+        long squareBit = 1L << square;
+        if (piece.getSide() == Piece.WHITE) {
+            whiteOccupancy |= squareBit;
+        } else {
+            blackOccupancy |= squareBit;
+        }
+        occupancy |= squareBit;
+
+        midgameScore += PieceSquareTables.getMidgameScore(piece, square);
+        endgameScore += PieceSquareTables.getEndgameScore(piece, square);
+        phase += PieceSquareTables.getPhase(piece);
     }
 
     public BitBoard getBitBoard(Piece piece) {
-        int index = pieceToIndex(piece);
+        int index = pieceToIndex(piece.value);
         return bitBoards[index];
     }
 
-    public BitBoard getAllPieces() {
-        BitBoard allPieces = new BitBoard();
+    /**
+     * @return All occupied squares.
+     */
+    public long getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * @return All squares occupied by pieces of the given side.
+     */
+    public long getOccupancy(byte side) {
+        return side == Piece.WHITE ? whiteOccupancy : blackOccupancy;
+    }
 
-        for (BitBoard bitBoard : bitBoards) {
-            allPieces.value |= bitBoard.value;
-        }
+    /**
+     * @return true if the side has any pieces left besides its pawns and its king.
+     */
+    public boolean hasNonPawnMaterial(byte side) {
+        long pawnsAndKing =
+                getBitBoard(Piece.of(Piece.PAWN, side)).value
+                        | getBitBoard(Piece.of(Piece.KING, side)).value;
+        return (getOccupancy(side) & ~pawnsAndKing) != 0;
+    }
+
+    /**
+     * @return The midgame material and piece-square score from white's point of view.
+     */
+    public int getMidgameScore() {
+        return midgameScore;
+    }
 
-        return allPieces;
+    /**
+     * @return The endgame material and piece-square score from white's point of view.
+     */
+    public int getEndgameScore() {
+        return endgameScore;
     }
 
     /**
-     * Searches in a specified direction from the given starting coordinates for the first obstacle (piece)
-     * on the board and returns its coordinates if found. If no obstacle exists in that direction or the
-     * search goes off the board, an empty {@link Optional} is returned.
-     *
-     * @param x   The starting x-coordinate, representing the column index on the board.
-     * @param y   The starting y-coordinate, representing the row index on the board.
-     * @param dir An integer array representing the directional vector for the search, where
-     *            dir[0] is the change in x-coordinate and dir[1] is the change in y-coordinate
-     *            (e.g., {1, 0} for rightward movement, {-1, 1} for upward-left diagonal movement).
-     * @return An {@link Optional} containing an integer array with the x and y coordinates of the
-     *         first obstacle encountered in the specified direction, or an empty {@link Optional}
-     *         if no obstacle is found within the boundaries of the board.
+     * @return The game phase of both sides together, see {@link PieceSquareTables#MAX_PHASE}.
      */
-    public Optional<int[]> firstObstacleInDir(int x, int y, int[] dir) {
-        BitBoard allPieces = getAllPieces();
-
-        int currentX = x;
-        int currentY = y;
-
-        // loop until we find something or leave the board
-        while (true) {
-            currentX += dir[0];
-            currentY += dir[1];
-
-            // we have left the board -> there is nothing in this direction
-            if (Constants.isOffBoard(currentX, currentY)) {
-                return Optional.empty();
-            }
-
-            // Create Mask for the current position
-            long currentPiece = BitBoard.getLongWithBitAtIndex(currentX, currentY);
-            // Check if any piece occupies the masked position
-            boolean isSomethingHere = (allPieces.value & currentPiece) != 0;
-
-            if (isSomethingHere) {
-                return Optional.of(new int[] {currentX, currentY});
-            }
-        }
+    public int getPhase() {
+        return phase;
     }
 }
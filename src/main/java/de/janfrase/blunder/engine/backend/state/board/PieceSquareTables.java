@@ -0,0 +1,195 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.board;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.utility.Constants;
+
+/**
+ * The material and piece-square values of the
+ * <a href="https://www.chessprogramming.org/Simplified_Evaluation_Function">simplified evaluation function</a>,
+ * with a midgame and an endgame value for every piece on every square.
+ * <p>
+ * The tables are written from white's point of view, with a8 first. Black uses them mirrored.
+ * The values are positive for white and negative for black, so that {@link BitBoards} can simply
+ * add them up whenever a piece is put on or taken off a square.
+ * That is also why they live next to the board, the evaluation only reads the sums.
+ * <p>
+ * The same goes for the game phase: every minor piece, rook and queen adds to it,
+ * so that it goes from {@link #MAX_PHASE} in the starting position down to 0 with only pawns and kings left.
+ * See: <a href="https://www.chessprogramming.org/Tapered_Eval">Chess programming wiki.</a>
+ */
+public class PieceSquareTables {
+
+    private static final int[] PAWN_TABLE = {
+        0, 0, 0, 0, 0, 0, 0, 0,
+        50, 50, 50, 50, 50, 50, 50, 50,
+        10, 10, 20, 30, 30, 20, 10, 10,
+        5, 5, 10, 25, 25, 10, 5, 5,
+        0, 0, 0, 20, 20, 0, 0, 0,
+        5, -5, -10, 0, 0, -10, -5, 5,
+        5, 10, 10, -20, -20, 10, 10, 5,
+        0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20, 0, 0, 0, 0, -20, -40,
+        -30, 0, 10, 15, 15, 10, 0, -30,
+        -30, 5, 15, 20, 20, 15, 5, -30,
+        -30, 0, 15, 20, 20, 15, 0, -30,
+        -30, 5, 10, 15, 15, 10, 5, -30,
+        -40, -20, 0, 5, 5, 0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10, 0, 0, 0, 0, 0, 0, -10,
+        -10, 0, 5, 10, 10, 5, 0, -10,
+        -10, 5, 5, 10, 10, 5, 5, -10,
+        -10, 0, 10, 10, 10, 10, 0, -10,
+        -10, 10, 10, 10, 10, 10, 10, -10,
+        -10, 5, 0, 0, 0, 0, 5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK_TABLE = {
+        0, 0, 0, 0, 0, 0, 0, 0,
+        5, 10, 10, 10, 10, 10, 10, 5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        -5, 0, 0, 0, 0, 0, 0, -5,
+        0, 0, 0, 5, 5, 0, 0, 0
+    };
+
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10, -5, -5, -10, -10, -20,
+        -10, 0, 0, 0, 0, 0, 0, -10,
+        -10, 0, 5, 5, 5, 5, 0, -10,
+        -5, 0, 5, 5, 5, 5, 0, -5,
+        0, 0, 5, 5, 5, 5, 0, -5,
+        -10, 5, 5, 5, 5, 5, 0, -10,
+        -10, 0, 5, 0, 0, 0, 0, -10,
+        -20, -10, -10, -5, -5, -10, -10, -20
+    };
+
+    private static final int[] KING_MIDGAME_TABLE = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+        20, 20, 0, 0, 0, 0, 20, 20,
+        20, 30, 10, 0, 0, 10, 30, 20
+    };
+
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10, 0, 0, -10, -20, -30,
+        -30, -10, 20, 30, 30, 20, -10, -30,
+        -30, -10, 30, 40, 40, 30, -10, -30,
+        -30, -10, 30, 40, 40, 30, -10, -30,
+        -30, -10, 20, 30, 30, 20, -10, -30,
+        -30, -30, 0, 0, 0, 0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /** The game phase of the starting position, more is possible after promotions. */
+    public static final int MAX_PHASE = 24;
+
+    private static final int KNIGHT_PHASE = 1;
+    private static final int BISHOP_PHASE = 1;
+    private static final int ROOK_PHASE = 2;
+    private static final int QUEEN_PHASE = 4;
+
+    // indexed by the value of the piece times 64 plus the square
+    private static final int[] MIDGAME_SCORES =
+            new int[((Piece.KING | Piece.BLACK) + 1) * Constants.BOARD_TOTAL_SIZE];
+    private static final int[] ENDGAME_SCORES = new int[MIDGAME_SCORES.length];
+
+    static {
+        for (Piece piece : BitBoards.allPossiblePieces) {
+            int material = getMaterialValue(piece);
+            int sign = piece.getSide() == Piece.WHITE ? 1 : -1;
+
+            for (int square = 0; square < Constants.BOARD_TOTAL_SIZE; square++) {
+                // flips the board vertically for black
+                int tableIndex = piece.getSide() == Piece.WHITE ? square : square ^ 56;
+                int index = getIndex(piece, square);
+
+                MIDGAME_SCORES[index] =
+                        sign * (material + getTable(piece.getType(), false)[tableIndex]);
+                ENDGAME_SCORES[index] =
+                        sign * (material + getTable(piece.getType(), true)[tableIndex]);
+            }
+        }
+    }
+
+    /**
+     * Not meant for instantiation.
+     */
+    private PieceSquareTables() {}
+
+    /**
+     * @return The material and positional value of the piece on the square in the midgame,
+     * negative for black pieces.
+     */
+    public static int getMidgameScore(Piece piece, int square) {
+        return MIDGAME_SCORES[getIndex(piece, square)];
+    }
+
+    /**
+     * @return The material and positional value of the piece on the square in the endgame,
+     * negative for black pieces.
+     */
+    public static int getEndgameScore(Piece piece, int square) {
+        return ENDGAME_SCORES[getIndex(piece, square)];
+    }
+
+    /**
+     * @return The material value of the piece in centipawns, regardless of its side and square.
+     */
+    public static int getMaterialValue(Piece piece) {
+        return switch (piece.getType()) {
+            case Piece.KING -> 20000;
+            case Piece.QUEEN -> 900;
+            case Piece.ROOK -> 500;
+            case Piece.BISHOP -> 330;
+            case Piece.KNIGHT -> 320;
+            case Piece.PAWN -> 100;
+            default -> 0;
+        };
+    }
+
+    /**
+     * @return How much the piece adds to the game phase, regardless of its side.
+     */
+    public static int getPhase(Piece piece) {
+        return switch (piece.getType()) {
+            case Piece.KNIGHT -> KNIGHT_PHASE;
+            case Piece.BISHOP -> BISHOP_PHASE;
+            case Piece.ROOK -> ROOK_PHASE;
+            case Piece.QUEEN -> QUEEN_PHASE;
+            default -> 0;
+        };
+    }
+
+    private static int getIndex(Piece piece, int square) {
+        return piece.value * Constants.BOARD_TOTAL_SIZE + square;
+    }
+
+    private static int[] getTable(byte pieceType, boolean isEndgame) {
+        return switch (pieceType) {
+            case Piece.PAWN -> PAWN_TABLE;
+            case Piece.KNIGHT -> KNIGHT_TABLE;
+            case Piece.BISHOP -> BISHOP_TABLE;
+            case Piece.ROOK -> ROOK_TABLE;
+            case Piece.QUEEN -> QUEEN_TABLE;
+            case Piece.KING -> isEndgame ? KING_ENDGAME_TABLE : KING_MIDGAME_TABLE;
+            default -> throw new IllegalStateException("Unexpected value: " + pieceType);
+        };
+    }
+}
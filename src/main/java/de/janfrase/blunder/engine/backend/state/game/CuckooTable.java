@@ -0,0 +1,150 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.game;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.movegen.LeaperAttacks;
+import de.janfrase.blunder.engine.backend.movegen.Move;
+import de.janfrase.blunder.engine.backend.movegen.SliderAttacks;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
+import de.janfrase.blunder.utility.Constants;
+import java.util.Arrays;
+
+/**
+ * Every reversible move (a piece other than a pawn moving between two squares on an empty board),
+ * stored under the amount its zobrist hash changes by when it is made.
+ * <p>
+ * If the hash of the current position and of one a few plies ago differ by exactly such a key,
+ * a single move leads back to the earlier position. See {@link RepeatTable#hasUpcomingRepetition}.
+ * <p>
+ * Each key has two possible slots, so a lookup checks at most two entries.
+ * See: <a href="https://www.chessprogramming.org/Repetitions#Cuckoo_Tables">Chess programming wiki.</a>
+ */
+class CuckooTable {
+
+    // has to be a power of two, large enough to fit every reversible move
+    private static final int SIZE = 8192;
+
+    private static final long[] keys = new long[SIZE];
+    // only the from and to square, the move can be made in either direction
+    private static final int[] moves = new int[SIZE];
+
+    private static int moveCount = 0;
+
+    static {
+        init();
+    }
+
+    /**
+     * Not meant for instantiation.
+     */
+    private CuckooTable() {}
+
+    /**
+     * (Re)builds the table from the current zobrist keys, which is necessary whenever they change.
+     *
+     * @return Whether every move found a slot, which only fails for keys that are not random enough.
+     */
+    static boolean init() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(moves, EncodedMove.NO_MOVE);
+        moveCount = 0;
+
+        for (Piece piece : BitBoards.allPossiblePieces) {
+            if (piece.getType() == Piece.PAWN) {
+                continue;
+            }
+
+            for (int square = 0; square < Constants.BOARD_TOTAL_SIZE; square++) {
+                // every move is stored once, no matter in which direction it is made
+                long targets = getAttacks(piece.getType(), square) & -(2L << square);
+                while (targets != 0) {
+                    int otherSquare = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+
+                    long key =
+                            ZobristHasher.getPieceKey(piece, square)
+                                    ^ ZobristHasher.getPieceKey(piece, otherSquare)
+                                    ^ ZobristHasher.getSideToMoveKey();
+                    int move =
+                            EncodedMove.encode(
+                                    square, otherSquare, Move.MoveType.NORMAL_MOVE, Piece.EMPTY);
+                    if (!insert(key, move)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param moveKey The difference between two zobrist hashes.
+     * @return The reversible move that changes the hash by exactly this much or {@link EncodedMove#NO_MOVE}.
+     */
+    static int getMove(long moveKey) {
+        int index = firstIndex(moveKey);
+        if (keys[index] == moveKey) {
+            return moves[index];
+        }
+
+        index = secondIndex(moveKey);
+        if (keys[index] == moveKey) {
+            return moves[index];
+        }
+        return EncodedMove.NO_MOVE;
+    }
+
+    /**
+     * @return The number of reversible moves in the table.
+     */
+    static int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Puts the move into one of its two slots. If that slot is taken, the move that was there
+     * moves on to its other slot, and so on until a slot was free.
+     *
+     * @return False if no slot was found, e.g. because two moves share a key. A move is lost then.
+     */
+    private static boolean insert(long key, int move) {
+        int index = firstIndex(key);
+        // more displacements than slots means the moves are going in circles
+        for (int i = 0; i < SIZE; i++) {
+            long displacedKey = keys[index];
+            int displacedMove = moves[index];
+            keys[index] = key;
+            moves[index] = move;
+
+            if (displacedMove == EncodedMove.NO_MOVE) {
+                moveCount++;
+                return true;
+            }
+
+            key = displacedKey;
+            move = displacedMove;
+            index = index == firstIndex(key) ? secondIndex(key) : firstIndex(key);
+        }
+        return false;
+    }
+
+    private static long getAttacks(byte pieceType, int square) {
+        return switch (pieceType) {
+            case Piece.KNIGHT -> LeaperAttacks.getKnightAttacks(square);
+            case Piece.BISHOP -> SliderAttacks.getBishopAttacks(square, 0L);
+            case Piece.ROOK -> SliderAttacks.getRookAttacks(square, 0L);
+            case Piece.QUEEN -> SliderAttacks.getQueenAttacks(square, 0L);
+            case Piece.KING -> LeaperAttacks.getKingAttacks(square);
+            default -> throw new IllegalStateException("Unexpected piece type: " + pieceType);
+        };
+    }
+
+    private static int firstIndex(long key) {
+        return (int) (key & (SIZE - 1));
+    }
+
+    private static int secondIndex(long key) {
+        return (int) ((key >>> 16) & (SIZE - 1));
+    }
+}
@@ -1,12 +1,10 @@
 /* Made by Jan Frase :) */
 package de.janfrase.blunder.engine.backend.state.game;
 
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.CastlingRights;
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.IrreversibleData;
-import de.janfrase.blunder.utility.Constants;
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.OptionalInt;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -22,50 +20,59 @@ public class FenParser {
             "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
     private static final String RANK_SEPARATOR = "/";
     private static final String SEGMENT_SEPARATOR = " ";
-    public static final Map<String, Constants.PieceType> charToPieceMap =
+    public static final Map<String, Piece> charToPieceMap =
             new HashMap<>() {
                 {
-                    put("K", Constants.PieceType.KING);
-                    put("Q", Constants.PieceType.QUEEN);
-                    put("R", Constants.PieceType.ROOK);
-                    put("B", Constants.PieceType.BISHOP);
-                    put("N", Constants.PieceType.KNIGHT);
-                    put("P", Constants.PieceType.PAWN);
-                    put("k", Constants.PieceType.KING);
-                    put("q", Constants.PieceType.QUEEN);
-                    put("r", Constants.PieceType.ROOK);
-                    put("b", Constants.PieceType.BISHOP);
-                    put("n", Constants.PieceType.KNIGHT);
-                    put("p", Constants.PieceType.PAWN);
+                    put("K", Piece.of(Piece.KING, Piece.WHITE));
+                    put("Q", Piece.of(Piece.QUEEN, Piece.WHITE));
+                    put("R", Piece.of(Piece.ROOK, Piece.WHITE));
+                    put("B", Piece.of(Piece.BISHOP, Piece.WHITE));
+                    put("N", Piece.of(Piece.KNIGHT, Piece.WHITE));
+                    put("P", Piece.of(Piece.PAWN, Piece.WHITE));
+                    put("k", Piece.of(Piece.KING, Piece.BLACK));
+                    put("q", Piece.of(Piece.QUEEN, Piece.BLACK));
+                    put("r", Piece.of(Piece.ROOK, Piece.BLACK));
+                    put("b", Piece.of(Piece.BISHOP, Piece.BLACK));
+                    put("n", Piece.of(Piece.KNIGHT, Piece.BLACK));
+                    put("p", Piece.of(Piece.PAWN, Piece.BLACK));
                 }
             };
 
-    public static void loadStartingPosition() {
-        loadFenString(STARTING_FEN);
+    public static GameState loadStartingPosition() {
+        return loadFenString(STARTING_FEN);
     }
 
-    public static void loadFenString(String fenString) {
+    /**
+     * @param fenString The position to load.
+     * @return A new game state containing the position.
+     */
+    public static GameState loadFenString(String fenString) {
         logger.info("Starting fen parsing on : {}", fenString);
-        GameState.resetGameState();
+        GameState gameState = new GameState();
         String[] fenSegments = fenString.split(SEGMENT_SEPARATOR);
 
-        parsePiecePlacement(fenSegments[FenSegments.PIECE_PLACEMENT.getIndex()]);
-        parseSideToMove(fenSegments[FenSegments.SIDE_TO_MOVE.getIndex()]);
+        parsePiecePlacement(fenSegments[FenSegments.PIECE_PLACEMENT.getIndex()], gameState);
+        parseSideToMove(fenSegments[FenSegments.SIDE_TO_MOVE.getIndex()], gameState);
 
         parseIrreversibleData(
                 fenSegments[FenSegments.CASTLING_ABILITY.getIndex()],
                 fenSegments[FenSegments.EN_PASSANT_TARGET_SQUARE.getIndex()],
-                fenSegments[FenSegments.HALF_MOVE_CLOCK.getIndex()]);
+                fenSegments[FenSegments.HALF_MOVE_CLOCK.getIndex()],
+                gameState);
 
-        parseFullMoveCounter(fenSegments[FenSegments.FULL_MOVE_COUNTER.getIndex()]);
+        parseFullMoveCounter(fenSegments[FenSegments.FULL_MOVE_COUNTER.getIndex()], gameState);
 
-        GameState gameState = GameState.getInstance();
+        // the hash of the empty board is not needed anymore
+        gameState.zobristHasher = new ZobristHasher();
         gameState.zobristHasher.initZobristHash(gameState);
+        gameState.repeatTable = new RepeatTable();
+        gameState.repeatTable.addHash(gameState.getZobristHash());
 
-        logger.trace("Finished fen parsing : {}", StatePrinter.stateToString());
+        logger.trace("Finished fen parsing : {}", StatePrinter.stateToString(gameState));
+        return gameState;
     }
 
-    private static void parsePiecePlacement(String piecePlacement) {
+    private static void parsePiecePlacement(String piecePlacement, GameState gameState) {
         int yPos = 0;
         for (String rank : piecePlacement.split(RANK_SEPARATOR)) {
             int xPos = 0;
@@ -75,11 +82,9 @@ public class FenParser {
                     xPos += Integer.parseInt(String.valueOf(c));
                 } else {
                     // Get the piece type and color.
-                    Constants.PieceType pieceType = charToPieceMap.get(String.valueOf(c));
-                    Constants.Side pieceSide =
-                            Character.isUpperCase(c) ? Constants.Side.WHITE : Constants.Side.BLACK;
+                    Piece piece = charToPieceMap.get(String.valueOf(c));
 
-                    GameState.getInstance().bitBoards.setPieceAt(xPos, yPos, pieceType, pieceSide);
+                    gameState.bitBoards.setPieceAt(xPos, yPos, piece);
 
                     xPos++;
                 }
@@ -88,44 +93,62 @@ public class FenParser {
         }
     }
 
-    private static void parseSideToMove(String sideToMove) {
-        GameState.getInstance().isWhitesTurn = "w".equals(sideToMove);
+    private static void parseSideToMove(String sideToMove, GameState gameState) {
+        gameState.isWhitesTurn = "w".equals(sideToMove);
     }
 
     private static void parseIrreversibleData(
-            String castlingAbility, String enPassantSquare, String halfMoveClock) {
-        CastlingRights castlingRights = parseCastlingAbility(castlingAbility);
-        OptionalInt enPassantTargetSquare = parseEnPassantSquare(enPassantSquare);
-        int halfMoveCount = Integer.parseInt(halfMoveClock);
+            String castlingAbility,
+            String enPassantSquare,
+            String halfMoveClock,
+            GameState gameState) {
+        long irreversibleData = parseCastlingAbility(castlingAbility);
+        irreversibleData =
+                EncodedIrreversibleData.withEnPassantX(
+                        irreversibleData, parseEnPassantSquare(enPassantSquare));
+        irreversibleData =
+                EncodedIrreversibleData.withHalfMoveClock(
+                        irreversibleData, Integer.parseInt(halfMoveClock));
 
         // Clear the stack of irreversible data, as we're about to parse a new one.
-        GameState.getInstance().irreversibleDataStack.clear();
+        gameState.irreversibleDataStackSize = 0;
 
-        GameState.getInstance()
-                .irreversibleDataStack
-                .push(new IrreversibleData(castlingRights, enPassantTargetSquare, halfMoveCount));
+        gameState.pushIrreversibleData(irreversibleData);
     }
 
-    private static CastlingRights parseCastlingAbility(String castlingAbility) {
-        boolean whiteShortCastle = castlingAbility.indexOf('K') != -1;
-        boolean whiteLongCastle = castlingAbility.indexOf('Q') != -1;
-        boolean blackShortCastle = castlingAbility.indexOf('k') != -1;
-        boolean blackLongCastle = castlingAbility.indexOf('q') != -1;
+    /**
+     * @return The castling bits as described in {@link EncodedIrreversibleData}.
+     */
+    private static long parseCastlingAbility(String castlingAbility) {
+        long castlingRights = 0;
+        if (castlingAbility.indexOf('K') != -1) {
+            castlingRights |= EncodedIrreversibleData.WHITE_SHORT_CASTLE;
+        }
+        if (castlingAbility.indexOf('Q') != -1) {
+            castlingRights |= EncodedIrreversibleData.WHITE_LONG_CASTLE;
+        }
+        if (castlingAbility.indexOf('k') != -1) {
+            castlingRights |= EncodedIrreversibleData.BLACK_SHORT_CASTLE;
+        }
+        if (castlingAbility.indexOf('q') != -1) {
+            castlingRights |= EncodedIrreversibleData.BLACK_LONG_CASTLE;
+        }
 
-        return new CastlingRights(
-                whiteLongCastle, whiteShortCastle, blackLongCastle, blackShortCastle);
+        return castlingRights;
     }
 
-    private static OptionalInt parseEnPassantSquare(String enPassantSquare) {
+    /**
+     * @return The file a pawn can be captured on en passant or {@link EncodedIrreversibleData#NO_EN_PASSANT}.
+     */
+    private static int parseEnPassantSquare(String enPassantSquare) {
         if ("-".equals(enPassantSquare)) {
-            return OptionalInt.empty();
+            return EncodedIrreversibleData.NO_EN_PASSANT;
         }
-        int xPos = enPassantSquare.charAt(0) - 'a';
-        return OptionalInt.of(xPos);
+        return enPassantSquare.charAt(0) - 'a';
     }
 
-    private static void parseFullMoveCounter(String fullMoveCounter) {
-        GameState.getInstance().fullMoveCounter = Integer.parseInt(fullMoveCounter);
+    private static void parseFullMoveCounter(String fullMoveCounter, GameState gameState) {
+        gameState.fullMoveCounter = Integer.parseInt(fullMoveCounter);
     }
 
     private enum FenSegments {
@@ -2,19 +2,20 @@
 package de.janfrase.blunder.engine.backend.state.game;
 
 import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
 import de.janfrase.blunder.engine.backend.movegen.Move;
 import de.janfrase.blunder.engine.backend.state.board.BitBoards;
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.CastlingRights;
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.IrreversibleData;
-import java.util.OptionalInt;
-import java.util.Stack;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
+import java.util.Arrays;
 
 /**
  * The {@code GameState} class is responsible for managing the current state of a chess game.
  * It maintains game attributes such as board representation, move history, player turns, and move counters.
- * This class follows the Singleton design pattern, ensuring there is only one active instance during a game session.
+ * <p>
+ * Every search thread works on its own instance, so instances must never be shared between threads.
+ * Use {@link #GameState(GameState)} to hand a position to another thread.
  */
-public class GameState {
+public final class GameState {
     public static final int UP = -1;
     public static final int DOWN = 1;
     public static final int LEFT = -1;
@@ -23,22 +24,18 @@ public class GameState {
     public static final int LEFT_X_ROOK_START = 0;
     public static final int KING_STARTING_X = 4;
 
-    /**
-     * The singleton instance of the {@code GameState} class.
-     * This ensures that only one instance of the {@code GameState} class exists at any time,
-     * representing the current state of a chess game.
-     * <p>
-     * This instance is lazily initialized and can be accessed or reset using provided
-     * static methods.
-     */
-    private static final GameState instance = new GameState();
+    // enough for most games, longer ones grow the stack
+    private static final int INITIAL_STACK_CAPACITY = 512;
 
     public BitBoards getBitBoards() {
         return bitBoards;
     }
 
-    public IrreversibleData getIrreversibleData() {
-        return irreversibleDataStack.peek();
+    /**
+     * @return The irreversible data of the current position, encoded as described in {@link EncodedIrreversibleData}.
+     */
+    public long getEncodedIrreversibleData() {
+        return irreversibleDataStack[irreversibleDataStackSize - 1];
     }
 
     public boolean isWhitesTurn() {
@@ -46,7 +43,7 @@ public class GameState {
     }
 
     public boolean isHalfMoveClockAt50() {
-        return this.irreversibleDataStack.peek().halfMoveClock() == 50;
+        return EncodedIrreversibleData.getHalfMoveClock(getEncodedIrreversibleData()) == 50;
     }
 
     public byte getFriendlySide() {
@@ -57,57 +54,45 @@ public class GameState {
         return isWhitesTurn ? Piece.BLACK : Piece.WHITE;
     }
 
-    public boolean isRepeatedPosition() {
-        return this.repeatTable.isRepeat();
+    /**
+     * @param pliesFromRoot The number of plies made since the search started, 0 outside the search.
+     * @return true if the position counts as a draw by repetition, see {@link RepeatTable#isRepeat(int, int)}.
+     */
+    public boolean isRepeatedPosition(int pliesFromRoot) {
+        int halfMoveClock = EncodedIrreversibleData.getHalfMoveClock(getEncodedIrreversibleData());
+        return this.repeatTable.isRepeat(halfMoveClock, pliesFromRoot);
+    }
+
+    /**
+     * @param pliesFromRoot The number of plies made since the search started, 0 outside the search.
+     * @return true if the side to move can reach a draw by repetition with a single move,
+     * see {@link RepeatTable#hasUpcomingRepetition(int, int, BitBoards, byte)}.
+     */
+    public boolean hasUpcomingRepetition(int pliesFromRoot) {
+        int halfMoveClock = EncodedIrreversibleData.getHalfMoveClock(getEncodedIrreversibleData());
+        return this.repeatTable.hasUpcomingRepetition(
+                halfMoveClock, pliesFromRoot, bitBoards, getFriendlySide());
     }
 
     // State variables
     BitBoards bitBoards;
-    Stack<IrreversibleData> irreversibleDataStack;
+    // one entry per position of the game so far, the current one is on top
+    long[] irreversibleDataStack;
+    int irreversibleDataStackSize;
     boolean isWhitesTurn;
     int fullMoveCounter;
 
     ZobristHasher zobristHasher;
     RepeatTable repeatTable;
 
-    private GameState() {
-        init();
-    }
-
-    /**
-     * Returns the singleton instance of the {@code GameState} class.
-     * The {@code GameState} class represents the current state of a chess game
-     * and ensures that only one instance of this class exists at any given time.
-     *
-     * @return the singleton instance of {@code GameState}
-     */
-    public static GameState getInstance() {
-        // TODO: At some point i should upgrade to multithreading to explore multiple lines at the
-        // same time. I then need to get rid of the singleton pattern.
-        return instance;
-    }
-
-    public long getZobristHash() {
-        return this.zobristHasher.getZobristHash();
-    }
-
     /**
-     * Resets the game state to its initial condition by reinitializing
-     * the {@code GameState} singleton instance.
-     * <p>
-     * This method ensures the game state is reset to a newly instantiated default configuration, clearing any prior
-     * game progress or data.
-     * <p>
-     * This is mostly here to easily implement unit tests.
+     * Creates an empty board with white to move and all castling rights.
+     * Use the {@link FenParser} to set up an actual position.
      */
-    public static void resetGameState() {
-        GameState.getInstance().init();
-    }
-
-    private void init() {
+    public GameState() {
         this.bitBoards = new BitBoards();
-        this.irreversibleDataStack = new Stack<>();
-        this.irreversibleDataStack.push(new IrreversibleData.Builder().buildDefault());
+        this.irreversibleDataStack = new long[INITIAL_STACK_CAPACITY];
+        this.pushIrreversibleData(EncodedIrreversibleData.DEFAULT);
 
         this.isWhitesTurn = true;
         this.fullMoveCounter = 1;
@@ -122,15 +107,51 @@ public class GameState {
         this.repeatTable.addHash(this.zobristHasher.getZobristHash());
     }
 
+    /**
+     * Creates a deep copy of the given game state, including its history.
+     * The copy can be modified independently of the original, e.g. by another search thread.
+     */
+    public GameState(GameState other) {
+        this.bitBoards = new BitBoards(other.bitBoards);
+        this.irreversibleDataStack =
+                Arrays.copyOf(other.irreversibleDataStack, other.irreversibleDataStack.length);
+        this.irreversibleDataStackSize = other.irreversibleDataStackSize;
+
+        this.isWhitesTurn = other.isWhitesTurn;
+        this.fullMoveCounter = other.fullMoveCounter;
+
+        this.zobristHasher = new ZobristHasher(other.zobristHasher);
+        this.repeatTable = new RepeatTable(other.repeatTable);
+    }
+
+    public long getZobristHash() {
+        return this.zobristHasher.getZobristHash();
+    }
+
+    void pushIrreversibleData(long irreversibleData) {
+        if (irreversibleDataStackSize == irreversibleDataStack.length) {
+            irreversibleDataStack =
+                    Arrays.copyOf(irreversibleDataStack, irreversibleDataStack.length * 2);
+        }
+        irreversibleDataStack[irreversibleDataStackSize++] = irreversibleData;
+    }
+
     @Override
     public String toString() {
-        return StatePrinter.stateToString();
+        return StatePrinter.stateToString(this);
     }
 
     // ------------------------------
     // Make Section
     // ------------------------------
 
+    /**
+     * Same as {@link #makeMove(int)}, for callers that work with {@link Move} objects, e.g. UCI.
+     */
+    public void makeMove(Move move) {
+        this.makeMove(EncodedMove.fromMove(move));
+    }
+
     /**
      * Executes a move in the current game state.
      * <p>
@@ -139,32 +160,42 @@ public class GameState {
      * <p>
      * This method updates the board representation,
      * manages special cases (such as en passant, castling, promotions, and captures),
-     * and updates the game's immutable state stack and other relevant data.
+     * and pushes the new irreversible data onto the stack, without allocating anything.
      *
-     * @param move The move to be executed, represented by a {@link Move} object that contains
+     * @param move The move to be executed, encoded as described in {@link EncodedMove}. It contains
      *             the starting position, target position, and the type of move.
      */
-    public void makeMove(Move move) {
+    public void makeMove(int move) {
+        int fromX = EncodedMove.getFromX(move);
+        int fromY = EncodedMove.getFromY(move);
+        int toX = EncodedMove.getToX(move);
+        int toY = EncodedMove.getToY(move);
+
         // set the square we are moving to, to have the piece we moved
         // TODO: Rename this to friendlyPieceType or movedPieceType
-        Piece fromPieceType = this.bitBoards.getPieceAt(move.fromX(), move.fromY());
-        this.bitBoards.setPieceAt(move.toX(), move.toY(), fromPieceType);
+        Piece fromPieceType = this.bitBoards.getPieceAt(fromX, fromY);
+        this.bitBoards.setPieceAt(toX, toY, fromPieceType);
 
         // set the square we are moving away from, to empty
-        this.bitBoards.clearSquare(move.fromX(), move.fromY());
+        this.bitBoards.clearSquare(fromX, fromY);
+
+        // we need the old irreversible data to update the zobrist hash in a moment
+        long oldIrreversibleData = getEncodedIrreversibleData();
 
-        // copy the old irreversibleData
-        IrreversibleData.Builder irreversibleDataBuilder =
-                new IrreversibleData.Builder().transferFromOldState(irreversibleDataStack.peek());
-        CastlingRights.Builder castlingRightsBuilder =
-                new CastlingRights.Builder()
-                        .transferFromOldState(irreversibleDataStack.peek().castlingRights());
+        // en passant is only possible right after a double pawn push and the clock keeps ticking
+        long irreversibleData =
+                EncodedIrreversibleData.withEnPassantX(
+                        oldIrreversibleData, EncodedIrreversibleData.NO_EN_PASSANT);
+        irreversibleData =
+                EncodedIrreversibleData.withHalfMoveClock(
+                        irreversibleData,
+                        EncodedIrreversibleData.getHalfMoveClock(oldIrreversibleData) + 1);
 
-        this.halfMoveRelatedMakeMove(move, fromPieceType, irreversibleDataBuilder);
+        irreversibleData = this.halfMoveRelatedMakeMove(move, fromPieceType, irreversibleData);
 
-        this.enPassantRelatedMakeMove(move, fromPieceType, irreversibleDataBuilder);
+        irreversibleData = this.enPassantRelatedMakeMove(move, fromPieceType, irreversibleData);
 
-        this.castlingRelatedMakeMove(move, castlingRightsBuilder, fromPieceType);
+        irreversibleData = this.castlingRelatedMakeMove(move, irreversibleData, fromPieceType);
 
         this.promotionRelatedMakeMove(move, fromPieceType);
 
@@ -174,156 +205,202 @@ public class GameState {
         // the other player can now take his turn
         this.isWhitesTurn = !this.isWhitesTurn;
 
-        // store the old castling rights, we need them to update the zobrist hash in a moment
-        IrreversibleData oldIrreversibleData = irreversibleDataStack.peek();
-
-        // add the new castling rights to the irreversible data builder
-        irreversibleDataBuilder.castlingRights(castlingRightsBuilder.build());
-        IrreversibleData newIrreversibleData = irreversibleDataBuilder.build();
-        // and push it onto the stack
-        this.irreversibleDataStack.push(newIrreversibleData);
+        // push the new irreversible data onto the stack
+        this.pushIrreversibleData(irreversibleData);
 
         // and update the zobrist hash
         this.zobristHasher.updateZobristHashAfterMove(
-                move, fromPieceType, oldIrreversibleData, newIrreversibleData);
+                this, move, fromPieceType, oldIrreversibleData, irreversibleData);
 
         // update the repeat table
         this.repeatTable.addHash(this.zobristHasher.getZobristHash());
     }
 
-    private void halfMoveRelatedMakeMove(
-            Move move, Piece fromPiece, IrreversibleData.Builder irreversibleDataBuilder) {
+    private long halfMoveRelatedMakeMove(int move, Piece fromPiece, long irreversibleData) {
         // now we can get to the edge cases :)
-        boolean wasSomethingCaptured =
-                move.capturedPieceType().value != Piece.EMPTY
-                        || move.moveType().equals(Move.MoveType.EP_CAPTURE);
+        boolean wasSomethingCaptured = EncodedMove.isCapture(move);
 
         // half-move clock handling
         if (wasSomethingCaptured || fromPiece.getType() == Piece.PAWN) {
             // reset the half-move clock on capture or if a pawn was moved
-            irreversibleDataBuilder.halfMoveClock(0);
+            return EncodedIrreversibleData.withHalfMoveClock(irreversibleData, 0);
         }
+        return irreversibleData;
     }
 
-    private void enPassantRelatedMakeMove(
-            Move move, Piece fromPiece, IrreversibleData.Builder irreversibleDataBuilder) {
+    private long enPassantRelatedMakeMove(int move, Piece fromPiece, long irreversibleData) {
+        int fromX = EncodedMove.getFromX(move);
+        int toX = EncodedMove.getToX(move);
+        int toY = EncodedMove.getToY(move);
+        Move.MoveType moveType = EncodedMove.getMoveType(move);
+
         // en passant capture handling
-        if (move.moveType().equals(Move.MoveType.EP_CAPTURE)) {
+        if (moveType.equals(Move.MoveType.EP_CAPTURE)) {
             int yOffset = getYOffsetOnEnPassantCapture(fromPiece);
 
             // remove the captured pawn from the board
-            this.bitBoards.clearSquare(move.toX(), move.toY() + yOffset);
+            this.bitBoards.clearSquare(toX, toY + yOffset);
         }
 
         // en passant move handling
-        if (move.moveType().equals(Move.MoveType.DOUBLE_PAWN_PUSH)) {
+        if (moveType.equals(Move.MoveType.DOUBLE_PAWN_PUSH)) {
             // set the en passant square
-            irreversibleDataBuilder.enPassantX(OptionalInt.of(move.fromX()));
+            return EncodedIrreversibleData.withEnPassantX(irreversibleData, fromX);
         }
+        return irreversibleData;
     }
 
     protected static int getYOffsetOnEnPassantCapture(Piece fromSide) {
         // off set the move.toY value depending on who took the piece
         // if black took, we need to raise the value and vice versa
-        return (fromSide.value == Piece.BLACK) ? UP : DOWN;
+        return (fromSide.getSide() == Piece.BLACK) ? UP : DOWN;
     }
 
     // TODO refactor this method?
-    private void castlingRelatedMakeMove(
-            Move move, CastlingRights.Builder castlingRightsBuilder, Piece fromPieceType) {
+    private long castlingRelatedMakeMove(int move, long irreversibleData, Piece fromPieceType) {
+        int fromX = EncodedMove.getFromX(move);
+        int fromY = EncodedMove.getFromY(move);
+        int toX = EncodedMove.getToX(move);
+        int toY = EncodedMove.getToY(move);
+        Move.MoveType moveType = EncodedMove.getMoveType(move);
+        Piece capturedPiece = Piece.fromValue(EncodedMove.getCapturedPiece(move));
+        byte friendlySide = getFriendlySide();
+        byte enemySide = getEnemySide();
+
         // castle move handling
-        if (move.moveType().equals(Move.MoveType.SHORT_CASTLE)
-                || move.moveType().equals(Move.MoveType.LONG_CASTLE)) {
+        if (moveType.equals(Move.MoveType.SHORT_CASTLE)
+                || moveType.equals(Move.MoveType.LONG_CASTLE)) {
             // the rook goes to the left of the king on a king side castle and vice versa
-            int rookXOffset = (move.moveType().equals(Move.MoveType.SHORT_CASTLE)) ? LEFT : RIGHT;
+            int rookXOffset = (moveType.equals(Move.MoveType.SHORT_CASTLE)) ? LEFT : RIGHT;
             this.bitBoards.setPieceAt(
-                    move.toX() + rookXOffset,
-                    move.toY(),
-                    new Piece(Piece.ROOK, fromPieceType.getSide()));
+                    toX + rookXOffset, toY, Piece.of(Piece.ROOK, fromPieceType.getSide()));
 
             // clear the rooks starting square
             int rookXStart =
-                    (move.moveType().equals(Move.MoveType.SHORT_CASTLE))
+                    (moveType.equals(Move.MoveType.SHORT_CASTLE))
                             ? RIGHT_X_ROOK_START
                             : LEFT_X_ROOK_START;
-            this.bitBoards.clearSquare(rookXStart, move.toY());
+            this.bitBoards.clearSquare(rookXStart, toY);
 
             // disable the castling rights
-            castlingRightsBuilder.disableSpecifiedCastle(isWhitesTurn, true);
-            castlingRightsBuilder.disableSpecifiedCastle(isWhitesTurn, false);
+            irreversibleData =
+                    EncodedIrreversibleData.disableShortCastle(irreversibleData, friendlySide);
+            irreversibleData =
+                    EncodedIrreversibleData.disableLongCastle(irreversibleData, friendlySide);
         }
 
         int startingY = isWhitesTurn ? 7 : 0;
 
         // castle right loss on king move
-        if (fromPieceType.value == Piece.KING
-                && move.fromX() == KING_STARTING_X
-                && move.fromY() == startingY) {
+        if (fromPieceType.getType() == Piece.KING
+                && fromX == KING_STARTING_X
+                && fromY == startingY) {
             // disable all castling rights if the king was moved
-            castlingRightsBuilder.disableSpecifiedCastle(isWhitesTurn, true);
-            castlingRightsBuilder.disableSpecifiedCastle(isWhitesTurn, false);
+            irreversibleData =
+                    EncodedIrreversibleData.disableShortCastle(irreversibleData, friendlySide);
+            irreversibleData =
+                    EncodedIrreversibleData.disableLongCastle(irreversibleData, friendlySide);
         }
 
         // castle right loss on rook move
-        if (fromPieceType.value == Piece.ROOK
-                && move.fromX() == RIGHT_X_ROOK_START
-                && move.fromY() == startingY) {
+        if (fromPieceType.getType() == Piece.ROOK
+                && fromX == RIGHT_X_ROOK_START
+                && fromY == startingY) {
             // disable the short castling rights if the right rook was moved from its starting
             // square
-            castlingRightsBuilder.disableSpecifiedCastle(isWhitesTurn, true);
+            irreversibleData =
+                    EncodedIrreversibleData.disableShortCastle(irreversibleData, friendlySide);
         }
 
         // castle right loss on rook move
-        if (fromPieceType.value == Piece.ROOK
-                && move.fromX() == LEFT_X_ROOK_START
-                && move.fromY() == startingY) {
+        if (fromPieceType.getType() == Piece.ROOK
+                && fromX == LEFT_X_ROOK_START
+                && fromY == startingY) {
             // disable the long castling rights if the left rook was moved from its starting square
-            castlingRightsBuilder.disableSpecifiedCastle(isWhitesTurn, false);
+            irreversibleData =
+                    EncodedIrreversibleData.disableLongCastle(irreversibleData, friendlySide);
         }
 
         // castle right loss on rook capture -> short castle side
         int enemyStartingY = isWhitesTurn ? 0 : 7;
-        if (move.capturedPieceType().value == Piece.ROOK
-                && move.toY() == enemyStartingY
-                && move.toX() == RIGHT_X_ROOK_START) {
-            castlingRightsBuilder.disableSpecifiedCastle(!isWhitesTurn, true);
+        if (capturedPiece.getType() == Piece.ROOK
+                && toY == enemyStartingY
+                && toX == RIGHT_X_ROOK_START) {
+            irreversibleData =
+                    EncodedIrreversibleData.disableShortCastle(irreversibleData, enemySide);
         }
 
         // castle right loss on rook capture -> long castle side
-        if (move.capturedPieceType().value == Piece.ROOK
-                && move.toY() == enemyStartingY
-                && move.toX() == LEFT_X_ROOK_START) {
-            castlingRightsBuilder.disableSpecifiedCastle(!isWhitesTurn, false);
+        if (capturedPiece.getType() == Piece.ROOK
+                && toY == enemyStartingY
+                && toX == LEFT_X_ROOK_START) {
+            irreversibleData =
+                    EncodedIrreversibleData.disableLongCastle(irreversibleData, enemySide);
         }
+        return irreversibleData;
     }
 
-    private void promotionRelatedMakeMove(Move move, Piece fromSide) {
+    private void promotionRelatedMakeMove(int move, Piece fromSide) {
+        int toX = EncodedMove.getToX(move);
+        int toY = EncodedMove.getToY(move);
+        Move.MoveType moveType = EncodedMove.getMoveType(move);
+
         boolean wasSomethingPromoted =
-                move.moveType().equals(Move.MoveType.ROOK_PROMOTION)
-                        || move.moveType().equals(Move.MoveType.KNIGHT_PROMOTION)
-                        || move.moveType().equals(Move.MoveType.BISHOP_PROMOTION)
-                        || move.moveType().equals(Move.MoveType.QUEEN_PROMOTION);
+                moveType.equals(Move.MoveType.ROOK_PROMOTION)
+                        || moveType.equals(Move.MoveType.KNIGHT_PROMOTION)
+                        || moveType.equals(Move.MoveType.BISHOP_PROMOTION)
+                        || moveType.equals(Move.MoveType.QUEEN_PROMOTION);
 
         if (!wasSomethingPromoted) {
             return;
         }
 
         Piece promotedPiece =
-                switch (move.moveType()) {
-                    case ROOK_PROMOTION -> new Piece(Piece.ROOK, fromSide.getSide());
-                    case KNIGHT_PROMOTION -> new Piece(Piece.KNIGHT, fromSide.getSide());
-                    case BISHOP_PROMOTION -> new Piece(Piece.BISHOP, fromSide.getSide());
-                    case QUEEN_PROMOTION -> new Piece(Piece.QUEEN, fromSide.getSide());
-                    default -> throw new IllegalStateException(
-                            "Unexpected value: " + move.moveType());
+                switch (moveType) {
+                    case ROOK_PROMOTION -> Piece.of(Piece.ROOK, fromSide.getSide());
+                    case KNIGHT_PROMOTION -> Piece.of(Piece.KNIGHT, fromSide.getSide());
+                    case BISHOP_PROMOTION -> Piece.of(Piece.BISHOP, fromSide.getSide());
+                    case QUEEN_PROMOTION -> Piece.of(Piece.QUEEN, fromSide.getSide());
+                    default -> throw new IllegalStateException("Unexpected value: " + moveType);
                 };
-        this.bitBoards.setPieceAt(move.toX(), move.toY(), promotedPiece);
+        this.bitBoards.setPieceAt(toX, toY, promotedPiece);
+    }
+
+    /**
+     * Passes the turn to the other side without moving anything, which is not a legal move.
+     * Used by the search to find out whether a position is so good that even passing does not spoil it.
+     * <p>
+     * Positions before a null move can not be repeated after it, so the half-move clock starts over.
+     * This also hides a fifty-move draw behind a null move, which the search can live with.
+     */
+    public void makeNullMove() {
+        long oldIrreversibleData = getEncodedIrreversibleData();
+        long irreversibleData =
+                EncodedIrreversibleData.withEnPassantX(
+                        oldIrreversibleData, EncodedIrreversibleData.NO_EN_PASSANT);
+        irreversibleData = EncodedIrreversibleData.withHalfMoveClock(irreversibleData, 0);
+
+        // if this was blacks turn -> increment full move counter
+        if (!this.isWhitesTurn) fullMoveCounter++;
+
+        this.isWhitesTurn = !this.isWhitesTurn;
+
+        this.pushIrreversibleData(irreversibleData);
+        this.zobristHasher.updateZobristHashAfterNullMove(this);
+        this.repeatTable.addHash(this.zobristHasher.getZobristHash());
     }
 
     // ------------------------------
     // Unmake Section
     // ------------------------------
 
+    /**
+     * Same as {@link #unmakeMove(int)}, for callers that work with {@link Move} objects, e.g. UCI.
+     */
+    public void unmakeMove(Move move) {
+        this.unmakeMove(EncodedMove.fromMove(move));
+    }
+
     /**
      * Reverses the last move made in the game, restoring the game state to what it was
      * before the move was executed.
@@ -331,27 +408,33 @@ public class GameState {
      * restoring captured pieces, handling special move cases (such as en passant, castling,
      * or promotions), and adjusting game metadata such as the turn counter.
      *
-     * @param move The move to be undone, represented by a {@link Move} object that contains
+     * @param move The move to be undone, encoded as described in {@link EncodedMove}. It contains
      *             the starting position, target position, and details about the move such as
      *             captured piece type and special move type.
      */
-    public void unmakeMove(Move move) {
+    public void unmakeMove(int move) {
+        int fromX = EncodedMove.getFromX(move);
+        int fromY = EncodedMove.getFromY(move);
+        int toX = EncodedMove.getToX(move);
+        int toY = EncodedMove.getToY(move);
+        Piece capturedPiece = Piece.fromValue(EncodedMove.getCapturedPiece(move));
+
         // set the square we moved from, to have the piece we moved
-        Piece fromPieceType = this.bitBoards.getPieceAt(move.toX(), move.toY());
-        this.bitBoards.setPieceAt(move.fromX(), move.fromY(), fromPieceType);
+        Piece fromPieceType = this.bitBoards.getPieceAt(toX, toY);
+        this.bitBoards.setPieceAt(fromX, fromY, fromPieceType);
 
         // set the square we moved to, to contain what was previously there
-        if (move.capturedPieceType().isEmpty()) this.bitBoards.clearSquare(move.toX(), move.toY());
-        else this.bitBoards.setPieceAt(move.toX(), move.toY(), move.capturedPieceType());
+        if (capturedPiece.isEmpty()) this.bitBoards.clearSquare(toX, toY);
+        else this.bitBoards.setPieceAt(toX, toY, capturedPiece);
 
         // store the old irreversible data
-        IrreversibleData oldIrreversibleData = irreversibleDataStack.peek();
+        long oldIrreversibleData = getEncodedIrreversibleData();
 
         // go back to the previous stack frame of irreversible data
-        this.irreversibleDataStack.pop();
+        this.irreversibleDataStackSize--;
 
-        // get the new irreversibel data
-        IrreversibleData newIrreversibleData = irreversibleDataStack.peek();
+        // get the new irreversible data
+        long newIrreversibleData = getEncodedIrreversibleData();
 
         this.enPassantRelatedUnmakeMove(move, fromPieceType);
 
@@ -366,57 +449,83 @@ public class GameState {
         this.isWhitesTurn = !this.isWhitesTurn;
 
         // and update the zobrist hash
+        // this has to use the piece that originally made the move, which differs from the piece we
+        // just picked up if this was a promotion
+        Piece movedPiece = this.bitBoards.getPieceAt(fromX, fromY);
         this.zobristHasher.updateZobristHashAfterMove(
-                move, fromPieceType, oldIrreversibleData, newIrreversibleData);
+                this, move, movedPiece, oldIrreversibleData, newIrreversibleData);
 
         // update the repeat table
         this.repeatTable.removeLastHash();
     }
 
-    private void enPassantRelatedUnmakeMove(Move move, Piece fromSide) {
+    /**
+     * Undoes {@link #makeNullMove()}.
+     */
+    public void unmakeNullMove() {
+        this.irreversibleDataStackSize--;
+
+        if (this.isWhitesTurn) fullMoveCounter--;
+
+        this.isWhitesTurn = !this.isWhitesTurn;
+
+        this.zobristHasher.updateZobristHashAfterNullMove(this);
+        this.repeatTable.removeLastHash();
+    }
+
+    private void enPassantRelatedUnmakeMove(int move, Piece fromSide) {
+        int fromY = EncodedMove.getFromY(move);
+        int toX = EncodedMove.getToX(move);
+        Move.MoveType moveType = EncodedMove.getMoveType(move);
+
         // en passant capture handling
-        if (move.moveType().equals(Move.MoveType.EP_CAPTURE)) {
+        if (moveType.equals(Move.MoveType.EP_CAPTURE)) {
             // add the captured pawn back to the board
-            this.bitBoards.setPieceAt(
-                    move.toX(), move.fromY(), new Piece(Piece.PAWN, fromSide.getEnemySide()));
+            this.bitBoards.setPieceAt(toX, fromY, Piece.of(Piece.PAWN, fromSide.getEnemySide()));
         }
     }
 
-    private void castlingRelatedUnmakeMove(Move move, Piece fromSide) {
+    private void castlingRelatedUnmakeMove(int move, Piece fromSide) {
+        int toX = EncodedMove.getToX(move);
+        int toY = EncodedMove.getToY(move);
+        Move.MoveType moveType = EncodedMove.getMoveType(move);
 
         // castle move handling
-        if (move.moveType().equals(Move.MoveType.SHORT_CASTLE)
-                || move.moveType().equals(Move.MoveType.LONG_CASTLE)) {
+        if (moveType.equals(Move.MoveType.SHORT_CASTLE)
+                || moveType.equals(Move.MoveType.LONG_CASTLE)) {
 
-            int rookXOffset = (move.moveType().equals(Move.MoveType.SHORT_CASTLE)) ? LEFT : RIGHT;
-            int rookXCurrent = move.toX() + rookXOffset;
+            int rookXOffset = (moveType.equals(Move.MoveType.SHORT_CASTLE)) ? LEFT : RIGHT;
+            int rookXCurrent = toX + rookXOffset;
 
             // empty the square the rook is currently standing on
-            bitBoards.clearSquare(rookXCurrent, move.toY());
+            bitBoards.clearSquare(rookXCurrent, toY);
 
             int rookXStart =
-                    (move.moveType().equals(Move.MoveType.SHORT_CASTLE))
+                    (moveType.equals(Move.MoveType.SHORT_CASTLE))
                             ? RIGHT_X_ROOK_START
                             : LEFT_X_ROOK_START;
 
             // put the rook back on its starting square
-            bitBoards.setPieceAt(rookXStart, move.toY(), new Piece(Piece.ROOK, fromSide.getSide()));
+            bitBoards.setPieceAt(rookXStart, toY, Piece.of(Piece.ROOK, fromSide.getSide()));
         }
     }
 
-    private void promotionRelatedUnmakeMove(Move move, Piece fromSide) {
+    private void promotionRelatedUnmakeMove(int move, Piece fromSide) {
+        int fromX = EncodedMove.getFromX(move);
+        int fromY = EncodedMove.getFromY(move);
+        Move.MoveType moveType = EncodedMove.getMoveType(move);
+
         boolean wasSomethingPromoted =
-                move.moveType().equals(Move.MoveType.ROOK_PROMOTION)
-                        || move.moveType().equals(Move.MoveType.KNIGHT_PROMOTION)
-                        || move.moveType().equals(Move.MoveType.BISHOP_PROMOTION)
-                        || move.moveType().equals(Move.MoveType.QUEEN_PROMOTION);
+                moveType.equals(Move.MoveType.ROOK_PROMOTION)
+                        || moveType.equals(Move.MoveType.KNIGHT_PROMOTION)
+                        || moveType.equals(Move.MoveType.BISHOP_PROMOTION)
+                        || moveType.equals(Move.MoveType.QUEEN_PROMOTION);
 
         if (!wasSomethingPromoted) {
             return;
         }
 
         // put the pawn back :)
-        this.bitBoards.setPieceAt(
-                move.fromX(), move.fromY(), new Piece(Piece.PAWN, fromSide.getSide()));
+        this.bitBoards.setPieceAt(fromX, fromY, Piece.of(Piece.PAWN, fromSide.getSide()));
     }
 }
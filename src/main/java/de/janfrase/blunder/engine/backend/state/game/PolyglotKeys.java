@@ -0,0 +1,103 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.game;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lets the {@link ZobristHasher} use the 781 Random64 keys of the Polyglot opening book format,
+ * so our hashes can be looked up in Polyglot books.
+ * <p>
+ * The table is not part of this repository, it is read from a file instead. Every hexadecimal number
+ * in the file (written like 0x9D39247E33776D41) is one key, in the order of the Random64 array of the
+ * Polyglot sources, so a copy of that array can be used as is.
+ * <p>
+ * See: <a href="http://hgm.nubati.net/book_format.html">Polyglot book format.</a>
+ */
+public final class PolyglotKeys {
+
+    public static final int KEY_COUNT = 781;
+
+    // the piece keys come first, 64 for each kind of piece
+    static final int WHITE_SHORT_CASTLE = 768;
+    static final int WHITE_LONG_CASTLE = 769;
+    static final int BLACK_SHORT_CASTLE = 770;
+    static final int BLACK_LONG_CASTLE = 771;
+    // one key per file, starting with file a
+    static final int EN_PASSANT_FILE = 772;
+    static final int WHITE_TO_MOVE = 780;
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("0[xX]([0-9a-fA-F]{1,16})");
+
+    /**
+     * Not meant for instantiation.
+     */
+    private PolyglotKeys() {}
+
+    /**
+     * Switches every hash over to the keys in the file. Like all key changes, this may only be done
+     * while nothing is searched, and positions that were set up before have the wrong hash.
+     *
+     * @param path A file containing the Random64 keys.
+     * @throws IOException If the file can not be read.
+     * @throws IllegalArgumentException If the file does not contain exactly {@link #KEY_COUNT} keys.
+     */
+    public static void load(Path path) throws IOException {
+        ZobristHasher.usePolyglotKeys(parse(Files.readString(path)));
+    }
+
+    /**
+     * Switches back to our own keys, see {@link #load(Path)}.
+     */
+    public static void useOwnKeys() {
+        ZobristHasher.useOwnKeys();
+    }
+
+    /**
+     * @param text Anything containing the keys as hexadecimal numbers, e.g. the Random64 array.
+     * @return The keys in the order they appear in.
+     * @throws IllegalArgumentException If there are not exactly {@link #KEY_COUNT} keys.
+     */
+    static long[] parse(String text) {
+        List<Long> keys = new ArrayList<>(KEY_COUNT);
+        Matcher matcher = KEY_PATTERN.matcher(text);
+        while (matcher.find()) {
+            keys.add(Long.parseUnsignedLong(matcher.group(1), 16));
+        }
+
+        if (keys.size() != KEY_COUNT) {
+            throw new IllegalArgumentException(
+                    "Expected " + KEY_COUNT + " Polyglot keys, found " + keys.size());
+        }
+        return keys.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Polyglot orders the pieces black pawn, white pawn, black knight, white knight and so on up to the kings,
+     * and counts the rows from white's side of the board.
+     *
+     * @return The index of the key of the piece on the square in the Random64 array.
+     */
+    static int getPieceKeyIndex(Piece piece, int x, int y) {
+        int order =
+                switch (piece.getType()) {
+                    case Piece.PAWN -> 0;
+                    case Piece.KNIGHT -> 1;
+                    case Piece.BISHOP -> 2;
+                    case Piece.ROOK -> 3;
+                    case Piece.QUEEN -> 4;
+                    case Piece.KING -> 5;
+                    default -> throw new IllegalArgumentException("Not a piece: " + piece);
+                };
+        int kind = 2 * order + (piece.getSide() == Piece.WHITE ? 1 : 0);
+        int row = 7 - y;
+
+        return 64 * kind + 8 * row + x;
+    }
+}
@@ -1,23 +1,135 @@
 /* Made by Jan Frase :) */
 package de.janfrase.blunder.engine.backend.state.game;
 
-import java.util.ArrayList;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.movegen.SliderAttacks;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
+import java.util.Arrays;
 
+/**
+ * The zobrist hashes of every position of the game so far, used to detect repetitions.
+ * <p>
+ * Only positions since the last capture or pawn move can repeat, and only those with the same side to move.
+ * So a lookup only looks back as far as the half-move clock and only at every second position.
+ * See: <a href="https://www.chessprogramming.org/Repetitions">Chess programming wiki.</a>
+ */
 public class RepeatTable {
 
-    private final ArrayList<Long> zobristHashes = new ArrayList<>();
-    private boolean isRepeat = false;
+    // enough for most games, longer ones grow the table
+    private static final int INITIAL_CAPACITY = 512;
 
-    boolean isRepeat() {
-        return isRepeat;
+    // a position can at the earliest repeat after both sides moved away and back again
+    private static final int MIN_REPETITION_DISTANCE = 4;
+
+    private long[] zobristHashes;
+    private int size = 0;
+
+    RepeatTable() {
+        this.zobristHashes = new long[INITIAL_CAPACITY];
+    }
+
+    RepeatTable(RepeatTable other) {
+        this.zobristHashes = Arrays.copyOf(other.zobristHashes, other.zobristHashes.length);
+        this.size = other.size;
+    }
+
+    /**
+     * A position that occurred once before during the search, including the root, already counts as a draw,
+     * since the side that can avoid it has no reason to enter it again.
+     * Positions from the game history before the search only count once they occurred twice,
+     * i.e. on a threefold repetition.
+     *
+     * @param halfMoveClock The number of plies since the last capture or pawn move.
+     * @param pliesFromRoot The number of plies made since the search started.
+     * @return true if the current position counts as a draw by repetition.
+     */
+    boolean isRepeat(int halfMoveClock, int pliesFromRoot) {
+        int current = size - 1;
+        int root = current - pliesFromRoot;
+        int oldest = Math.max(0, current - halfMoveClock);
+        long zobristHash = zobristHashes[current];
+
+        int repetitionsBeforeRoot = 0;
+        for (int i = current - MIN_REPETITION_DISTANCE; i >= oldest; i -= 2) {
+            if (zobristHashes[i] != zobristHash) {
+                continue;
+            }
+
+            if (i >= root || ++repetitionsBeforeRoot == 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a single reversible move leads back to an earlier position, before making any move.
+     * The same rules as in {@link #isRepeat(int, int)} decide whether that position counts as a draw.
+     * <p>
+     * The hash of the current position and of the earlier one then differ by the key of the move,
+     * which the {@link CuckooTable} knows.
+     *
+     * @param halfMoveClock The number of plies since the last capture or pawn move.
+     * @param pliesFromRoot The number of plies made since the search started.
+     * @param board         The current position, to check that nothing blocks the move.
+     * @param sideToMove    The side to move in the current position.
+     * @return true if the side to move can reach a position that counts as a draw by repetition.
+     */
+    boolean hasUpcomingRepetition(
+            int halfMoveClock, int pliesFromRoot, BitBoards board, byte sideToMove) {
+        int current = size - 1;
+        int end = Math.min(halfMoveClock, current);
+        long zobristHash = zobristHashes[current];
+
+        // an odd number of plies ago the other side was to move, one move of ours could lead back
+        for (int i = 3; i <= end; i += 2) {
+            int move = CuckooTable.getMove(zobristHash ^ zobristHashes[current - i]);
+            if (move == EncodedMove.NO_MOVE) {
+                continue;
+            }
+
+            int square = EncodedMove.getFromSquare(move);
+            int otherSquare = EncodedMove.getToSquare(move);
+            if ((SliderAttacks.getSquaresBetween(square, otherSquare) & board.getOccupancy())
+                    != 0) {
+                continue;
+            }
+
+            // the earlier position was reached during the search
+            if (i <= pliesFromRoot) {
+                return true;
+            }
+
+            // otherwise it has to be our piece that moves back, and the earlier position has to
+            // have occurred before already, so that this is a threefold repetition
+            int pieceSquare = (board.getOccupancy() & (1L << square)) != 0 ? square : otherSquare;
+            if (board.getPieceAt(pieceSquare % 8, pieceSquare / 8).getSide() != sideToMove) {
+                continue;
+            }
+            if (occursBefore(current - i, current - halfMoveClock)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean occursBefore(int index, int oldest) {
+        for (int i = index - MIN_REPETITION_DISTANCE; i >= Math.max(0, oldest); i -= 2) {
+            if (zobristHashes[i] == zobristHashes[index]) {
+                return true;
+            }
+        }
+        return false;
     }
 
     void addHash(long hash) {
-        isRepeat = zobristHashes.contains(hash);
-        zobristHashes.add(hash);
+        if (size == zobristHashes.length) {
+            zobristHashes = Arrays.copyOf(zobristHashes, zobristHashes.length * 2);
+        }
+        zobristHashes[size++] = hash;
     }
 
     void removeLastHash() {
-        zobristHashes.removeLast();
+        size--;
     }
 }
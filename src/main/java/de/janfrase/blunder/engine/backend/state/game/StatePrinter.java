@@ -1,8 +1,10 @@
 /* Made by Jan Frase :) */
 package de.janfrase.blunder.engine.backend.state.game;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
 import de.janfrase.blunder.utility.Constants;
-import java.util.EnumMap;
+import java.util.HashMap;
 
 /**
  * The BoardPrinter class provides utilities for converting a chess board representation
@@ -42,40 +44,34 @@ public class StatePrinter {
 
     // A map from (Color, Piece) -> Ascii Char :)
     // A bit ugly but also a bit funny - imma leave it in.
-    static final EnumMap<Constants.Side, EnumMap<Constants.PieceType, AsciiCharacter>> mapToAscii =
-            new EnumMap<>(Constants.Side.class) {
+    // The empty piece counts as white, so the white map also holds the empty square.
+    static final HashMap<Byte, HashMap<Byte, AsciiCharacter>> mapToAscii =
+            new HashMap<>() {
                 {
                     put(
-                            Constants.Side.WHITE,
-                            new EnumMap<>(Constants.PieceType.class) {
+                            Piece.WHITE,
+                            new HashMap<>() {
                                 {
-                                    put(Constants.PieceType.KING, AsciiCharacter.WHITE_KING);
-                                    put(Constants.PieceType.QUEEN, AsciiCharacter.WHITE_QUEEN);
-                                    put(Constants.PieceType.ROOK, AsciiCharacter.WHITE_ROOK);
-                                    put(Constants.PieceType.BISHOP, AsciiCharacter.WHITE_BISHOP);
-                                    put(Constants.PieceType.KNIGHT, AsciiCharacter.WHITE_KNIGHT);
-                                    put(Constants.PieceType.PAWN, AsciiCharacter.WHITE_PAWN);
-                                    put(Constants.PieceType.EMPTY, AsciiCharacter.EMPTY);
+                                    put(Piece.KING, AsciiCharacter.WHITE_KING);
+                                    put(Piece.QUEEN, AsciiCharacter.WHITE_QUEEN);
+                                    put(Piece.ROOK, AsciiCharacter.WHITE_ROOK);
+                                    put(Piece.BISHOP, AsciiCharacter.WHITE_BISHOP);
+                                    put(Piece.KNIGHT, AsciiCharacter.WHITE_KNIGHT);
+                                    put(Piece.PAWN, AsciiCharacter.WHITE_PAWN);
+                                    put(Piece.EMPTY, AsciiCharacter.EMPTY);
                                 }
                             });
                     put(
-                            Constants.Side.BLACK,
-                            new EnumMap<>(Constants.PieceType.class) {
+                            Piece.BLACK,
+                            new HashMap<>() {
                                 {
-                                    put(Constants.PieceType.KING, AsciiCharacter.BLACK_KING);
-                                    put(Constants.PieceType.QUEEN, AsciiCharacter.BLACK_QUEEN);
-                                    put(Constants.PieceType.ROOK, AsciiCharacter.BLACK_ROOK);
-                                    put(Constants.PieceType.BISHOP, AsciiCharacter.BLACK_BISHOP);
-                                    put(Constants.PieceType.KNIGHT, AsciiCharacter.BLACK_KNIGHT);
-                                    put(Constants.PieceType.PAWN, AsciiCharacter.BLACK_PAWN);
-                                    put(Constants.PieceType.EMPTY, AsciiCharacter.EMPTY);
-                                }
-                            });
-                    put(
-                            Constants.Side.EMPTY,
-                            new EnumMap<>(Constants.PieceType.class) {
-                                {
-                                    put(Constants.PieceType.EMPTY, AsciiCharacter.EMPTY);
+                                    put(Piece.KING, AsciiCharacter.BLACK_KING);
+                                    put(Piece.QUEEN, AsciiCharacter.BLACK_QUEEN);
+                                    put(Piece.ROOK, AsciiCharacter.BLACK_ROOK);
+                                    put(Piece.BISHOP, AsciiCharacter.BLACK_BISHOP);
+                                    put(Piece.KNIGHT, AsciiCharacter.BLACK_KNIGHT);
+                                    put(Piece.PAWN, AsciiCharacter.BLACK_PAWN);
+                                    put(Piece.EMPTY, AsciiCharacter.EMPTY);
                                 }
                             });
                 }
@@ -114,101 +110,77 @@ public class StatePrinter {
 
     // A map from (Color, Piece) -> Unicode Char :)
     // A bit ugly but also a bit funny - imma leave it in.
-    static final EnumMap<Constants.Side, EnumMap<Constants.PieceType, UnicodeCharacter>>
-            mapToUnicode =
-                    new EnumMap<>(Constants.Side.class) {
-                        {
-                            put(
-                                    Constants.Side.WHITE,
-                                    new EnumMap<>(Constants.PieceType.class) {
-                                        {
-                                            put(
-                                                    Constants.PieceType.KING,
-                                                    UnicodeCharacter.WHITE_KING);
-                                            put(
-                                                    Constants.PieceType.QUEEN,
-                                                    UnicodeCharacter.WHITE_QUEEN);
-                                            put(
-                                                    Constants.PieceType.ROOK,
-                                                    UnicodeCharacter.WHITE_ROOK);
-                                            put(
-                                                    Constants.PieceType.BISHOP,
-                                                    UnicodeCharacter.WHITE_BISHOP);
-                                            put(
-                                                    Constants.PieceType.KNIGHT,
-                                                    UnicodeCharacter.WHITE_KNIGHT);
-                                            put(
-                                                    Constants.PieceType.PAWN,
-                                                    UnicodeCharacter.WHITE_PAWN);
-                                            put(Constants.PieceType.EMPTY, UnicodeCharacter.EMPTY);
-                                        }
-                                    });
-                            put(
-                                    Constants.Side.BLACK,
-                                    new EnumMap<>(Constants.PieceType.class) {
-                                        {
-                                            put(
-                                                    Constants.PieceType.KING,
-                                                    UnicodeCharacter.BLACK_KING);
-                                            put(
-                                                    Constants.PieceType.QUEEN,
-                                                    UnicodeCharacter.BLACK_QUEEN);
-                                            put(
-                                                    Constants.PieceType.ROOK,
-                                                    UnicodeCharacter.BLACK_ROOK);
-                                            put(
-                                                    Constants.PieceType.BISHOP,
-                                                    UnicodeCharacter.BLACK_BISHOP);
-                                            put(
-                                                    Constants.PieceType.KNIGHT,
-                                                    UnicodeCharacter.BLACK_KNIGHT);
-                                            put(
-                                                    Constants.PieceType.PAWN,
-                                                    UnicodeCharacter.BLACK_PAWN);
-                                            put(Constants.PieceType.EMPTY, UnicodeCharacter.EMPTY);
-                                        }
-                                    });
-                            put(
-                                    Constants.Side.EMPTY,
-                                    new EnumMap<>(Constants.PieceType.class) {
-                                        {
-                                            put(Constants.PieceType.EMPTY, UnicodeCharacter.EMPTY);
-                                        }
-                                    });
-                        }
-                    };
+    // The empty piece counts as white, so the white map also holds the empty square.
+    static final HashMap<Byte, HashMap<Byte, UnicodeCharacter>> mapToUnicode =
+            new HashMap<>() {
+                {
+                    put(
+                            Piece.WHITE,
+                            new HashMap<>() {
+                                {
+                                    put(Piece.KING, UnicodeCharacter.WHITE_KING);
+                                    put(Piece.QUEEN, UnicodeCharacter.WHITE_QUEEN);
+                                    put(Piece.ROOK, UnicodeCharacter.WHITE_ROOK);
+                                    put(Piece.BISHOP, UnicodeCharacter.WHITE_BISHOP);
+                                    put(Piece.KNIGHT, UnicodeCharacter.WHITE_KNIGHT);
+                                    put(Piece.PAWN, UnicodeCharacter.WHITE_PAWN);
+                                    put(Piece.EMPTY, UnicodeCharacter.EMPTY);
+                                }
+                            });
+                    put(
+                            Piece.BLACK,
+                            new HashMap<>() {
+                                {
+                                    put(Piece.KING, UnicodeCharacter.BLACK_KING);
+                                    put(Piece.QUEEN, UnicodeCharacter.BLACK_QUEEN);
+                                    put(Piece.ROOK, UnicodeCharacter.BLACK_ROOK);
+                                    put(Piece.BISHOP, UnicodeCharacter.BLACK_BISHOP);
+                                    put(Piece.KNIGHT, UnicodeCharacter.BLACK_KNIGHT);
+                                    put(Piece.PAWN, UnicodeCharacter.BLACK_PAWN);
+                                    put(Piece.EMPTY, UnicodeCharacter.EMPTY);
+                                }
+                            });
+                }
+            };
 
     /**
-     * Converts the current game state to a string representation.
+     * Converts the given game state to a string representation.
      * The output includes various details of the game state such as move counters, turn information,
      * en passant coordinates, castling rights, and the board's piece layout.
      *
+     * @param gameState The game state to print.
      * @return A string representation of the game state, formatted for readability.
      */
-    public static String stateToString() {
-        GameState gameState = GameState.getInstance();
-
+    public static String stateToString(GameState gameState) {
         StringBuilder sb = new StringBuilder();
 
         sb.append("\n");
 
         sb.append("Full move counter: ").append(gameState.fullMoveCounter).append("\n");
         sb.append("Is whites turn: ").append(gameState.isWhitesTurn).append("\n");
-        sb.append("Stack size: ").append(gameState.irreversibleDataStack.size()).append("\n");
+        sb.append("Stack size: ").append(gameState.irreversibleDataStackSize).append("\n");
+        long irreversibleData = gameState.getEncodedIrreversibleData();
         sb.append("Half move clock: ")
-                .append(gameState.irreversibleDataStack.peek().halfMoveClock())
+                .append(EncodedIrreversibleData.getHalfMoveClock(irreversibleData))
                 .append("\n");
         sb.append("En Passant X: ")
-                .append(gameState.irreversibleDataStack.peek().enPassantX())
+                .append(EncodedIrreversibleData.getEnPassantX(irreversibleData))
+                .append("\n");
+        sb.append("White long castle: ")
+                .append(EncodedIrreversibleData.canLongCastle(irreversibleData, Piece.WHITE))
+                .append(", white short castle: ")
+                .append(EncodedIrreversibleData.canShortCastle(irreversibleData, Piece.WHITE))
+                .append(", black long castle: ")
+                .append(EncodedIrreversibleData.canLongCastle(irreversibleData, Piece.BLACK))
+                .append(", black short castle: ")
+                .append(EncodedIrreversibleData.canShortCastle(irreversibleData, Piece.BLACK))
                 .append("\n");
-        sb.append(gameState.irreversibleDataStack.peek().castlingRights()).append("\n");
 
         sb.append("\n");
         for (int y = 0; y < Constants.BOARD_SIDE_LENGTH; y++) {
             for (int x = 0; x < Constants.BOARD_SIDE_LENGTH; x++) {
-                Constants.Side side = gameState.bitBoards.getSideAt(x, y);
-                Constants.PieceType pieceType = gameState.bitBoards.getPieceAt(x, y);
-                sb.append(getStringRepresentation(pieceType, side, x, y));
+                Piece piece = gameState.bitBoards.getPieceAt(x, y);
+                sb.append(getStringRepresentation(piece, x, y));
                 sb.append(" ");
             }
             sb.append("\n");
@@ -217,14 +189,13 @@ public class StatePrinter {
         return sb.toString();
     }
 
-    private static String getStringRepresentation(
-            Constants.PieceType pieceType, Constants.Side color, int x, int y) {
-        String piece =
+    private static String getStringRepresentation(Piece piece, int x, int y) {
+        String character =
                 USE_ASCII
-                        ? mapToAscii.get(color).get(pieceType).getCharacter()
-                        : mapToUnicode.get(color).get(pieceType).getCharacter();
-        if (pieceType != Constants.PieceType.EMPTY) {
-            return piece;
+                        ? mapToAscii.get(piece.getSide()).get(piece.getType()).getCharacter()
+                        : mapToUnicode.get(piece.getSide()).get(piece.getType()).getCharacter();
+        if (!piece.isEmpty()) {
+            return character;
         }
 
         return ((x + y) % 2 == 0) ? LIGHT_SQUARE : DARK_SQUARE;
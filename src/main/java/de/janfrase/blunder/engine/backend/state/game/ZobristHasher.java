@@ -2,13 +2,12 @@
 package de.janfrase.blunder.engine.backend.state.game;
 
 import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
 import de.janfrase.blunder.engine.backend.movegen.Move;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
 import de.janfrase.blunder.engine.backend.state.board.BitBoards;
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.CastlingRights;
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.IrreversibleData;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
 import de.janfrase.blunder.utility.Constants;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 
 /**
@@ -19,74 +18,164 @@ import java.util.Random;
  * <p>
  * This class precomputes random keys for all potential states and uses them during the game to
  * update the hash incrementally, making it efficient for use in scenarios such as search trees.
+ * The keys come from a fixed seed, so the same position has the same hash in every process.
+ * <p>
+ * Alternatively the keys of the Polyglot opening book format can be used, see {@link PolyglotKeys}.
+ * The hashes then match the ones in Polyglot books, which differ from ours in two more ways:
+ * <ul>
+ *     <li>The side to move key is xor-ed in while white is to move instead of black.</li>
+ *     <li>The en passant file is only hashed if a pawn of the side to move stands next to the pawn that just
+ *     moved two squares, i.e. could actually capture it. With our own keys it is hashed whenever it is set.</li>
+ * </ul>
+ * The keys are shared by all positions, so they must only be switched while nothing is searched
+ * and every position has to be set up again afterward.
  * <p>
  * For more details take a look at: <a href="https://www.chessprogramming.org/Zobrist_Hashing">Zobrist Hashing</a>
  */
 class ZobristHasher {
 
+    // changing this changes every hash, e.g. of positions stored somewhere else
+    private static final long SEED = 0x426C756E646572L;
+
+    private static final int PIECE_COUNT = BitBoards.allPossiblePieces.length;
+
     /**
-     * Admittedly, this is a bit cursed.
-     * This maps from Side -> another map.
-     * This second map maps from PieceType -> long[][].
-     * <p>
-     * The purpose of this is to have a random value to xor with for each side, piece and square.
+     * One random long for each piece and square, indexed by {@link #getPieceKeyIndex(Piece, int)}.
      */
-    private static final Map<Piece, long[][]> pieceArraysMap;
+    private static final long[] pieceKeys = new long[PIECE_COUNT * Constants.BOARD_TOTAL_SIZE];
+
+    // maps the value of a piece to its position in BitBoards.allPossiblePieces
+    private static final int[] pieceIndexByValue = new int[(Piece.KING | Piece.BLACK) + 1];
 
     /**
-     * One random long for each possible right (example for one right: white-long castle (yes or no)).
+     * The key of every combination of castling rights, indexed by the castling bits of {@link EncodedIrreversibleData}.
+     * There is only one random long per right, each entry is the xor of the keys of the rights it contains.
      */
-    private static final long[] castlingRightsArray;
-
-    private static final int WHITE_LONG_CASTLE = 0;
-    private static final int WHITE_SHORT_CASTLE = 1;
-    private static final int BLACK_LONG_CASTLE = 2;
-    private static final int BLACK_SHORT_CASTLE = 3;
+    private static final long[] castlingRightsKeys = new long[16];
 
     /**
-     * Random long for black is moving.
+     * Random long that is xor-ed in while black is moving, or while white is moving with the Polyglot keys.
      */
-    private static final long sideToMoveIsBlack;
+    private static long sideToMoveKey;
 
     /**
-     * One random long for each possible en passant file.
+     * One random long for each possible en passant file, indexed by the file plus one.
+     * The first entry is 0, so that no en passant does not change the hash.
      */
-    private static final long[] enPassantFileArray;
+    private static final long[] enPassantFileKeys = new long[Constants.BOARD_SIDE_LENGTH + 1];
+
+    private static boolean usesPolyglotKeys = false;
 
     /*
      * This initializes all the necessary values with random longs.
      */
     static {
-        Random random = new Random();
+        for (int i = 0; i < PIECE_COUNT; i++) {
+            pieceIndexByValue[BitBoards.allPossiblePieces[i].value] = i;
+        }
 
-        castlingRightsArray = random.longs(4).toArray();
+        initOwnKeys();
+    }
 
-        sideToMoveIsBlack = random.nextLong();
+    private static void initOwnKeys() {
+        Random random = new Random(SEED);
 
-        enPassantFileArray = random.longs(8).toArray();
+        for (int i = 0; i < pieceKeys.length; i++) {
+            pieceKeys[i] = random.nextLong();
+        }
+
+        initCastlingRightsKeys(random.longs(4).toArray());
+
+        sideToMoveKey = random.nextLong();
+
+        for (int i = 1; i < enPassantFileKeys.length; i++) {
+            enPassantFileKeys[i] = random.nextLong();
+        }
+
+        usesPolyglotKeys = false;
+    }
+
+    /**
+     * @param singleCastlingRightKeys The key of each right, in the order of the castling bits of
+     *                                {@link EncodedIrreversibleData}.
+     */
+    private static void initCastlingRightsKeys(long[] singleCastlingRightKeys) {
+        for (int rights = 0; rights < castlingRightsKeys.length; rights++) {
+            castlingRightsKeys[rights] = 0;
+            for (int right = 0; right < singleCastlingRightKeys.length; right++) {
+                if ((rights & (1 << right)) != 0) {
+                    castlingRightsKeys[rights] ^= singleCastlingRightKeys[right];
+                }
+            }
+        }
+    }
 
-        // init pieceArrays with empty values
-        pieceArraysMap = new HashMap<>();
+    /**
+     * Goes back to our own keys. See {@link #usePolyglotKeys(long[])} for when this may be called.
+     */
+    static void useOwnKeys() {
+        initOwnKeys();
+        CuckooTable.init();
+    }
 
-        // iterate over pawn, rook etc.
-        for (Piece pieceType : BitBoards.allPossiblePieces) {
-            // create the array with a random number for each position
-            long[][] boardArray =
-                    new long[Constants.BOARD_SIDE_LENGTH][Constants.BOARD_SIDE_LENGTH];
+    /**
+     * Switches to the keys of the Polyglot opening book format. Must only be called while nothing is searched,
+     * every position that already exists keeps a hash made with the old keys.
+     *
+     * @param random64 The 781 keys of the Polyglot source, in the order of its Random64 array.
+     * @throws IllegalArgumentException If the keys are not 781 or do not fit into the {@link CuckooTable}.
+     *                                  Our own keys stay in use then.
+     */
+    static void usePolyglotKeys(long[] random64) {
+        if (random64.length != PolyglotKeys.KEY_COUNT) {
+            throw new IllegalArgumentException(
+                    "Expected " + PolyglotKeys.KEY_COUNT + " keys, got " + random64.length);
+        }
 
-            // fill it with random values
-            for (int i = 0; i < Constants.BOARD_SIDE_LENGTH; i++) {
-                boardArray[i] = random.longs(Constants.BOARD_SIDE_LENGTH).toArray();
+        for (Piece piece : BitBoards.allPossiblePieces) {
+            for (int x = 0; x < Constants.BOARD_SIDE_LENGTH; x++) {
+                for (int y = 0; y < Constants.BOARD_SIDE_LENGTH; y++) {
+                    int square = BitBoard.calculateIndex(x, y);
+                    pieceKeys[getPieceKeyIndex(piece, square)] =
+                            random64[PolyglotKeys.getPieceKeyIndex(piece, x, y)];
+                }
             }
-            // put it where it belongs
-            pieceArraysMap.put(pieceType, boardArray);
+        }
+
+        initCastlingRightsKeys(
+                new long[] {
+                    random64[PolyglotKeys.WHITE_LONG_CASTLE],
+                    random64[PolyglotKeys.WHITE_SHORT_CASTLE],
+                    random64[PolyglotKeys.BLACK_LONG_CASTLE],
+                    random64[PolyglotKeys.BLACK_SHORT_CASTLE]
+                });
+
+        sideToMoveKey = random64[PolyglotKeys.WHITE_TO_MOVE];
+
+        for (int x = 0; x < Constants.BOARD_SIDE_LENGTH; x++) {
+            enPassantFileKeys[x + 1] = random64[PolyglotKeys.EN_PASSANT_FILE + x];
+        }
+
+        usesPolyglotKeys = true;
+        if (!CuckooTable.init()) {
+            useOwnKeys();
+            throw new IllegalArgumentException(
+                    "The keys are not random enough to find upcoming repetitions with them");
         }
     }
 
     private long zobristHash = 0;
 
+    // the en passant key that is part of the hash right now, 0 if none is
+    private long enPassantKey = 0;
+
     protected ZobristHasher() {}
 
+    protected ZobristHasher(ZobristHasher other) {
+        this.zobristHash = other.zobristHash;
+        this.enPassantKey = other.enPassantKey;
+    }
+
     protected long getZobristHash() {
         return zobristHash;
     }
@@ -108,37 +197,19 @@ class ZobristHasher {
 
                 if (piece.isEmpty()) continue;
 
-                zobristHash ^= pieceArraysMap.get(piece)[x][y];
+                zobristHash ^= getPieceKey(piece, x, y);
             }
         }
 
         // player turn
-        if (!gameState.isWhitesTurn) zobristHash ^= sideToMoveIsBlack;
+        if (gameState.isWhitesTurn == usesPolyglotKeys) zobristHash ^= sideToMoveKey;
 
         // en passant
-        gameState
-                .getIrreversibleData()
-                .enPassantX()
-                .ifPresent(
-                        enPassantX -> {
-                            long enPassantRandom = enPassantFileArray[enPassantX];
-                            zobristHash ^= enPassantRandom;
-                        });
+        enPassantKey = getEnPassantKey(gameState);
+        zobristHash ^= enPassantKey;
 
         // castling
-        boolean whiteLongCastle =
-                gameState.getIrreversibleData().castlingRights().whiteLongCastle();
-        boolean whiteShortCastle =
-                gameState.getIrreversibleData().castlingRights().whiteShortCastle();
-        boolean blackLongCastle =
-                gameState.getIrreversibleData().castlingRights().blackLongCastle();
-        boolean blackShortCastle =
-                gameState.getIrreversibleData().castlingRights().blackShortCastle();
-
-        if (whiteLongCastle) zobristHash ^= castlingRightsArray[WHITE_LONG_CASTLE];
-        if (whiteShortCastle) zobristHash ^= castlingRightsArray[WHITE_SHORT_CASTLE];
-        if (blackLongCastle) zobristHash ^= castlingRightsArray[BLACK_LONG_CASTLE];
-        if (blackShortCastle) zobristHash ^= castlingRightsArray[BLACK_SHORT_CASTLE];
+        zobristHash ^= getCastlingRightsKey(gameState.getEncodedIrreversibleData());
     }
 
     /*
@@ -154,81 +225,139 @@ class ZobristHasher {
      * This method modifies the hash by handling the removal and addition of pieces, as well as flipping the turn side
      * and updating special rules like en passant and castling.
      *
-     * @param move                The move that was made, containing the starting and ending positions,
-     *                            and any captured piece or special move type information.
-     * @param movedPieceType      The type of the piece that made the move (e.g., pawn, knight, etc.).
+     * @param gameState           The position after the move was made or unmade.
+     * @param move                The move that was made, encoded as described in {@link EncodedMove}. It contains the
+     *                            starting and ending positions, and any captured piece or special move type information.
+     * @param movedPieceType      The piece that made the move, i.e. the pawn for a promotion.
      * @param oldIrreversibleData The prior state of irreversible data, such as en passant and castling rights,
-     *                            before the move was executed.
+     *                            before the move was executed. Encoded as described in {@link EncodedIrreversibleData}.
      * @param newIrreversibleData The updated state of irreversible data after the move has been executed.
      */
     protected void updateZobristHashAfterMove(
-            Move move,
+            GameState gameState,
+            int move,
             Piece movedPieceType,
-            IrreversibleData oldIrreversibleData,
-            IrreversibleData newIrreversibleData) {
+            long oldIrreversibleData,
+            long newIrreversibleData) {
+        int fromX = EncodedMove.getFromX(move);
+        int fromY = EncodedMove.getFromY(move);
+        int toX = EncodedMove.getToX(move);
+        int toY = EncodedMove.getToY(move);
+        Move.MoveType moveType = EncodedMove.getMoveType(move);
+
         // remove the piece
-        long[][] randomValuesForPiece = pieceArraysMap.get(movedPieceType);
-        zobristHash ^= randomValuesForPiece[move.fromX()][move.fromY()];
+        zobristHash ^= getPieceKey(movedPieceType, fromX, fromY);
 
         // remove the captured piece if it exists
-        Piece capturedPieceType = move.capturedPieceType();
+        Piece capturedPieceType = Piece.fromValue(EncodedMove.getCapturedPiece(move));
         if (!capturedPieceType.isEmpty()) {
-            zobristHash ^= pieceArraysMap.get(capturedPieceType)[move.toX()][move.toY()];
+            zobristHash ^= getPieceKey(capturedPieceType, toX, toY);
         }
 
-        if (move.moveType() == Move.MoveType.EP_CAPTURE) {
+        if (moveType == Move.MoveType.EP_CAPTURE) {
+            // the captured pawn is not stored in the move, so we have to derive it
+            Piece capturedPawn = Piece.of(Piece.PAWN, movedPieceType.getEnemySide());
             int yOffset = GameState.getYOffsetOnEnPassantCapture(movedPieceType);
-            zobristHash ^= pieceArraysMap.get(capturedPieceType)[move.toX()][move.toY() + yOffset];
+            zobristHash ^= getPieceKey(capturedPawn, toX, toY + yOffset);
         }
 
-        // add the new piece
-        zobristHash ^= pieceArraysMap.get(movedPieceType)[move.toX()][move.toY()];
+        // add the new piece, which is not the pawn anymore if it promoted
+        Piece placedPiece = movedPieceType;
+        if (EncodedMove.isPromotion(move)) {
+            placedPiece =
+                    Piece.of(EncodedMove.getPromotedPieceType(move), movedPieceType.getSide());
+        }
+        zobristHash ^= getPieceKey(placedPiece, toX, toY);
+
+        // the rook moves as well when castling
+        if (moveType == Move.MoveType.SHORT_CASTLE || moveType == Move.MoveType.LONG_CASTLE) {
+            Piece rook = Piece.of(Piece.ROOK, movedPieceType.getSide());
+            boolean isShortCastle = moveType == Move.MoveType.SHORT_CASTLE;
+            int rookXStart =
+                    isShortCastle ? GameState.RIGHT_X_ROOK_START : GameState.LEFT_X_ROOK_START;
+            int rookXEnd = toX + (isShortCastle ? GameState.LEFT : GameState.RIGHT);
+            zobristHash ^= getPieceKey(rook, rookXStart, toY) ^ getPieceKey(rook, rookXEnd, toY);
+        }
 
         // flip the side
-        zobristHash ^= sideToMoveIsBlack;
-
-        this.updateEnPassant(oldIrreversibleData, newIrreversibleData, move);
-        this.updateCastlingRights(oldIrreversibleData, newIrreversibleData);
-    }
-
-    private void updateEnPassant(
-            IrreversibleData oldIrreversibleData, IrreversibleData newIrreversibleData, Move move) {
-        // remove the old en passant position if it exists
-        oldIrreversibleData
-                .enPassantX()
-                .ifPresent(enPassantX -> zobristHash ^= enPassantFileArray[enPassantX]);
-        newIrreversibleData
-                .enPassantX()
-                .ifPresent(enPassantX -> zobristHash ^= enPassantFileArray[enPassantX]);
-
-        // add new en passant position if it exists
-        if (move.moveType() != Move.MoveType.DOUBLE_PAWN_PUSH) return;
-
-        zobristHash ^= enPassantFileArray[move.toX()];
-    }
-
-    private void updateCastlingRights(
-            IrreversibleData oldIrreversibleData, IrreversibleData newIrreversibleData) {
-        CastlingRights oldCastlingRights = oldIrreversibleData.castlingRights();
-        CastlingRights newCastlingRights = newIrreversibleData.castlingRights();
-
-        boolean oldWhiteLongCastle = oldCastlingRights.whiteLongCastle();
-        boolean oldWhiteShortCastle = oldCastlingRights.whiteShortCastle();
-        boolean oldBlackLongCastle = oldCastlingRights.blackLongCastle();
-        boolean oldBlackShortCastle = oldCastlingRights.blackShortCastle();
-
-        boolean newWhiteLongCastle = newCastlingRights.whiteLongCastle();
-        boolean newWhiteShortCastle = newCastlingRights.whiteShortCastle();
-        boolean newBlackLongCastle = newCastlingRights.blackLongCastle();
-        boolean newBlackShortCastle = newCastlingRights.blackShortCastle();
-
-        if (oldWhiteLongCastle != newWhiteLongCastle)
-            zobristHash ^= castlingRightsArray[WHITE_LONG_CASTLE];
-        if (oldWhiteShortCastle != newWhiteShortCastle)
-            zobristHash ^= castlingRightsArray[WHITE_SHORT_CASTLE];
-        if (oldBlackLongCastle != newBlackLongCastle)
-            zobristHash ^= castlingRightsArray[BLACK_LONG_CASTLE];
-        if (oldBlackShortCastle != newBlackShortCastle)
-            zobristHash ^= castlingRightsArray[BLACK_SHORT_CASTLE];
+        zobristHash ^= sideToMoveKey;
+
+        // remove the old en passant file and castling rights and add the new ones
+        updateEnPassantKey(gameState);
+        zobristHash ^=
+                getCastlingRightsKey(oldIrreversibleData)
+                        ^ getCastlingRightsKey(newIrreversibleData);
+    }
+
+    /**
+     * Updates the Zobrist hash after a null move, i.e. if the side to move passed. Works for making and unmaking it.
+     *
+     * @param gameState The position after the null move was made or unmade.
+     */
+    protected void updateZobristHashAfterNullMove(GameState gameState) {
+        zobristHash ^= sideToMoveKey;
+        updateEnPassantKey(gameState);
+    }
+
+    private void updateEnPassantKey(GameState gameState) {
+        zobristHash ^= enPassantKey;
+        enPassantKey = getEnPassantKey(gameState);
+        zobristHash ^= enPassantKey;
+    }
+
+    private static long getPieceKey(Piece piece, int x, int y) {
+        return getPieceKey(piece, BitBoard.calculateIndex(x, y));
+    }
+
+    /**
+     * @return The key that is xor-ed into the hash while the piece stands on the square.
+     */
+    static long getPieceKey(Piece piece, int square) {
+        return pieceKeys[getPieceKeyIndex(piece, square)];
+    }
+
+    /**
+     * @return The key that is xor-ed into the hash whenever the side to move changes.
+     */
+    static long getSideToMoveKey() {
+        return sideToMoveKey;
+    }
+
+    private static int getPieceKeyIndex(Piece piece, int square) {
+        return pieceIndexByValue[piece.value] * Constants.BOARD_TOTAL_SIZE + square;
+    }
+
+    private static long getEnPassantKey(GameState gameState) {
+        int enPassantX =
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData());
+        if (usesPolyglotKeys && !hasPawnNextToEnPassantPawn(gameState, enPassantX)) {
+            return 0;
+        }
+
+        return enPassantFileKeys[enPassantX + 1];
+    }
+
+    /**
+     * Polyglot only checks whether a pawn of the side to move stands next to the pawn that just moved two squares,
+     * not whether capturing it would be legal.
+     */
+    private static boolean hasPawnNextToEnPassantPawn(GameState gameState, int enPassantX) {
+        if (enPassantX == EncodedIrreversibleData.NO_EN_PASSANT) {
+            return false;
+        }
+
+        // the pawn that just moved stands on the fourth rank from the view of its own side
+        int y = gameState.isWhitesTurn ? 3 : 4;
+        byte friendlyPawn = Piece.of(Piece.PAWN, gameState.getFriendlySide()).value;
+        BitBoards bitBoards = gameState.getBitBoards();
+
+        return (enPassantX > 0 && bitBoards.getPieceAt(enPassantX - 1, y).value == friendlyPawn)
+                || (enPassantX < Constants.BOARD_SIDE_LENGTH - 1
+                        && bitBoards.getPieceAt(enPassantX + 1, y).value == friendlyPawn);
+    }
+
+    private static long getCastlingRightsKey(long irreversibleData) {
+        int castlingRights = (int) EncodedIrreversibleData.getCastlingRights(irreversibleData);
+        return castlingRightsKeys[castlingRights];
     }
 }
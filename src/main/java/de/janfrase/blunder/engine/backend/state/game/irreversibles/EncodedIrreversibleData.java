@@ -0,0 +1,87 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.game.irreversibles;
+
+import de.janfrase.blunder.engine.backend.Piece;
+
+/**
+ * The irreversible data of a position packed into a single long, so that making and unmaking a move
+ * only has to push and pop a primitive instead of allocating new records.
+ * <p>
+ * The long is laid out like this (from the least significant bit):
+ * <ul>
+ *     <li>4 bits: the castling rights, one bit each for white long, white short, black long and black short</li>
+ *     <li>4 bits: the en passant file plus one or 0 if en passant is not possible</li>
+ *     <li>the remaining bits: the half-move clock</li>
+ * </ul>
+ */
+public class EncodedIrreversibleData {
+
+    /** Returned by {@link #getEnPassantX(long)} if en passant is not possible. */
+    public static final int NO_EN_PASSANT = -1;
+
+    public static final long WHITE_LONG_CASTLE = 1;
+    public static final long WHITE_SHORT_CASTLE = 1 << 1;
+    public static final long BLACK_LONG_CASTLE = 1 << 2;
+    public static final long BLACK_SHORT_CASTLE = 1 << 3;
+
+    private static final int EN_PASSANT_SHIFT = 4;
+    private static final int HALF_MOVE_CLOCK_SHIFT = 8;
+
+    private static final long CASTLING_RIGHTS_MASK = 0xF;
+    private static final long EN_PASSANT_MASK = 0xF;
+
+    /** All castling rights, no en passant and a half-move clock of 0, like at the start. */
+    public static final long DEFAULT = CASTLING_RIGHTS_MASK;
+
+    /**
+     * Not meant for instantiation.
+     */
+    private EncodedIrreversibleData() {}
+
+    /**
+     * @return Only the castling bits, which can be compared with {@link #WHITE_LONG_CASTLE} etc.
+     */
+    public static long getCastlingRights(long data) {
+        return data & CASTLING_RIGHTS_MASK;
+    }
+
+    public static boolean canLongCastle(long data, byte side) {
+        return (data & (side == Piece.WHITE ? WHITE_LONG_CASTLE : BLACK_LONG_CASTLE)) != 0;
+    }
+
+    public static boolean canShortCastle(long data, byte side) {
+        return (data & (side == Piece.WHITE ? WHITE_SHORT_CASTLE : BLACK_SHORT_CASTLE)) != 0;
+    }
+
+    public static long disableLongCastle(long data, byte side) {
+        return data & ~(side == Piece.WHITE ? WHITE_LONG_CASTLE : BLACK_LONG_CASTLE);
+    }
+
+    public static long disableShortCastle(long data, byte side) {
+        return data & ~(side == Piece.WHITE ? WHITE_SHORT_CASTLE : BLACK_SHORT_CASTLE);
+    }
+
+    /**
+     * @return The file a pawn can be captured on en passant or {@link #NO_EN_PASSANT}.
+     */
+    public static int getEnPassantX(long data) {
+        return (int) ((data >>> EN_PASSANT_SHIFT) & EN_PASSANT_MASK) - 1;
+    }
+
+    /**
+     * @param enPassantX The file a pawn can be captured on en passant or {@link #NO_EN_PASSANT}.
+     */
+    public static long withEnPassantX(long data, int enPassantX) {
+        return (data & ~(EN_PASSANT_MASK << EN_PASSANT_SHIFT))
+                | (long) (enPassantX + 1) << EN_PASSANT_SHIFT;
+    }
+
+    public static int getHalfMoveClock(long data) {
+        return (int) (data >>> HALF_MOVE_CLOCK_SHIFT);
+    }
+
+    public static long withHalfMoveClock(long data, int halfMoveClock) {
+        return (data & ((1L << HALF_MOVE_CLOCK_SHIFT) - 1))
+                | (long) halfMoveClock << HALF_MOVE_CLOCK_SHIFT;
+    }
+}
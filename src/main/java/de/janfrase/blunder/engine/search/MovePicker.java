@@ -0,0 +1,205 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.search;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.movegen.LegalityMasks;
+import de.janfrase.blunder.engine.backend.movegen.MoveGenerator;
+import de.janfrase.blunder.engine.backend.movegen.MoveList;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+import de.janfrase.blunder.engine.evaluation.Evaluator;
+
+/**
+ * Hands out the legal moves of a position one after another, the most promising ones first.
+ * <p>
+ * The moves are generated in stages and a stage is only generated once the previous one is used up:
+ * <ol>
+ *     <li>the best move of an earlier search of this position (the hash move)</li>
+ *     <li>captures and promotions that do not lose material, ordered by MVV-LVA</li>
+ *     <li>the killer moves, i.e. quiet moves that caused a cutoff in a sibling position</li>
+ *     <li>all remaining quiet moves</li>
+ *     <li>captures that lose material according to {@link StaticExchangeEvaluator}</li>
+ * </ol>
+ * Most cutoffs happen on the first or second move, so the quiet moves often never have to be generated.
+ * <p>
+ * The searcher keeps one instance per ply and reuses it for every node.
+ * See: <a href="https://www.chessprogramming.org/Move_Ordering">Chess programming wiki.</a>
+ */
+public class MovePicker {
+
+    private enum Stage {
+        HASH_MOVE,
+        GENERATE_CAPTURES,
+        CAPTURES,
+        KILLERS,
+        GENERATE_QUIETS,
+        QUIETS,
+        BAD_CAPTURES,
+        DONE
+    }
+
+    private final MoveList moves = new MoveList();
+    // captures that lose material are put aside here, since the quiet moves overwrite the list above
+    private final MoveList badCaptures = new MoveList();
+    private final StaticExchangeEvaluator staticExchangeEvaluator = new StaticExchangeEvaluator();
+    // used to check whether the hash move and the killers can be played in this position
+    private final MoveList scratch = new MoveList();
+    // computed once per position by the searcher and shared by every stage
+    private LegalityMasks legalityMasks;
+
+    private GameState gameState;
+    private Stage stage = Stage.DONE;
+    private int moveIndex;
+
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    // the killers that were actually handed out, so they are not handed out again as quiets
+    private int pickedFirstKiller;
+    private int pickedSecondKiller;
+
+    /**
+     * Prepares picking the moves of a new position. Nothing is generated yet.
+     *
+     * @param legalityMasks Has to be computed for exactly this position and stay unchanged while picking.
+     * @param hashMove     The best move from the transposition table or {@link EncodedMove#NO_MOVE}.
+     *                     Only from, to and move type are needed.
+     * @param firstKiller  The most recent killer move of this ply or {@link EncodedMove#NO_MOVE}.
+     * @param secondKiller The older killer move of this ply or {@link EncodedMove#NO_MOVE}.
+     */
+    public void init(
+            GameState gameState,
+            LegalityMasks legalityMasks,
+            int hashMove,
+            int firstKiller,
+            int secondKiller) {
+        this.gameState = gameState;
+        this.legalityMasks = legalityMasks;
+        this.stage = Stage.HASH_MOVE;
+        this.moveIndex = 0;
+        this.badCaptures.clear();
+
+        // different positions can share an entry, so the stored move might not be playable here
+        this.hashMove = MoveGenerator.findLegalMove(gameState, legalityMasks, hashMove, scratch);
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.pickedFirstKiller = EncodedMove.NO_MOVE;
+        this.pickedSecondKiller = EncodedMove.NO_MOVE;
+    }
+
+    /**
+     * @return The next move or {@link EncodedMove#NO_MOVE} once every move was handed out.
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE -> {
+                    stage = Stage.GENERATE_CAPTURES;
+                    if (hashMove != EncodedMove.NO_MOVE) {
+                        return hashMove;
+                    }
+                }
+                case GENERATE_CAPTURES -> {
+                    moves.clear();
+                    MoveGenerator.generateLegalMoves(
+                            gameState,
+                            legalityMasks,
+                            moves,
+                            MoveGenerator.MoveSelection.CAPTURES);
+                    for (int i = 0; i < moves.size(); i++) {
+                        moves.setScore(i, scoreCapture(moves.get(i)));
+                    }
+                    moveIndex = 0;
+                    stage = Stage.CAPTURES;
+                }
+                case CAPTURES -> {
+                    while (moveIndex < moves.size()) {
+                        int move = moves.pickBest(moveIndex++);
+                        if (move == hashMove) {
+                            continue;
+                        }
+
+                        // only checked once the move is picked, since most nodes cut off earlier
+                        if (staticExchangeEvaluator.evaluate(gameState.getBitBoards(), move) < 0) {
+                            badCaptures.add(move);
+                            continue;
+                        }
+                        return move;
+                    }
+                    stage = Stage.KILLERS;
+                }
+                case KILLERS -> {
+                    if (isPlayableKiller(firstKiller)) {
+                        pickedFirstKiller = firstKiller;
+                        firstKiller = EncodedMove.NO_MOVE;
+                        return pickedFirstKiller;
+                    }
+                    if (isPlayableKiller(secondKiller) && secondKiller != pickedFirstKiller) {
+                        pickedSecondKiller = secondKiller;
+                        secondKiller = EncodedMove.NO_MOVE;
+                        return pickedSecondKiller;
+                    }
+                    stage = Stage.GENERATE_QUIETS;
+                }
+                case GENERATE_QUIETS -> {
+                    moves.clear();
+                    MoveGenerator.generateLegalMoves(
+                            gameState, legalityMasks, moves, MoveGenerator.MoveSelection.QUIETS);
+                    moveIndex = 0;
+                    stage = Stage.QUIETS;
+                }
+                case QUIETS -> {
+                    while (moveIndex < moves.size()) {
+                        int move = moves.get(moveIndex++);
+                        if (move != hashMove
+                                && move != pickedFirstKiller
+                                && move != pickedSecondKiller) {
+                            return move;
+                        }
+                    }
+                    moveIndex = 0;
+                    stage = Stage.BAD_CAPTURES;
+                }
+                case BAD_CAPTURES -> {
+                    if (moveIndex < badCaptures.size()) {
+                        return badCaptures.get(moveIndex++);
+                    }
+                    stage = Stage.DONE;
+                }
+                case DONE -> {
+                    return EncodedMove.NO_MOVE;
+                }
+            }
+        }
+    }
+
+    private boolean isPlayableKiller(int killer) {
+        if (killer == EncodedMove.NO_MOVE || killer == hashMove) {
+            return false;
+        }
+
+        // killers are quiet, so the whole move has to match - otherwise it would be a capture here
+        return MoveGenerator.findLegalMove(gameState, legalityMasks, killer, scratch) == killer;
+    }
+
+    /**
+     * MVV-LVA (Most Valuable Victim - Least Valuable Aggressor) plus the value of the piece we promote to.
+     * <a href="https://www.chessprogramming.org/MVV-LVA">Chess programming wiki.</a>
+     */
+    private int scoreCapture(int move) {
+        BitBoards board = gameState.getBitBoards();
+        Piece movedPiece = board.getPieceAt(EncodedMove.getFromX(move), EncodedMove.getFromY(move));
+        Piece capturedPiece = Piece.fromValue(EncodedMove.getCapturedPiece(move));
+
+        int score =
+                Evaluator.getMaterialValue(capturedPiece) - Evaluator.getMaterialValue(movedPiece);
+
+        if (EncodedMove.isPromotion(move)) {
+            byte promotedPieceType = EncodedMove.getPromotedPieceType(move);
+            score += Evaluator.getMaterialValue(Piece.fromValue(promotedPieceType));
+        }
+
+        return score;
+    }
+}
@@ -2,13 +2,27 @@
 package de.janfrase.blunder.engine.search;
 
 import de.janfrase.blunder.engine.backend.movegen.Move;
+import de.janfrase.blunder.engine.backend.movegen.MoveGenerator;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
 import de.janfrase.blunder.uci.UciMessageHandler;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Starts and stops searches.
+ * <p>
+ * With more than one thread this uses <a href="https://www.chessprogramming.org/Lazy_SMP">Lazy SMP</a>:
+ * Every thread runs its own iterative deepening on its own position and only the transposition table is shared.
+ * The helper threads fill the table with results that the main thread can then cut off with or use for move ordering.
+ * Only the main thread reports to the GUI and decides which move is played.
+ * <p>
+ * The main thread searches every iteration with an <a href="https://www.chessprogramming.org/Aspiration_Windows">aspiration window</a>
+ * around the score of the previous one. If the score falls outside, the window is widened on that side and the iteration repeated.
+ */
 public class SearchManager {
 
     // logging
@@ -17,63 +31,285 @@ public class SearchManager {
     // singleton pattern
     private static final SearchManager INSTANCE = new SearchManager();
 
+    public static final int DEFAULT_THREAD_COUNT = 1;
+    public static final int MAX_THREAD_COUNT = 256;
+
+    // once the table resolves a position, e.g. a forced draw, every iteration finishes instantly
+    // and without a limit the recursion would grow until the stack overflows
+    public static final int MAX_DEPTH = 64;
+
+    // half the width of the first window in centipawns, 0 searches every iteration with a full one
+    public static final int DEFAULT_ASPIRATION_WINDOW = 50;
+    public static final int MAX_ASPIRATION_WINDOW = 1000;
+
+    // how much the window grows on the failing side every time the score falls outside of it
+    public static final int DEFAULT_ASPIRATION_WINDOW_GROWTH = 2;
+    public static final int MIN_ASPIRATION_WINDOW_GROWTH = 2;
+    public static final int MAX_ASPIRATION_WINDOW_GROWTH = 16;
+
+    // the scores of the first iterations still jump around too much for a narrow window to pay off
+    private static final int MIN_ASPIRATION_DEPTH = 4;
+
+    // shared between all searches, so that we can reuse results from the last move
+    private final TranspositionTable transpositionTable = new TranspositionTable();
+
+    // the flag of the running search, a new one is created for every search so that a late timeout
+    // can not stop the next one
+    private volatile AtomicBoolean stopSearching = new AtomicBoolean(true);
+    private volatile Thread searchThread = null;
+    private volatile SearchStatistics lastSearchStatistics = null;
+
+    private int threadCount = DEFAULT_THREAD_COUNT;
+    private int aspirationWindow = DEFAULT_ASPIRATION_WINDOW;
+    private int aspirationWindowGrowth = DEFAULT_ASPIRATION_WINDOW_GROWTH;
+
     private SearchManager() {}
 
     public static SearchManager getInstance() {
         return INSTANCE;
     }
 
-    public void go(SearchLimitations searchLimitations) {
-        Searcher searcher = new Searcher();
-        AtomicReference<Move> move = new AtomicReference<>();
+    /**
+     * Forgets everything we learned in earlier searches. Should be called whenever a new game starts.
+     */
+    public void clearTranspositionTable() {
+        transpositionTable.clear();
+    }
+
+    /**
+     * Sets how many threads search in parallel. Takes effect with the next call to {@link #go(GameState, SearchLimitations)}.
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.clamp(threadCount, 1, MAX_THREAD_COUNT);
+    }
 
-        Thread.ofVirtual().name("Search Thread").start(() -> iterativeDeepening(searcher, move));
+    /**
+     * Sets half the width of the first aspiration window in centipawns, 0 disables aspiration windows.
+     * Takes effect with the next call to {@link #go(GameState, SearchLimitations)}.
+     */
+    public void setAspirationWindow(int aspirationWindow) {
+        this.aspirationWindow = Math.clamp(aspirationWindow, 0, MAX_ASPIRATION_WINDOW);
+    }
+
+    /**
+     * Sets the factor the aspiration window grows by whenever the score falls outside of it.
+     * Takes effect with the next call to {@link #go(GameState, SearchLimitations)}.
+     */
+    public void setAspirationWindowGrowth(int aspirationWindowGrowth) {
+        this.aspirationWindowGrowth =
+                Math.clamp(
+                        aspirationWindowGrowth,
+                        MIN_ASPIRATION_WINDOW_GROWTH,
+                        MAX_ASPIRATION_WINDOW_GROWTH);
+    }
+
+    /**
+     * Starts searching the given position in the background.
+     * Every search thread gets its own copy of the position, so the caller may keep using it.
+     * A search that is still running is stopped first, so threads never pile up.
+     */
+    public void go(GameState gameState, SearchLimitations searchLimitations) {
+        stop();
+        awaitSearchThread();
+
+        transpositionTable.incrementAge();
+        AtomicBoolean stopSearching = new AtomicBoolean(false);
+        this.stopSearching = stopSearching;
+        // a stop that arrives before the first iteration finished still has to answer with a legal
+        // move, so we start with any of them
+        List<Move> legalMoves = MoveGenerator.generateLegalMoves(gameState);
+        AtomicReference<Move> move =
+                new AtomicReference<>(legalMoves.isEmpty() ? null : legalMoves.getFirst());
+        int maxDepth =
+                searchLimitations.depth() > 0
+                        ? Math.min(searchLimitations.depth(), MAX_DEPTH)
+                        : MAX_DEPTH;
+
+        Searcher mainSearcher =
+                new Searcher(new GameState(gameState), transpositionTable, stopSearching);
+        List<Searcher> helperSearchers = new ArrayList<>();
+
+        for (int i = 1; i < threadCount; i++) {
+            Searcher helperSearcher =
+                    new Searcher(new GameState(gameState), transpositionTable, stopSearching);
+            helperSearchers.add(helperSearcher);
+
+            // half of the helpers start one ply deeper, so that not all threads search the same
+            // depth at the same time
+            int startingDepth = 1 + i % 2;
+
+            // the search threads never block, so they get platform threads instead of virtual ones
+            // they are daemons, so that a search that is still running can not keep the jvm alive
+            Thread.ofPlatform()
+                    .name("Helper Search Thread " + i)
+                    .daemon(true)
+                    .start(() -> helperIterativeDeepening(helperSearcher, startingDepth, maxDepth));
+        }
+
+        searchThread =
+                Thread.ofPlatform()
+                        .name("Search Thread")
+                        .daemon(true)
+                        .start(
+                                () ->
+                                        iterativeDeepening(
+                                                mainSearcher, helperSearchers, move, maxDepth));
 
         Thread.ofVirtual()
                 .name("TimeOut Thread")
-                .start(() -> startTimeoutThread(searcher, searchLimitations));
+                .start(() -> startTimeoutThread(stopSearching, searchLimitations));
     }
 
-    private void iterativeDeepening(Searcher searcher, AtomicReference<Move> move) {
+    /**
+     * Stops the running search, which then reports the best move it found so far.
+     * If no iteration finished yet, that is simply the first legal move.
+     * Does nothing if no search is running.
+     */
+    public void stop() {
+        stopSearching.set(true);
+    }
+
+    private void awaitSearchThread() {
+        Thread thread = searchThread;
+        if (thread == null) {
+            return;
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            LOGGER.error("Waiting for the last search was interrupted", e);
+        }
+    }
+
+    /**
+     * @return How deep, how long and how many nodes the last finished iteration of the last search took,
+     * or null if no iteration finished yet. Used to measure how well the search scales with more threads.
+     */
+    SearchStatistics getLastSearchStatistics() {
+        return lastSearchStatistics;
+    }
+
+    private void helperIterativeDeepening(Searcher searcher, int startingDepth, int maxDepth) {
+        int depth = startingDepth;
+        while (!searcher.stopSearchingImmediately.get() && depth <= maxDepth) {
+            // the result is not needed - everything useful ends up in the transposition table
+            searcher.startSearching(depth);
+            depth++;
+        }
+    }
+
+    private void iterativeDeepening(
+            Searcher searcher,
+            List<Searcher> helperSearchers,
+            AtomicReference<Move> move,
+            int maxDepth) {
+        long startTime = System.nanoTime();
         int depth = 1;
-        ArrayList<Move> previousPrincipalVariation = new ArrayList<>();
+        SearchResult previousSearchResult = null;
+        lastSearchStatistics = null;
         do {
-            SearchResult searchResult = searcher.startSearching(depth, previousPrincipalVariation);
+            SearchResult searchResult =
+                    searchWithAspirationWindow(searcher, depth, previousSearchResult);
             depth++;
 
             // if we properly finished this search
             if (!searcher.stopSearchingImmediately.get()
                     && !searchResult.principalVariation().isEmpty()) {
+                previousSearchResult = searchResult;
 
                 move.set(searchResult.principalVariation().getFirst());
                 // UCI info string
                 StringBuilder sb = new StringBuilder();
                 sb.append("depth ").append(depth - 1).append(" ");
-                sb.append("score cp ")
-                        .append(
-                                (int)
-                                        (GameState.getInstance().isWhitesTurn()
-                                                ? searchResult.eval()
-                                                : -searchResult.eval()))
-                        .append(" ");
-                sb.append("nodes ").append(searcher.getNodesSearched()).append(" ");
+                sb.append("score ").append(formatScore(searchResult.eval())).append(" ");
+                long nodes = searcher.getNodesSearched();
+                for (Searcher helperSearcher : helperSearchers) {
+                    nodes += helperSearcher.getNodesSearched();
+                }
+                long timeInMillis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+                SearchStatistics statistics = new SearchStatistics(depth - 1, nodes, timeInMillis);
+                lastSearchStatistics = statistics;
+                sb.append("nodes ").append(nodes).append(" ");
+                sb.append("nps ").append(statistics.nodesPerSecond()).append(" ");
+                sb.append("time ").append(timeInMillis).append(" ");
                 sb.append("pv ");
                 for (Move m : searchResult.principalVariation()) {
                     sb.append(m.toString()).append(" ");
                 }
 
-                previousPrincipalVariation = searchResult.principalVariation();
                 UciMessageHandler.getInstance().sendInfo(sb.toString().trim());
+                UciMessageHandler.getInstance()
+                        .sendInfo("string", "re-searches " + searcher.getReSearches());
             }
-        } while (!searcher.stopSearchingImmediately.get());
+        } while (!searcher.stopSearchingImmediately.get() && depth <= maxDepth);
+
+        // we might have stopped because of the depth limit, the helpers have to stop as well
+        searcher.stopSearchingImmediately.set(true);
         UciMessageHandler.getInstance().searchIsFinished(move.get());
     }
 
-    private void startTimeoutThread(Searcher searcher, SearchLimitations searchLimitations) {
+    /**
+     * Searches with a narrow window around the score of the previous iteration first,
+     * and widens it on the side the score fell out of until the score is inside.
+     *
+     * @param previousSearchResult The result of the last finished iteration or null if there is none.
+     */
+    private SearchResult searchWithAspirationWindow(
+            Searcher searcher, int depth, SearchResult previousSearchResult) {
+        if (aspirationWindow == 0
+                || depth < MIN_ASPIRATION_DEPTH
+                || previousSearchResult == null
+                || Searcher.isMateScore(previousSearchResult.eval())) {
+            return searcher.startSearching(depth);
+        }
+
+        int previousScore = previousSearchResult.eval();
+        int window = aspirationWindow;
+        int alpha = Math.max(previousScore - window, -Searcher.INFINITY);
+        int beta = Math.min(previousScore + window, Searcher.INFINITY);
+        while (true) {
+            SearchResult searchResult = searcher.startSearching(depth, alpha, beta);
+            int score = searchResult.eval();
+            if (searcher.stopSearchingImmediately.get()) {
+                return searchResult;
+            }
+
+            // the score that fell out is already a bound, so the new window starts from it, which
+            // e.g. gets to a mate score right away
+            // the window can not overflow, since it is capped once it is wider than any score
+            if (score <= alpha && alpha > -Searcher.INFINITY) {
+                window = Math.min(window * aspirationWindowGrowth, Searcher.INFINITY);
+                alpha = Math.max(score - window, -Searcher.INFINITY);
+            } else if (score >= beta && beta < Searcher.INFINITY) {
+                window = Math.min(window * aspirationWindowGrowth, Searcher.INFINITY);
+                beta = Math.min(score + window, Searcher.INFINITY);
+            } else {
+                return searchResult;
+            }
+        }
+    }
+
+    /**
+     * @param score A score from the point of view of the side to move, like UCI expects it.
+     * @return Either the score in centipawns or the number of moves until a forced mate, negative if we get mated.
+     */
+    private static String formatScore(int score) {
+        if (!Searcher.isMateScore(score)) {
+            return "cp " + score;
+        }
+
+        int pliesUntilMate = Searcher.MATE_SCORE - Math.abs(score);
+        int movesUntilMate = (pliesUntilMate + 1) / 2;
+        return "mate " + (score > 0 ? movesUntilMate : -movesUntilMate);
+    }
+
+    private void startTimeoutThread(
+            AtomicBoolean stopSearching, SearchLimitations searchLimitations) {
         if (searchLimitations.moveTime() != -1) {
             try {
                 Thread.sleep(searchLimitations.moveTime());
-                searcher.stopSearchingImmediately.set(true);
+                stopSearching.set(true);
             } catch (InterruptedException e) {
                 LOGGER.error("Thread sleep was interrupted", e);
             }
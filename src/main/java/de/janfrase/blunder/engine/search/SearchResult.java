@@ -4,4 +4,4 @@ package de.janfrase.blunder.engine.search;
 import de.janfrase.blunder.engine.backend.movegen.Move;
 import java.util.ArrayList;
 
-public record SearchResult(float eval, ArrayList<Move> principalVariation) {}
+public record SearchResult(int eval, ArrayList<Move> principalVariation) {}
@@ -0,0 +1,13 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.search;
+
+/**
+ * @param depth The depth of the last finished iteration.
+ * @param nodes The nodes all threads searched until then.
+ * @param timeInMillis The time it took to get there.
+ */
+public record SearchStatistics(int depth, long nodes, long timeInMillis) {
+    public long nodesPerSecond() {
+        return nodes * 1000 / timeInMillis;
+    }
+}
@@ -1,239 +1,456 @@
 /* Made by Jan Frase :) */
 package de.janfrase.blunder.engine.search;
 
-import de.janfrase.blunder.engine.backend.movegen.KingInCheckDecider;
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.movegen.LegalityMasks;
 import de.janfrase.blunder.engine.backend.movegen.Move;
 import de.janfrase.blunder.engine.backend.movegen.MoveGenerator;
+import de.janfrase.blunder.engine.backend.movegen.MoveList;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
 import de.janfrase.blunder.engine.evaluation.Evaluator;
-import de.janfrase.blunder.utility.Constants;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * <a href="https://www.chessprogramming.org/Alpha-Beta">Alpha Beta</a>
+ * <a href="https://www.chessprogramming.org/Alpha-Beta">Alpha Beta</a> in its
+ * <a href="https://www.chessprogramming.org/Negamax">negamax</a> form:
+ * every score is from the point of view of the side to move, so both sides share the same code
+ * and a child's score only has to be negated.
+ * <p>
+ * On top of that this is a <a href="https://www.chessprogramming.org/Principal_Variation_Search">principal variation search</a>:
+ * only the first move, which the move ordering expects to be the best one, is searched with the full window.
+ * Every other move is only searched with a null window to prove that it is not better.
+ * Only if that fails, the move is searched again with the full window.
+ * <p>
+ * Nodes outside the principal variation also try <a href="https://www.chessprogramming.org/Null_Move_Pruning">null-move pruning</a>:
+ * if the side to move could pass and a reduced search still fails high, a real move will almost always do so as well.
+ * This is wrong in zugzwang, so it is never done in check, with only pawns left, twice in a row,
+ * and at high depths only once a reduced normal search confirmed the cutoff.
+ * <p>
+ * Scores are in centipawns. A forced mate is scored as {@link #MATE_SCORE} minus the number of plies until it happens,
+ * so that a faster mate is preferred and a slower one is chosen when getting mated.
  */
 public class Searcher {
 
-    private static final float WE_GOT_CHECKMATED_EVAL = 100000f;
-    private final GameState gameState = GameState.getInstance();
+    // the search depth is capped well below this, the rest is headroom for the quiescence search
+    private static final int MAX_PLY = 128;
+
+    /** The score of the side to move once it got checkmated, negated. */
+    public static final int MATE_SCORE = 100000;
+
+    /** Every score at least this high (or this low, negated) is a forced mate. */
+    public static final int MIN_MATE_SCORE = MATE_SCORE - MAX_PLY;
+
+    /** Higher than any real score, so that it still fits into an int when negated. */
+    public static final int INFINITY = MATE_SCORE + 1;
+
+    // the null move is searched this much shallower, plus one ply for every few plies of depth
+    private static final int NULL_MOVE_REDUCTION = 3;
+    private static final int NULL_MOVE_REDUCTION_DEPTH_DIVISOR = 6;
+    // at depth 3 and 4 the reduced search after the null move is only the quiescence search,
+    // which is cheap and still catches most direct threats
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    // a wrong cutoff would prune a big tree from here on, so it is worth verifying
+    private static final int NULL_MOVE_VERIFICATION_MIN_DEPTH = 6;
+
+    private final GameState gameState;
+
+    // one picker and list per ply, so generating moves does not allocate during the search
+    private final MovePicker[] movePickers = new MovePicker[MAX_PLY];
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final LegalityMasks[] legalityMasks = new LegalityMasks[MAX_PLY];
+    private final StaticExchangeEvaluator staticExchangeEvaluator = new StaticExchangeEvaluator();
+
+    // two quiet moves per ply that recently caused a cutoff, the most recent one first
+    // https://www.chessprogramming.org/Killer_Heuristic
+    private final int[][] killerMoves = new int[MAX_PLY][2];
+
+    // the best line found from every ply on, the line of a ply is its best move followed by the
+    // line of the next ply, so every ply needs one entry less than the one before
+    // https://www.chessprogramming.org/Triangular_PV-Table
+    private final int[][] principalVariations = new int[MAX_PLY][];
+    private final int[] principalVariationLengths = new int[MAX_PLY];
 
     // infos for the ui
-    private int nodesSearched = 0;
+    private long nodesSearched = 0;
+    private long reSearches = 0;
 
     // important search state
-    private Move bestMove = null;
-    AtomicBoolean stopSearchingImmediately = new AtomicBoolean(false);
+    final AtomicBoolean stopSearchingImmediately;
 
-    // TODO: Eventually replace this with a transposition table.
-    private ArrayList<Move> previousPrincipalVariation = new ArrayList<>();
+    // might be shared with other searchers running in parallel
+    private final TranspositionTable transpositionTable;
+
+    public Searcher(GameState gameState) {
+        this(gameState, new TranspositionTable(), new AtomicBoolean(false));
+    }
 
-    public SearchResult startSearching(int depth, ArrayList<Move> previousPrincipalVariation) {
-        Constants.Side sideToMove = gameState.getFriendlySide();
-        boolean isMaximizingPlayer = (sideToMove == Constants.Side.WHITE);
-        this.previousPrincipalVariation = previousPrincipalVariation;
+    /**
+     * @param gameState                The position to search. Is modified during the search, so it must not be shared.
+     * @param transpositionTable       The table to store results in. Can be shared between multiple searchers.
+     * @param stopSearchingImmediately Once this is set, the search is aborted. Can be shared between multiple searchers.
+     */
+    public Searcher(
+            GameState gameState,
+            TranspositionTable transpositionTable,
+            AtomicBoolean stopSearchingImmediately) {
+        this.gameState = gameState;
+        this.transpositionTable = transpositionTable;
+        this.stopSearchingImmediately = stopSearchingImmediately;
+
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            movePickers[ply] = new MovePicker();
+            moveLists[ply] = new MoveList();
+            legalityMasks[ply] = new LegalityMasks();
+            principalVariations[ply] = new int[MAX_PLY - ply];
+        }
+    }
 
-        return alphaBetaSearch(
-                depth, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, isMaximizingPlayer, true);
+    /**
+     * @return The best line found and its score from the point of view of the side to move.
+     */
+    public SearchResult startSearching(int depth) {
+        return startSearching(depth, -INFINITY, INFINITY);
     }
 
-    private SearchResult alphaBetaSearch(
-            int remainingDepth,
-            float alpha,
-            float beta,
-            boolean isMaximizingPlayer,
-            boolean isRoot) {
+    /**
+     * Searches with the given window only, to be faster if the score is expected in it.
+     *
+     * @return The best line found and its score from the point of view of the side to move.
+     *         If the score is outside the window, it is only a bound and the line might not be the best one.
+     */
+    public SearchResult startSearching(int depth, int alpha, int beta) {
+        reSearches = 0;
+        int score = negamax(depth, 0, alpha, beta, true);
+
         ArrayList<Move> principalVariation = new ArrayList<>();
-        if (gameState.isHalfMoveClockAt50() || gameState.isRepeatedPosition()) {
+        for (int i = 0; i < principalVariationLengths[0]; i++) {
+            principalVariation.add(EncodedMove.toMove(principalVariations[0][i]));
+        }
+        return new SearchResult(score, principalVariation);
+    }
+
+    /**
+     * @param isNullMoveAllowed false directly after a null move, so that a side can not pass twice in a row.
+     * @return The score of the position from the point of view of the side to move.
+     *         The best line found is left in {@link #principalVariations} at the given ply.
+     */
+    private int negamax(
+            int remainingDepth, int ply, int alpha, int beta, boolean isNullMoveAllowed) {
+        boolean isRoot = ply == 0;
+        // stays empty unless a move gets searched
+        principalVariationLengths[ply] = 0;
+        // the root still needs a move, even if the game history already repeated
+        if (!isRoot && (gameState.isHalfMoveClockAt50() || gameState.isRepeatedPosition(ply))) {
             // if either of these is true, we will consider the position a draw
-            return new SearchResult(0f, principalVariation);
+            return 0;
+        }
+
+        // if we can move back into a position we already had, we get at least a draw
+        if (!isRoot && alpha < 0 && gameState.hasUpcomingRepetition(ply)) {
+            alpha = 0;
+            if (alpha >= beta) {
+                return 0;
+            }
         }
 
         // we have reached the end! return the eval
         if (remainingDepth == 0) {
-            float eval = quiesceSearch(alpha, beta, isMaximizingPlayer);
-            return new SearchResult(eval, principalVariation);
+            return quiesceSearch(ply, alpha, beta);
         }
 
-        // TODO: Check if i can get rid of this.
-        // If we are the maximizing player, the score needs to be negative
-        float mostExtremeEval =
-                isMaximizingPlayer ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+        // maybe we already know enough about this position from an earlier search
+        long zobristHash = gameState.getZobristHash();
+        long hashEntry = transpositionTable.probe(zobristHash);
+        if (!isRoot && isHashCutoff(hashEntry, remainingDepth, ply, alpha, beta)) {
+            return fromTranspositionTableScore(TranspositionTable.getScore(hashEntry), ply);
+        }
 
-        // if we can't find any move to play, we just got checkmated or the game is stalemated
-        boolean noLegalMoves = true;
-        Constants.Side activeSide = GameState.getInstance().getFriendlySide();
+        // computed once for this node, the move picker needs them as well
+        LegalityMasks masks = legalityMasks[ply];
+        masks.compute(gameState);
+        boolean inCheck = masks.isInCheck();
+
+        // only a null window means that we are not in the principal variation
+        boolean isPrincipalVariationNode = beta - alpha > 1;
+        if (isNullMoveAllowed
+                && !isRoot
+                && !isPrincipalVariationNode
+                && !inCheck
+                && remainingDepth >= NULL_MOVE_MIN_DEPTH
+                && gameState.getBitBoards().hasNonPawnMaterial(gameState.getFriendlySide())
+                && evaluateForSideToMove() >= beta) {
+            int reduction =
+                    NULL_MOVE_REDUCTION + remainingDepth / NULL_MOVE_REDUCTION_DEPTH_DIVISOR;
+            int nullMoveDepth = Math.max(0, remainingDepth - 1 - reduction);
+
+            gameState.makeNullMove();
+            nodesSearched++;
+            int score = -negamax(nullMoveDepth, ply + 1, -beta, -beta + 1, false);
+            gameState.unmakeNullMove();
 
-        ArrayList<Move> moves = getOrderedMoves();
-        for (Move move : moves) {
             if (stopSearchingImmediately.get()) {
-                return new SearchResult(mostExtremeEval, principalVariation);
+                return score;
             }
-            gameState.makeMove(move);
 
-            // If this move results in our king being captured, it's not a legal move and should be
-            // skipped.
-            if (KingInCheckDecider.isKingUnderAttack(activeSide)) {
-                gameState.unmakeMove(move);
-                continue;
+            if (score >= beta) {
+                // passing proves no mate, so we do not return one
+                if (remainingDepth < NULL_MOVE_VERIFICATION_MIN_DEPTH
+                        || negamax(remainingDepth - reduction, ply, beta - 1, beta, false)
+                                >= beta) {
+                    return score >= MIN_MATE_SCORE ? beta : score;
+                }
             }
+        }
 
-            // making this move does not result in our king being captured, thus we found at least
-            // one legal move
-            noLegalMoves = false;
-            nodesSearched++;
+        // needed to decide which kind of bound we store in the transposition table
+        int originalAlpha = alpha;
 
-            // search deeper
-            SearchResult childSearchResult =
-                    alphaBetaSearch(remainingDepth - 1, alpha, beta, !isMaximizingPlayer, false);
+        int bestScore = -INFINITY;
+        int bestMoveInPosition = EncodedMove.NO_MOVE;
 
-            float eval = childSearchResult.eval();
+        // if we can't find any move to play, we just got checkmated or the game is stalemated
+        boolean noLegalMoves = true;
 
-            // update alpha beta, mostExtremeEval and bestMove depending on isMaximizingPlayer and
-            // isRoot
-            if (isMaximizingPlayer) {
-                if (eval > mostExtremeEval) {
-                    if (isRoot) {
-                        bestMove = move;
-                    }
+        MovePicker movePicker = movePickers[ply];
+        movePicker.init(
+                gameState,
+                masks,
+                TranspositionTable.getMove(hashEntry),
+                killerMoves[ply][0],
+                killerMoves[ply][1]);
 
-                    principalVariation = new ArrayList<>();
-                    principalVariation.add(move);
-                    principalVariation.addAll(childSearchResult.principalVariation());
-                }
-                alpha = Math.max(alpha, eval);
-                mostExtremeEval = Math.max(mostExtremeEval, eval);
+        int move;
+        while ((move = movePicker.next()) != EncodedMove.NO_MOVE) {
+            if (stopSearchingImmediately.get()) {
+                return bestScore;
+            }
+            gameState.makeMove(move);
+            nodesSearched++;
+
+            // search deeper, what is good for the opponent is bad for us
+            // only the first move, the one we expect to be best, gets the full window
+            int score;
+            if (noLegalMoves) {
+                score = -negamax(remainingDepth - 1, ply + 1, -beta, -alpha, true);
             } else {
-                if (eval < mostExtremeEval) {
-                    if (isRoot) {
-                        bestMove = move;
-                    }
-                    // TODO: Remove code duplication from above
-                    principalVariation = new ArrayList<>();
-                    principalVariation.add(move);
-                    principalVariation.addAll(childSearchResult.principalVariation());
+                score = -negamax(remainingDepth - 1, ply + 1, -alpha - 1, -alpha, true);
+
+                // the move is better after all, so we need its exact score
+                if (score > alpha && score < beta) {
+                    reSearches++;
+                    score = -negamax(remainingDepth - 1, ply + 1, -beta, -alpha, true);
                 }
-                beta = Math.min(beta, eval);
-                mostExtremeEval = Math.min(mostExtremeEval, eval);
             }
 
+            // the move picker only hands out legal moves
+            noLegalMoves = false;
+
             gameState.unmakeMove(move);
 
+            if (score > bestScore) {
+                bestScore = score;
+                bestMoveInPosition = move;
+                updatePrincipalVariation(move, ply);
+            }
+            alpha = Math.max(alpha, score);
+
             // pruning!
-            if (beta <= alpha) return new SearchResult(mostExtremeEval, principalVariation);
+            if (alpha >= beta) {
+                storeKillerMove(move, ply);
+                break;
+            }
+        }
+
+        // the result of an aborted search is not trustworthy and must not end up in the table
+        if (stopSearchingImmediately.get()) {
+            return bestScore;
         }
 
         // if we can't make any move
         if (noLegalMoves) {
-            // and we are in check
-            if (KingInCheckDecider.isKingUnderAttack(activeSide)) {
-                // its checkmate
-                float mateEval =
-                        isMaximizingPlayer
-                                ? -WE_GOT_CHECKMATED_EVAL - remainingDepth
-                                : WE_GOT_CHECKMATED_EVAL + remainingDepth;
-                return new SearchResult(mateEval, principalVariation);
-                // else if we aren't in check
-            } else {
-                // its draw
-                return new SearchResult(0f, principalVariation);
-            }
+            // it's checkmate if we are in check and a draw otherwise
+            int score = inCheck ? -MATE_SCORE + ply : 0;
+            transpositionTable.store(
+                    zobristHash,
+                    remainingDepth,
+                    TranspositionTable.EXACT,
+                    toTranspositionTableScore(score, ply),
+                    EncodedMove.NO_MOVE);
+            return score;
         }
 
-        return new SearchResult(mostExtremeEval, principalVariation);
+        int bound = TranspositionTable.EXACT;
+        if (bestScore <= originalAlpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        }
+        transpositionTable.store(
+                zobristHash,
+                remainingDepth,
+                bound,
+                toTranspositionTableScore(bestScore, ply),
+                bestMoveInPosition);
+
+        return bestScore;
     }
 
-    private ArrayList<Move> getOrderedMoves() {
-        // PERFORMANCE: 41% of the time is spend on generating an sorting
-        // 24% for generating, 17% for sorting
-        ArrayList<Move> moves = MoveGenerator.generatePseudoLegalMoves();
-        // MVV-VLA (Most Valuable Victim - Least Valuable Aggressor)
-        // https://www.chessprogramming.org/MVV-LVA
-        Comparator<Move> comparator =
-                (m1, m2) ->
-                        Float.compare(
-                                calculatePieceValueDifference(m1),
-                                calculatePieceValueDifference(m2));
-        moves.sort(comparator);
+    /**
+     * The new best line of the ply is the move followed by the best line of the next ply.
+     */
+    private void updatePrincipalVariation(int move, int ply) {
+        int childLength = principalVariationLengths[ply + 1];
 
-        if (!previousPrincipalVariation.isEmpty()) {
-            Move pvMove = previousPrincipalVariation.removeFirst();
+        principalVariations[ply][0] = move;
+        System.arraycopy(principalVariations[ply + 1], 0, principalVariations[ply], 1, childLength);
+        principalVariationLengths[ply] = childLength + 1;
+    }
 
-            moves.remove(pvMove);
-            moves.addFirst(pvMove);
+    /**
+     * Checks whether a stored entry was searched deep enough and has a score that makes searching this position again useless.
+     * Since the scores are always from the point of view of the side to move, the bounds mean the same thing for both players.
+     */
+    private static boolean isHashCutoff(
+            long hashEntry, int remainingDepth, int ply, int alpha, int beta) {
+        if (hashEntry == TranspositionTable.NO_ENTRY
+                || TranspositionTable.getDepth(hashEntry) < remainingDepth) {
+            return false;
         }
 
-        return moves;
+        int score = fromTranspositionTableScore(TranspositionTable.getScore(hashEntry), ply);
+        return switch (TranspositionTable.getBound(hashEntry)) {
+            case TranspositionTable.EXACT -> true;
+            case TranspositionTable.LOWER_BOUND -> score >= beta;
+            case TranspositionTable.UPPER_BOUND -> score <= alpha;
+            default -> false;
+        };
     }
 
-    private float quiesceSearch(float alpha, float beta, boolean isMaximizingPlayer) {
-        float eval = Evaluator.calculateEvaluation(GameState.getInstance());
+    /**
+     * A mate score counts the plies from the root, but the same position can be reached at different plies.
+     * The table therefore stores the plies from the position itself instead.
+     */
+    private static int toTranspositionTableScore(int score, int ply) {
+        if (score >= MIN_MATE_SCORE) return score + ply;
+        if (score <= -MIN_MATE_SCORE) return score - ply;
+        return score;
+    }
 
-        // Stand pat - if the current position is already good enough
-        if (isMaximizingPlayer) {
-            if (eval >= beta) return beta;
-            alpha = Math.max(alpha, eval);
-        } else {
-            if (eval <= alpha) return alpha;
-            beta = Math.min(beta, eval);
+    /**
+     * The reverse of {@link #toTranspositionTableScore(int, int)}.
+     */
+    private static int fromTranspositionTableScore(int score, int ply) {
+        if (score >= MIN_MATE_SCORE) return score - ply;
+        if (score <= -MIN_MATE_SCORE) return score + ply;
+        return score;
+    }
+
+    /**
+     * @return true if the score is a forced mate for either side.
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MIN_MATE_SCORE;
+    }
+
+    private void storeKillerMove(int move, int ply) {
+        // captures and promotions are searched early anyway
+        if (EncodedMove.isCapture(move) || EncodedMove.isPromotion(move)) {
+            return;
         }
 
-        float bestEval = eval;
-        ArrayList<Move> moves = MoveGenerator.generatePseudoLegalMoves();
-        // TODO: Currently this also removes checks. It should not.
-        moves.removeIf(move -> move.capturedPieceType() == Constants.PieceType.EMPTY);
+        if (killerMoves[ply][0] != move) {
+            killerMoves[ply][1] = killerMoves[ply][0];
+            killerMoves[ply][0] = move;
+        }
+    }
+
+    private int quiesceSearch(int ply, int alpha, int beta) {
+        int eval = evaluateForSideToMove();
+
+        // we ran out of move lists, this should only ever happen in very wild positions
+        if (ply >= MAX_PLY) {
+            return eval;
+        }
+
+        // Stand pat - if the current position is already good enough
+        if (eval >= beta) return beta;
+        alpha = Math.max(alpha, eval);
+
+        int bestScore = eval;
+
+        // only captures, en passant and promotions are generated - quiet moves, including checks,
+        // are never searched here
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        legalityMasks[ply].compute(gameState);
+        MoveGenerator.generateLegalMoves(
+                gameState, legalityMasks[ply], moves, MoveGenerator.MoveSelection.CAPTURES);
 
         // Sort captures by MVV-LVA
-        moves.sort(
-                (m1, m2) ->
-                        Float.compare(
-                                calculatePieceValueDifference(m1),
-                                calculatePieceValueDifference(m2)));
+        for (int i = 0; i < moves.size(); i++) {
+            moves.setScore(i, calculatePieceValueDifference(moves.get(i)));
+        }
+        moves.sortByScore();
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
 
-        Constants.Side activeSide = GameState.getInstance().getFriendlySide();
+            // a capture that loses material will hardly improve on standing pat
+            if (staticExchangeEvaluator.evaluate(gameState.getBitBoards(), move) < 0) {
+                continue;
+            }
 
-        for (Move move : moves) {
             if (stopSearchingImmediately.get()) {
-                return bestEval;
+                return bestScore;
             }
 
             gameState.makeMove(move);
 
-            if (KingInCheckDecider.isKingUnderAttack(activeSide)) {
-                gameState.unmakeMove(move);
-                continue;
-            }
-
-            float score = quiesceSearch(alpha, beta, !isMaximizingPlayer);
+            int score = -quiesceSearch(ply + 1, -beta, -alpha);
 
             gameState.unmakeMove(move);
 
-            if (isMaximizingPlayer) {
-                bestEval = Math.max(bestEval, score);
-                alpha = Math.max(alpha, score);
-            } else {
-                bestEval = Math.min(bestEval, score);
-                beta = Math.min(beta, score);
-            }
+            bestScore = Math.max(bestScore, score);
+            alpha = Math.max(alpha, score);
 
-            if (beta <= alpha) {
+            if (alpha >= beta) {
                 break;
             }
         }
 
-        return bestEval;
+        return bestScore;
     }
 
-    private float calculatePieceValueDifference(Move move) {
-        return Evaluator.getMaterialValue(
-                        GameState.getInstance()
-                                .getBitBoards()
-                                .getPieceAt(move.fromX(), move.fromY()))
-                - Evaluator.getMaterialValue(move.capturedPieceType());
+    private int evaluateForSideToMove() {
+        // the evaluation is from white's point of view
+        int eval = Evaluator.calculateEvaluation(gameState);
+        return gameState.isWhitesTurn() ? eval : -eval;
     }
 
-    public int getNodesSearched() {
+    /**
+     * @return The value of the captured piece minus the value of the capturing piece, so that higher is better.
+     */
+    private int calculatePieceValueDifference(int move) {
+        Piece capturedPiece = Piece.fromValue(EncodedMove.getCapturedPiece(move));
+        Piece movedPiece =
+                gameState
+                        .getBitBoards()
+                        .getPieceAt(EncodedMove.getFromX(move), EncodedMove.getFromY(move));
+
+        return Evaluator.getMaterialValue(capturedPiece) - Evaluator.getMaterialValue(movedPiece);
+    }
+
+    public long getNodesSearched() {
         return nodesSearched;
     }
+
+    /**
+     * @return How often a move had to be searched again with the full window during the last call to {@link #startSearching(int, int, int)}.
+     *         The fewer, the better the move ordering.
+     */
+    public long getReSearches() {
+        return reSearches;
+    }
 }
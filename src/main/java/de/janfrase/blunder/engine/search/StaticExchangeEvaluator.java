@@ -0,0 +1,130 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.search;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.movegen.KingInCheckDecider;
+import de.janfrase.blunder.engine.backend.movegen.Move;
+import de.janfrase.blunder.engine.backend.movegen.SliderAttacks;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
+import de.janfrase.blunder.engine.evaluation.Evaluator;
+
+/**
+ * Static exchange evaluation (SEE): how much material a capture wins once both sides have taken back
+ * on the target square as long as it pays off for them, always with their least valuable piece first.
+ * <p>
+ * Used to search captures that lose material (e.g. a queen taking a defended pawn) after the quiet moves
+ * and to skip them in the quiescence search.
+ * Pins and checks are ignored, so this is only an estimate.
+ * <p>
+ * Every instance keeps its own swap list, so it must not be shared between threads.
+ * See: <a href="https://www.chessprogramming.org/SEE_-_The_Swap_Algorithm">Chess programming wiki.</a>
+ */
+public class StaticExchangeEvaluator {
+
+    // there are only 32 pieces that could take part in an exchange
+    private static final int MAX_EXCHANGES = 32;
+
+    // from least to most valuable, the order in which pieces join the exchange
+    private static final byte[] PIECE_TYPES = {
+        Piece.PAWN, Piece.KNIGHT, Piece.BISHOP, Piece.ROOK, Piece.QUEEN, Piece.KING
+    };
+
+    // gains[i] is what the side making the i-th capture gains, if the exchange stopped afterward
+    private final int[] gains = new int[MAX_EXCHANGES];
+
+    /**
+     * @param board The position before the move is made.
+     * @param move  A capture or promotion of the side to move.
+     * @return The material the moving side wins (positive) or loses (negative) with best play from both sides.
+     */
+    public int evaluate(BitBoards board, int move) {
+        int fromSquare = EncodedMove.getFromSquare(move);
+        int toSquare = EncodedMove.getToSquare(move);
+        Move.MoveType moveType = EncodedMove.getMoveType(move);
+
+        Piece movedPiece = board.getPieceAt(EncodedMove.getFromX(move), EncodedMove.getFromY(move));
+        byte side = movedPiece.getSide();
+
+        long occupancy = board.getOccupancy();
+        int capturedValue = getValue(EncodedMove.getCapturedPiece(move));
+        int attackerValue = getValue(movedPiece.getType());
+
+        if (moveType == Move.MoveType.EP_CAPTURE) {
+            // the captured pawn is not on the target square
+            int capturedX = EncodedMove.getToX(move);
+            int capturedY = EncodedMove.getFromY(move);
+            occupancy &= ~BitBoard.getLongWithBitAtIndex(capturedX, capturedY);
+            capturedValue = getValue(Piece.PAWN);
+        }
+
+        if (EncodedMove.isPromotion(move)) {
+            int promotedValue = getValue(EncodedMove.getPromotedPieceType(move));
+            capturedValue += promotedValue - attackerValue;
+            attackerValue = promotedValue;
+        }
+
+        long queens =
+                getPieces(board, Piece.QUEEN, Piece.WHITE)
+                        | getPieces(board, Piece.QUEEN, Piece.BLACK);
+        long diagonalSliders =
+                getPieces(board, Piece.BISHOP, Piece.WHITE)
+                        | getPieces(board, Piece.BISHOP, Piece.BLACK)
+                        | queens;
+        long straightSliders =
+                getPieces(board, Piece.ROOK, Piece.WHITE)
+                        | getPieces(board, Piece.ROOK, Piece.BLACK)
+                        | queens;
+
+        long attackers = KingInCheckDecider.attackersTo(board, toSquare, occupancy);
+        long fromBit = 1L << fromSquare;
+
+        int depth = 0;
+        gains[0] = capturedValue;
+
+        while (fromBit != 0 && depth < MAX_EXCHANGES - 1) {
+            depth++;
+            // the piece that just captured is what the other side can take next
+            gains[depth] = attackerValue - gains[depth - 1];
+
+            // neither side can improve anymore, no matter how the exchange continues
+            if (Math.max(-gains[depth - 1], gains[depth]) < 0) {
+                break;
+            }
+
+            occupancy &= ~fromBit;
+
+            // a piece that left the square might have uncovered a slider behind it
+            attackers |=
+                    (SliderAttacks.getBishopAttacks(toSquare, occupancy) & diagonalSliders)
+                            | (SliderAttacks.getRookAttacks(toSquare, occupancy) & straightSliders);
+            attackers &= occupancy;
+
+            side = Piece.getEnemySide(side);
+            fromBit = 0L;
+            for (byte pieceType : PIECE_TYPES) {
+                long candidates = attackers & getPieces(board, pieceType, side);
+                if (candidates != 0) {
+                    fromBit = Long.lowestOneBit(candidates);
+                    attackerValue = getValue(pieceType);
+                    break;
+                }
+            }
+        }
+
+        // every side only continues the exchange if that is better than stopping
+        while (--depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+        }
+        return gains[0];
+    }
+
+    private static long getPieces(BitBoards board, byte pieceType, byte side) {
+        return board.getBitBoard(Piece.fromValue((byte) (pieceType | side))).value;
+    }
+
+    private static int getValue(byte piece) {
+        return Evaluator.getMaterialValue(Piece.fromValue(piece));
+    }
+}
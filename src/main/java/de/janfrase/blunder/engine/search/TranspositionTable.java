@@ -0,0 +1,192 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.search;
+
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import java.util.Arrays;
+
+/**
+ * A hash table that remembers the results of already searched positions, keyed on their zobrist hash.
+ * <p>
+ * Every entry is packed into two longs of a single primitive array: the full zobrist key and a data long.
+ * The data long is laid out like this (from the least significant bit):
+ * <ul>
+ *     <li>32 bits: the score</li>
+ *     <li>16 bits: the lower 16 bits of the best {@link EncodedMove} (6 bits from, 6 bits to, 4 bits move type)</li>
+ *     <li>8 bits: the remaining depth the score was searched with</li>
+ *     <li>2 bits: the bound type - see {@link #EXACT}, {@link #LOWER_BOUND} and {@link #UPPER_BOUND}</li>
+ *     <li>6 bits: the age, i.e. the search this entry was written in</li>
+ * </ul>
+ * <p>
+ * The table is shared by all search threads without any locking.
+ * To detect entries that got torn by two threads writing at the same time, the key is stored xor-ed with the data.
+ * A torn entry then simply looks like an entry of a different position.
+ * See: <a href="https://www.chessprogramming.org/Shared_Hash_Table#Lockless">Lockless hashing.</a>
+ * <p>
+ * See: <a href="https://www.chessprogramming.org/Transposition_Table">Chess programming wiki.</a>
+ */
+public class TranspositionTable {
+
+    public static final int DEFAULT_SIZE_IN_MB = 64;
+
+    /** The stored score is the exact score of the position. */
+    public static final int EXACT = 1;
+
+    /** The search failed high: the real score is at least the stored score. */
+    public static final int LOWER_BOUND = 2;
+
+    /** The search failed low: the real score is at most the stored score. */
+    public static final int UPPER_BOUND = 3;
+
+    /** Returned by {@link #probe(long)} if nothing is stored. Valid entries never have a bound of 0. */
+    public static final long NO_ENTRY = 0L;
+
+    /** Marks an entry that has no best move, e.g. because the position is checkmate. */
+    private static final int NO_MOVE = EncodedMove.NO_MOVE;
+
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int BYTES_PER_ENTRY = LONGS_PER_ENTRY * Long.BYTES;
+
+    private static final int SCORE_SHIFT = 0;
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int AGE_SHIFT = 58;
+
+    private static final long MOVE_MASK = 0xFFFFL;
+    private static final long DEPTH_MASK = 0xFFL;
+    private static final long BOUND_MASK = 0x3L;
+    private static final long AGE_MASK = 0x3FL;
+
+    private final long[] entries;
+    private final long indexMask;
+    private int age = 0;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_IN_MB);
+    }
+
+    /**
+     * @param sizeInMB The amount of memory the table may use. Rounded down to a power of two number of entries.
+     */
+    public TranspositionTable(int sizeInMB) {
+        long requestedEntries = (long) sizeInMB * 1024 * 1024 / BYTES_PER_ENTRY;
+        int entryCount = Integer.highestOneBit((int) Math.min(requestedEntries, 1 << 28));
+
+        this.entries = new long[entryCount * LONGS_PER_ENTRY];
+        this.indexMask = entryCount - 1;
+    }
+
+    /**
+     * Has to be called once before every new search.
+     * Entries from older searches will then be preferred when something needs to be overwritten.
+     */
+    public void incrementAge() {
+        age = (int) ((age + 1) & AGE_MASK);
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+        age = 0;
+    }
+
+    /**
+     * @param zobristHash The hash of the position we are looking for.
+     * @return The packed data of the entry or {@link #NO_ENTRY} if the position is not stored.
+     */
+    public long probe(long zobristHash) {
+        int index = getIndex(zobristHash);
+
+        long data = entries[index + 1];
+        if ((entries[index] ^ data) != zobristHash) {
+            return NO_ENTRY;
+        }
+
+        return data;
+    }
+
+    /**
+     * Stores the result of a search.
+     * An existing entry of a different position only gets replaced if it is from an older search or was searched less deep.
+     *
+     * @param zobristHash    The hash of the searched position.
+     * @param remainingDepth The depth the position was searched with.
+     * @param bound          One of {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+     * @param score          The score the search returned.
+     * @param bestMove       The best move that was found or {@link EncodedMove#NO_MOVE} if there is none.
+     */
+    public void store(long zobristHash, int remainingDepth, int bound, int score, int bestMove) {
+        int index = getIndex(zobristHash);
+
+        long oldData = entries[index + 1];
+        long oldKey = entries[index] ^ oldData;
+
+        boolean isSamePosition = oldKey == zobristHash;
+        boolean isOutdated = getAge(oldData) != age;
+        boolean isShallower = getDepth(oldData) <= remainingDepth;
+
+        if (oldData != NO_ENTRY && !isSamePosition && !isOutdated && !isShallower) {
+            return;
+        }
+
+        // keep the old best move if we have no new one for the same position
+        int packedMove = packMove(bestMove);
+        if (packedMove == NO_MOVE && isSamePosition) {
+            packedMove = (int) ((oldData >>> MOVE_SHIFT) & MOVE_MASK);
+        }
+
+        long data =
+                (score & 0xFFFFFFFFL) << SCORE_SHIFT
+                        | (packedMove & MOVE_MASK) << MOVE_SHIFT
+                        | (Math.min(remainingDepth, DEPTH_MASK) & DEPTH_MASK) << DEPTH_SHIFT
+                        | (bound & BOUND_MASK) << BOUND_SHIFT
+                        | (age & AGE_MASK) << AGE_SHIFT;
+
+        entries[index] = zobristHash ^ data;
+        entries[index + 1] = data;
+    }
+
+    private int getIndex(long zobristHash) {
+        return (int) (zobristHash & indexMask) * LONGS_PER_ENTRY;
+    }
+
+    // ------------------------------
+    // Entry decoding
+    // ------------------------------
+
+    public static int getScore(long entry) {
+        return (int) (entry >>> SCORE_SHIFT);
+    }
+
+    public static int getDepth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    public static int getBound(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & BOUND_MASK);
+    }
+
+    public static int getAge(long entry) {
+        return (int) ((entry >>> AGE_SHIFT) & AGE_MASK);
+    }
+
+    /**
+     * @return The from, to and move type of the best move or {@link EncodedMove#NO_MOVE} if the entry holds none.
+     *         The captured piece is not stored.
+     */
+    public static int getMove(long entry) {
+        return (int) ((entry >>> MOVE_SHIFT) & MOVE_MASK);
+    }
+
+    /**
+     * @return true if the entry holds a best move, and it is the same as the given move.
+     */
+    public static boolean isBestMove(long entry, int move) {
+        int packedMove = getMove(entry);
+        return packedMove != NO_MOVE && packedMove == packMove(move);
+    }
+
+    private static int packMove(int move) {
+        // the captured piece can be restored from the board, so only from, to and type are stored
+        return (int) (move & MOVE_MASK);
+    }
+}
@@ -2,12 +2,14 @@
 package de.janfrase.blunder.uci;
 
 import de.janfrase.blunder.engine.backend.movegen.Move;
-import de.janfrase.blunder.engine.backend.movegen.MoveGenerator;
 import de.janfrase.blunder.engine.backend.state.game.FenParser;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
+import de.janfrase.blunder.engine.backend.state.game.PolyglotKeys;
 import de.janfrase.blunder.engine.search.SearchLimitations;
 import de.janfrase.blunder.engine.search.SearchManager;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Scanner;
 import java.util.function.Consumer;
@@ -51,12 +53,26 @@ public class UciMessageHandler {
         private static final String OPTION = "option";
     }
 
+    private static class Option {
+        // options the gui can set
+        private static final String THREADS = "Threads";
+        private static final String ASPIRATION_WINDOW = "AspirationWindow";
+        private static final String ASPIRATION_WINDOW_GROWTH = "AspirationWindowGrowth";
+        private static final String POLYGLOT_KEYS = "PolyglotKeys";
+
+        // how guis spell an empty string option
+        private static final String EMPTY = "<empty>";
+    }
+
     public void setMoveConsumer(Consumer<Move> moveConsumer) {
         this.moveConsumer = moveConsumer;
     }
 
     Consumer<Move> moveConsumer = this::defaultSearchIsFinishedConsumer;
 
+    // the position set by the gui, the searches only ever work on copies of it
+    private GameState gameState = new GameState();
+
     private UciMessageHandler() {
         Thread.currentThread().setName("UCI Message Handler Thread");
     }
@@ -92,12 +108,16 @@ public class UciMessageHandler {
 
             switch (commandName) {
                 case IncomingMessage.UCI -> uci();
-                case IncomingMessage.QUIT -> quit = true;
+                case IncomingMessage.QUIT -> {
+                    SearchManager.getInstance().stop();
+                    quit = true;
+                }
                 case IncomingMessage.UCI_NEW_GAME -> uciNewGame();
                 case IncomingMessage.POSITION -> position(arguments);
                 case IncomingMessage.GO -> go(arguments);
                 case IncomingMessage.STOP -> stop();
                 case IncomingMessage.IS_READY -> isReady();
+                case IncomingMessage.SET_OPTION -> setOption(arguments);
             }
         }
     }
@@ -113,11 +133,92 @@ public class UciMessageHandler {
 
     private void uci() {
         sendReply(OutgoingMessage.ID);
+        sendReply(
+                OutgoingMessage.OPTION
+                        + " name "
+                        + Option.THREADS
+                        + " type spin default "
+                        + SearchManager.DEFAULT_THREAD_COUNT
+                        + " min 1 max "
+                        + SearchManager.MAX_THREAD_COUNT);
+        sendReply(
+                OutgoingMessage.OPTION
+                        + " name "
+                        + Option.ASPIRATION_WINDOW
+                        + " type spin default "
+                        + SearchManager.DEFAULT_ASPIRATION_WINDOW
+                        + " min 0 max "
+                        + SearchManager.MAX_ASPIRATION_WINDOW);
+        sendReply(
+                OutgoingMessage.OPTION
+                        + " name "
+                        + Option.ASPIRATION_WINDOW_GROWTH
+                        + " type spin default "
+                        + SearchManager.DEFAULT_ASPIRATION_WINDOW_GROWTH
+                        + " min "
+                        + SearchManager.MIN_ASPIRATION_WINDOW_GROWTH
+                        + " max "
+                        + SearchManager.MAX_ASPIRATION_WINDOW_GROWTH);
+        sendReply(
+                OutgoingMessage.OPTION
+                        + " name "
+                        + Option.POLYGLOT_KEYS
+                        + " type string default "
+                        + Option.EMPTY);
         sendReply(OutgoingMessage.UCI_OK);
     }
 
+    /**
+     * Handles messages like: setoption name Threads value 4
+     */
+    private void setOption(String[] arguments) {
+        int indexOfValueKeyword = Arrays.asList(arguments).indexOf("value");
+        if (arguments.length < 2 || !arguments[0].equals("name") || indexOfValueKeyword == -1) {
+            LOGGER.warn("Could not parse setoption command: {}", Arrays.toString(arguments));
+            return;
+        }
+
+        String name = String.join(" ", Arrays.copyOfRange(arguments, 1, indexOfValueKeyword));
+        String value =
+                String.join(
+                        " ",
+                        Arrays.copyOfRange(arguments, indexOfValueKeyword + 1, arguments.length));
+
+        switch (name) {
+            case Option.THREADS -> SearchManager.getInstance()
+                    .setThreadCount(Integer.parseInt(value));
+            case Option.ASPIRATION_WINDOW -> SearchManager.getInstance()
+                    .setAspirationWindow(Integer.parseInt(value));
+            case Option.ASPIRATION_WINDOW_GROWTH -> SearchManager.getInstance()
+                    .setAspirationWindowGrowth(Integer.parseInt(value));
+            case Option.POLYGLOT_KEYS -> setPolyglotKeys(value);
+            default -> LOGGER.warn("Unknown option: {}", name);
+        }
+    }
+
+    /**
+     * @param path The file with the Polyglot keys, or nothing to go back to our own keys.
+     */
+    private void setPolyglotKeys(String path) {
+        try {
+            if (path.isBlank() || path.equals(Option.EMPTY)) {
+                PolyglotKeys.useOwnKeys();
+            } else {
+                PolyglotKeys.load(Path.of(path));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.error("Could not load the Polyglot keys from {}", path, e);
+            return;
+        }
+
+        // every hash changed, the gui sends the position again before the next search anyway
+        gameState = new GameState();
+        SearchManager.getInstance().clearTranspositionTable();
+    }
+
     private void uciNewGame() {
-        GameState.resetGameState();
+        gameState = new GameState();
+        SearchManager.getInstance().clearTranspositionTable();
         sendReply(OutgoingMessage.READY_OK);
     }
 
@@ -132,20 +233,21 @@ public class UciMessageHandler {
             }
         }
 
-        if (Arrays.asList(arguments).contains("startpos")) FenParser.loadStartingPosition();
-        else {
+        if (Arrays.asList(arguments).contains("startpos")) {
+            gameState = FenParser.loadStartingPosition();
+        } else {
             StringBuilder fenStringBuilder = new StringBuilder();
             for (int i = 1; i < indexOfMovesKeyword; i++) {
                 fenStringBuilder.append(arguments[i]).append(" ");
             }
             String fenString = fenStringBuilder.toString().strip();
-            FenParser.loadFenString(fenString);
+            gameState = FenParser.loadFenString(fenString);
         }
 
         for (int i = indexOfMovesKeyword + 1; i < arguments.length; i++) {
             String moveString = arguments[i];
-            Move move = UciMoveParser.parseUciMove(moveString);
-            GameState.getInstance().makeMove(move);
+            int move = UciMoveParser.parseUciMove(moveString, gameState);
+            gameState.makeMove(move);
         }
 
         LOGGER.info("finished position command");
@@ -194,14 +296,12 @@ public class UciMessageHandler {
 
         LOGGER.info("Starting search with {}", searchLimitations.toString());
 
-        SearchManager.getInstance().go(searchLimitations);
+        SearchManager.getInstance().go(gameState, searchLimitations);
     }
 
-    // TODO: Fix this. Can lead to a bug when stop sends a move and the finished search sends a
-    // move.
+    // the search sends the best move itself once it noticed that it has to stop
     private void stop() {
-        Move move = MoveGenerator.generateLegalMoves().getFirst();
-        sendReply(OutgoingMessage.BEST_MOVE + " " + move.toString());
+        SearchManager.getInstance().stop();
     }
 
     /*
@@ -215,9 +315,11 @@ public class UciMessageHandler {
     // This is what happens usually - it only gets changed for SearchManagerTest.java
     // if you figure out a better way, please implement it
     private void defaultSearchIsFinishedConsumer(Move move) {
+        // there is no move if we are mated or stalemated, uci wants a null move then
+        String bestMove = move == null ? "0000" : move.toString();
         Thread.ofVirtual()
                 .name("UCI Send Thread")
-                .start(() -> sendReply(OutgoingMessage.BEST_MOVE + " " + move));
+                .start(() -> sendReply(OutgoingMessage.BEST_MOVE + " " + bestMove));
     }
 
     // TODO: Refactor this. It would probably be best to have a Search Info Manager that sends
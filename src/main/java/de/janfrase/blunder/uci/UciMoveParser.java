@@ -1,52 +1,52 @@
 /* Made by Jan Frase :) */
 package de.janfrase.blunder.uci;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
 import de.janfrase.blunder.engine.backend.movegen.Move;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
 import de.janfrase.blunder.utility.Constants;
 
 /**
- * This class can turn our moves into UCI notation or get an UCI notation String and turn it into a move record.
+ * This class can turn our moves into UCI notation or get an UCI notation String and turn it into an encoded move.
  */
 public class UciMoveParser {
 
     /**
-     * Parses a move in UCI (Universal Chess Interface) notation into an array of {@link Move} objects.
+     * Parses a move in UCI (Universal Chess Interface) notation into an encoded move.
      * The method analyzes the UCI string to derive the starting position, target position,
      * and any special moves such as castling, promotions, or en passant captures.
      *
      * @param uciMove the UCI notation representation of the move, formatted as a string of four characters
      *                (e.g., "e2e4" for moving a piece from e2 to e4).
-     * @return an array of {@link Move} objects describing the possible moves derived from the given UCI notation.
-     * The array might include one or more moves in the case of ambiguous results (e.g., promotions).
+     * @param gameState the position the move is played in.
+     * @return the move encoded as described in {@link EncodedMove}.
      */
-    public static Move parseUciMove(String uciMove) {
+    public static int parseUciMove(String uciMove, GameState gameState) {
         int fromX = uciMove.charAt(0) - 'a';
         int fromY = Constants.BOARD_SIDE_LENGTH - (uciMove.charAt(1) - '1') - 1;
 
         int toX = uciMove.charAt(2) - 'a';
         int toY = Constants.BOARD_SIDE_LENGTH - (uciMove.charAt(3) - '1') - 1;
 
-        Constants.PieceType movingPieceType =
-                GameState.getInstance().getBitBoards().getPieceAt(fromX, fromY);
+        Piece movingPiece = gameState.getBitBoards().getPieceAt(fromX, fromY);
 
-        Constants.PieceType capturedPieceType =
-                GameState.getInstance().getBitBoards().getPieceAt(toX, toY);
+        Piece capturedPieceType = gameState.getBitBoards().getPieceAt(toX, toY);
 
-        if (movingPieceType == Constants.PieceType.PAWN) {
+        if (movingPiece.getType() == Piece.PAWN) {
             // we are moving 2 squares -> double pawn push
             if (Math.abs(fromY - toY) == 2) {
-                return new Move(fromX, fromY, toX, toY, Move.MoveType.DOUBLE_PAWN_PUSH);
+                return EncodedMove.encode(fromX, fromY, toX, toY, Move.MoveType.DOUBLE_PAWN_PUSH);
             }
             // en passant capture?
-            if (fromX != toX && capturedPieceType == Constants.PieceType.EMPTY) {
-                return new Move(fromX, fromY, toX, toY, Move.MoveType.EP_CAPTURE);
+            if (fromX != toX && capturedPieceType.isEmpty()) {
+                return EncodedMove.encode(fromX, fromY, toX, toY, Move.MoveType.EP_CAPTURE);
             }
 
             // we are promoting!
             if (toY == 0 || toY == Constants.BOARD_SIDE_LENGTH - 1) {
                 return switch (uciMove.charAt(4)) {
-                    case 'q', 'Q' -> new Move(
+                    case 'q', 'Q' -> EncodedMove.encode(
                             fromX,
                             fromY,
                             toX,
@@ -54,7 +54,7 @@ public class UciMoveParser {
                             Move.MoveType.QUEEN_PROMOTION,
                             capturedPieceType);
 
-                    case 'r', 'R' -> new Move(
+                    case 'r', 'R' -> EncodedMove.encode(
                             fromX,
                             fromY,
                             toX,
@@ -62,7 +62,7 @@ public class UciMoveParser {
                             Move.MoveType.ROOK_PROMOTION,
                             capturedPieceType);
 
-                    case 'b', 'B' -> new Move(
+                    case 'b', 'B' -> EncodedMove.encode(
                             fromX,
                             fromY,
                             toX,
@@ -70,7 +70,7 @@ public class UciMoveParser {
                             Move.MoveType.BISHOP_PROMOTION,
                             capturedPieceType);
 
-                    case 'n', 'N' -> new Move(
+                    case 'n', 'N' -> EncodedMove.encode(
                             fromX,
                             fromY,
                             toX,
@@ -84,22 +84,22 @@ public class UciMoveParser {
             }
         }
 
-        if (movingPieceType == Constants.PieceType.KING) {
+        if (movingPiece.getType() == Piece.KING) {
             // we are moving 2 squares -> castle
             if (Math.abs(fromX - toX) == 2) {
                 int dir = fromX - toX;
                 // short castle
                 if (dir > 0) {
-                    return new Move(fromX, fromY, toX, toY, Move.MoveType.LONG_CASTLE);
+                    return EncodedMove.encode(fromX, fromY, toX, toY, Move.MoveType.LONG_CASTLE);
                 } else {
-                    return new Move(fromX, fromY, toX, toY, Move.MoveType.SHORT_CASTLE);
+                    return EncodedMove.encode(fromX, fromY, toX, toY, Move.MoveType.SHORT_CASTLE);
                 }
             }
         }
 
-        if (capturedPieceType != Constants.PieceType.EMPTY) {
-            return new Move(fromX, fromY, toX, toY, capturedPieceType);
+        if (!capturedPieceType.isEmpty()) {
+            return EncodedMove.encode(fromX, fromY, toX, toY, capturedPieceType);
         }
-        return new Move(fromX, fromY, toX, toY);
+        return EncodedMove.encode(fromX, fromY, toX, toY);
     }
 }
@@ -0,0 +1,48 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import org.junit.jupiter.api.Test;
+
+public class EncodedMoveTest {
+
+    @Test
+    void testRoundTrip() {
+        for (Move.MoveType moveType : Move.MoveType.values()) {
+            Move move = new Move(7, 1, 6, 0, moveType, new Piece(Piece.QUEEN, Piece.BLACK));
+            assertEquals(move, EncodedMove.toMove(EncodedMove.fromMove(move)));
+        }
+
+        Move quietMove =
+                new Move(0, 7, 0, 6, Move.MoveType.NORMAL_MOVE, Piece.fromValue(Piece.EMPTY));
+        assertEquals(quietMove, EncodedMove.toMove(EncodedMove.fromMove(quietMove)));
+    }
+
+    @Test
+    void testGetters() {
+        Piece capturedRook = new Piece(Piece.ROOK, Piece.BLACK);
+        int move = EncodedMove.encode(3, 1, 2, 0, Move.MoveType.KNIGHT_PROMOTION, capturedRook);
+
+        assertEquals(3, EncodedMove.getFromX(move));
+        assertEquals(1, EncodedMove.getFromY(move));
+        assertEquals(2, EncodedMove.getToX(move));
+        assertEquals(0, EncodedMove.getToY(move));
+        assertEquals(Move.MoveType.KNIGHT_PROMOTION, EncodedMove.getMoveType(move));
+        assertEquals(Piece.ROOK | Piece.BLACK, EncodedMove.getCapturedPiece(move));
+        assertTrue(EncodedMove.isCapture(move));
+        assertTrue(EncodedMove.isPromotion(move));
+    }
+
+    @Test
+    void testEnPassantIsCapture() {
+        int move = EncodedMove.encode(4, 3, 3, 2, Move.MoveType.EP_CAPTURE);
+
+        assertTrue(EncodedMove.isCapture(move));
+        assertFalse(EncodedMove.isPromotion(move));
+        assertEquals(Piece.EMPTY, EncodedMove.getCapturedPiece(move));
+    }
+}
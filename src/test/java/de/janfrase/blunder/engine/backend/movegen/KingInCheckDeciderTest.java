@@ -3,18 +3,43 @@ package de.janfrase.blunder.engine.backend.movegen;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
 import de.janfrase.blunder.engine.backend.state.game.FenParser;
-import de.janfrase.blunder.utility.Constants;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
 import org.junit.jupiter.api.Test;
 
 class KingInCheckDeciderTest {
 
     @Test
     void isKingUnderAttack() {
-        FenParser.loadFenString("7k/6K1/8/8/8/8/8/8 w - - 0 1");
+        GameState gameState = FenParser.loadFenString("7k/6K1/8/8/8/8/8/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
-        boolean isInCheck = KingInCheckDecider.isKingUnderAttack(Constants.Side.WHITE);
+        boolean isInCheck = KingInCheckDecider.isKingUnderAttack(board, Piece.WHITE);
 
         assertTrue(isInCheck);
     }
+
+    @Test
+    void attackersTo() {
+        GameState gameState = FenParser.loadFenString("7k/b7/8/4p3/8/5N2/3Q4/3R3K w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
+        int d4 = BitBoard.calculateIndex(3, 4);
+
+        // knight, queen, pawn and bishop - the rook is blocked by the queen
+        long attackers = KingInCheckDecider.attackersTo(board, d4, board.getOccupancy());
+        assertEquals(4, Long.bitCount(attackers));
+        assertFalse(new BitBoard(attackers).getBit(3, 7));
+
+        long whiteAttackers =
+                KingInCheckDecider.attackersTo(board, d4, Piece.WHITE, board.getOccupancy());
+        assertEquals(2, Long.bitCount(whiteAttackers));
+
+        // once the queen is gone the rook can see the square
+        long occupancyWithoutQueen = board.getOccupancy() & ~BitBoard.getLongWithBitAtIndex(3, 6);
+        attackers = KingInCheckDecider.attackersTo(board, d4, occupancyWithoutQueen);
+        assertTrue(new BitBoard(attackers).getBit(3, 7));
+    }
 }
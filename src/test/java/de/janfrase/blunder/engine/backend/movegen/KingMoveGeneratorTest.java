@@ -4,40 +4,43 @@ package de.janfrase.blunder.engine.backend.movegen;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
 import de.janfrase.blunder.engine.backend.state.game.FenParser;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
 import de.janfrase.blunder.engine.backend.state.game.StatePrinter;
-import de.janfrase.blunder.utility.Constants;
 import java.util.ArrayList;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 public class KingMoveGeneratorTest {
 
-    private final GameState gameState = GameState.getInstance();
-    private ArrayList<Move> moves = new ArrayList<>();
+    private GameState gameState = new GameState();
+    private MoveList moves = new MoveList();
 
     @AfterEach
     void setUp() {
-        GameState.resetGameState();
-        moves = new ArrayList<>();
+        gameState = new GameState();
+        moves = new MoveList();
     }
 
     @Test
     public void testGenerateMoves_OnlyWhiteKing() {
-        FenParser.loadFenString("8/8/8/8/4K3/8/8/8 w - - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
+        gameState = FenParser.loadFenString("8/8/8/8/4K3/8/8/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
         KingMoveGenerator.generateKingMoves(
                 moves,
                 4,
                 4,
                 board,
-                Constants.Side.WHITE,
-                gameState.getIrreversibleData().castlingRights());
+                Piece.WHITE,
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(8, moves.size(), "White king should have 8 possible moves when not blocked.");
-        for (Move move : moves) {
+        for (Move move : moves.toMoves()) {
             assertEquals(4, move.fromX(), "The White king's starting X position should be 4.");
             assertEquals(4, move.fromY(), "The White king's starting Y position should be 4.");
         }
@@ -45,215 +48,233 @@ public class KingMoveGeneratorTest {
 
     @Test
     public void testGenerateMoves_WhiteKingPartiallyBlocked() {
-        FenParser.loadFenString("8/8/8/8/3PK3/8/8/8 w - - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
+        gameState = FenParser.loadFenString("8/8/8/8/3PK3/8/8/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
         KingMoveGenerator.generateKingMoves(
                 moves,
                 4,
                 4,
                 board,
-                Constants.Side.WHITE,
-                gameState.getIrreversibleData().castlingRights());
+                Piece.WHITE,
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 7, moves.size(), "White king should have 7 possible moves when partially blocked.");
         assertTrue(
-                moves.stream().noneMatch(move -> move.toX() == 3 && move.toY() == 4),
+                moves.toMoves().stream().noneMatch(move -> move.toX() == 3 && move.toY() == 4),
                 "King should not move to the square occupied by friendly pieces (3, 4).");
     }
 
     @Test
     public void testGenerateMoves_WhiteKingCapturingEnemyPawn() {
-        FenParser.loadFenString("8/8/8/8/4K3/5p2/8/8 w - - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
+        gameState = FenParser.loadFenString("8/8/8/8/4K3/5p2/8/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
         KingMoveGenerator.generateKingMoves(
                 moves,
                 4,
                 4,
                 board,
-                Constants.Side.WHITE,
-                gameState.getIrreversibleData().castlingRights());
+                Piece.WHITE,
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 8, moves.size(), "White king should have 8 possible moves, including one capture.");
         assertTrue(
-                moves.stream().anyMatch(move -> move.toX() == 5 && move.toY() == 5),
+                moves.toMoves().stream().anyMatch(move -> move.toX() == 5 && move.toY() == 5),
                 "King should be able to capture the enemy piece at (5, 5).");
         assertTrue(
-                moves.stream()
-                        .anyMatch(move -> move.capturedPieceType() == Constants.PieceType.PAWN),
+                moves.toMoves().stream()
+                        .anyMatch(move -> move.capturedPieceType().getType() == Piece.PAWN),
                 "King should be able to capture the enemy piece at (5, 5).");
     }
 
     @Test
     public void testGenerateMoves_WhiteCastleRights() {
-        FenParser.loadFenString("8/8/8/8/8/8/8/R3K2R w KQ - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
+        gameState = FenParser.loadFenString("8/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
         KingMoveGenerator.generateKingMoves(
                 moves,
                 4,
                 7,
                 board,
-                Constants.Side.WHITE,
-                gameState.getIrreversibleData().castlingRights());
+                Piece.WHITE,
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 7,
                 moves.size(),
                 "White king should have 10 possible moves, including two castles.");
         assertTrue(
-                moves.stream().anyMatch(move -> move.moveType() == Move.MoveType.SHORT_CASTLE),
+                moves.toMoves().stream()
+                        .anyMatch(move -> move.moveType() == Move.MoveType.SHORT_CASTLE),
                 "White king should be able to perform short castling.");
         assertTrue(
-                moves.stream().anyMatch(move -> move.moveType() == Move.MoveType.LONG_CASTLE),
+                moves.toMoves().stream()
+                        .anyMatch(move -> move.moveType() == Move.MoveType.LONG_CASTLE),
                 "White king should be able to perform long castling.");
     }
 
     @Test
     public void testGenerateMoves_BlockingCastlePath() {
-        FenParser.loadFenString("8/8/8/8/8/8/8/R3KQ1R w KQ - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
+        gameState = FenParser.loadFenString("8/8/8/8/8/8/8/R3KQ1R w KQ - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
         KingMoveGenerator.generateKingMoves(
                 moves,
                 4,
                 7,
                 board,
-                Constants.Side.WHITE,
-                gameState.getIrreversibleData().castlingRights());
+                Piece.WHITE,
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 5, moves.size(), "White king should have 5 possible moves, including one castle.");
         assertTrue(
-                moves.stream().noneMatch(move -> move.moveType() == Move.MoveType.SHORT_CASTLE),
+                moves.toMoves().stream()
+                        .noneMatch(move -> move.moveType() == Move.MoveType.SHORT_CASTLE),
                 "White king should not be able to perform short castling when path is blocked.");
     }
 
     @Test
     public void testGeneratesMoves_ExecuteLongCastle() {
-        FenParser.loadFenString("8/8/8/8/8/8/3PPP2/R3KP1R w KQ - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
+        gameState = FenParser.loadFenString("8/8/8/8/8/8/3PPP2/R3KP1R w KQ - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
         KingMoveGenerator.generateKingMoves(
                 moves,
                 4,
                 7,
                 board,
-                Constants.Side.WHITE,
-                gameState.getIrreversibleData().castlingRights());
+                Piece.WHITE,
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 2, moves.size(), "White king should have 2 possible moves, including one castle.");
         assertTrue(
-                moves.stream().anyMatch(move -> move.moveType() == Move.MoveType.LONG_CASTLE),
+                moves.toMoves().stream()
+                        .anyMatch(move -> move.moveType() == Move.MoveType.LONG_CASTLE),
                 "White king should be able to perform long castling.");
 
         Move longCastleMove =
-                moves.stream()
+                moves.toMoves().stream()
                         .filter(move -> move.moveType() == Move.MoveType.LONG_CASTLE)
                         .findFirst()
                         .orElseThrow();
         gameState.makeMove(longCastleMove);
 
-        StatePrinter.stateToString();
+        StatePrinter.stateToString(gameState);
 
         // Verify king's new position
         assertEquals(
-                Constants.PieceType.KING,
-                board.getPieceAt(2, 7),
+                Piece.KING,
+                board.getPieceAt(2, 7).getType(),
                 "King should be at c1 after long castle");
         assertEquals(
-                Constants.Side.WHITE,
-                board.getSideAt(2, 7),
+                Piece.WHITE,
+                board.getPieceAt(2, 7).getSide(),
                 "White king should be at c1 after long castle");
 
         // Verify rook's new position
         assertEquals(
-                Constants.PieceType.ROOK,
-                board.getPieceAt(3, 7),
+                Piece.ROOK,
+                board.getPieceAt(3, 7).getType(),
                 "Rook should be at d1 after long castle");
         assertEquals(
-                Constants.Side.WHITE,
-                board.getSideAt(3, 7),
+                Piece.WHITE,
+                board.getPieceAt(3, 7).getSide(),
                 "White rook should be at d1 after long castle");
 
         // Verify old positions are empty
         assertEquals(
-                Constants.PieceType.EMPTY,
-                board.getPieceAt(0, 7),
+                Piece.EMPTY,
+                board.getPieceAt(0, 7).getType(),
                 "Original rook position should be empty");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                board.getPieceAt(4, 7),
+                Piece.EMPTY,
+                board.getPieceAt(4, 7).getType(),
                 "Original king position should be empty");
     }
 
     @Test
     public void testGeneratesMoves_ExecuteShortCastle() {
-        FenParser.loadFenString("8/8/8/8/8/8/3PPP2/R2PK2R w KQ - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
+        gameState = FenParser.loadFenString("8/8/8/8/8/8/3PPP2/R2PK2R w KQ - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
         KingMoveGenerator.generateKingMoves(
                 moves,
                 4,
                 7,
                 board,
-                Constants.Side.WHITE,
-                gameState.getIrreversibleData().castlingRights());
+                Piece.WHITE,
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 2, moves.size(), "White king should have 2 possible moves, including one castle.");
         assertTrue(
-                moves.stream().anyMatch(move -> move.moveType() == Move.MoveType.SHORT_CASTLE),
+                moves.toMoves().stream()
+                        .anyMatch(move -> move.moveType() == Move.MoveType.SHORT_CASTLE),
                 "White king should be able to perform short castling.");
 
         Move longCastleMove =
-                moves.stream()
+                moves.toMoves().stream()
                         .filter(move -> move.moveType() == Move.MoveType.SHORT_CASTLE)
                         .findFirst()
                         .orElseThrow();
         gameState.makeMove(longCastleMove);
 
-        StatePrinter.stateToString();
+        StatePrinter.stateToString(gameState);
 
         // Verify king's new position
         assertEquals(
-                Constants.PieceType.KING,
-                board.getPieceAt(6, 7),
+                Piece.KING,
+                board.getPieceAt(6, 7).getType(),
                 "King should be at g1 after short castle");
         assertEquals(
-                Constants.Side.WHITE,
-                board.getSideAt(6, 7),
+                Piece.WHITE,
+                board.getPieceAt(6, 7).getSide(),
                 "White king should be at g1 after short castle");
 
         // Verify rook's new position
         assertEquals(
-                Constants.PieceType.ROOK,
-                board.getPieceAt(5, 7),
+                Piece.ROOK,
+                board.getPieceAt(5, 7).getType(),
                 "Rook should be at f1 after short castle");
         assertEquals(
-                Constants.Side.WHITE,
-                board.getSideAt(5, 7),
+                Piece.WHITE,
+                board.getPieceAt(5, 7).getSide(),
                 "White rook should be at f1 after short castle");
 
         // Verify old positions are empty
         assertEquals(
-                Constants.PieceType.EMPTY,
-                board.getPieceAt(7, 7),
+                Piece.EMPTY,
+                board.getPieceAt(7, 7).getType(),
                 "Original rook position should be empty");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                board.getPieceAt(4, 7),
+                Piece.EMPTY,
+                board.getPieceAt(4, 7).getType(),
                 "Original king position should be empty");
     }
 
     @Test
     void testLongCastleAttackedByKnight() {
-        FenParser.loadFenString(
-                "r3k2r/p1ppqpb1/bnN1pnp1/3P4/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1");
+        gameState =
+                FenParser.loadFenString(
+                        "r3k2r/p1ppqpb1/bnN1pnp1/3P4/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1");
 
         KingMoveGenerator.generateKingMoves(
                 moves,
@@ -261,26 +282,30 @@ public class KingMoveGeneratorTest {
                 0,
                 gameState.getBitBoards(),
                 gameState.getFriendlySide(),
-                gameState.getIrreversibleData().castlingRights());
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 3, moves.size(), "White king should have 3 possible moves, including one castle.");
         assertEquals(
                 1,
-                moves.stream()
+                moves.toMoves().stream()
                         .filter(move -> move.moveType() == Move.MoveType.SHORT_CASTLE)
                         .count(),
                 "White king can short castle.");
         assertEquals(
                 2,
-                moves.stream().filter(move -> move.moveType() == Move.MoveType.NORMAL_MOVE).count(),
+                moves.toMoves().stream()
+                        .filter(move -> move.moveType() == Move.MoveType.NORMAL_MOVE).count(),
                 "White king move in two directions.");
     }
 
     @Test
     void testLongCastleAttackedByKnight2() {
-        FenParser.loadFenString(
-                "r3k2r/p1pNqpb1/bn2pnp1/3P4/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1");
+        gameState =
+                FenParser.loadFenString(
+                        "r3k2r/p1pNqpb1/bn2pnp1/3P4/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1");
 
         KingMoveGenerator.generateKingMoves(
                 moves,
@@ -288,24 +313,29 @@ public class KingMoveGeneratorTest {
                 0,
                 gameState.getBitBoards(),
                 gameState.getFriendlySide(),
-                gameState.getIrreversibleData().castlingRights());
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 4, moves.size(), "White king should have 4 possible moves, including one castle.");
         assertEquals(
                 1,
-                moves.stream().filter(move -> move.moveType() == Move.MoveType.LONG_CASTLE).count(),
+                moves.toMoves().stream()
+                        .filter(move -> move.moveType() == Move.MoveType.LONG_CASTLE).count(),
                 "White king can long castle.");
         assertEquals(
                 3,
-                moves.stream().filter(move -> move.moveType() == Move.MoveType.NORMAL_MOVE).count(),
+                moves.toMoves().stream()
+                        .filter(move -> move.moveType() == Move.MoveType.NORMAL_MOVE).count(),
                 "White king move in two directions.");
     }
 
     @Test
     void testShortCastleAttackedByBishop() {
-        FenParser.loadFenString(
-                "r3k2r/Pppp1ppp/1b3nb1/nPB2N2/B1P1P3/5N2/qp1P2PP/R2Q1RK1 b kq - 1 2");
+        gameState =
+                FenParser.loadFenString(
+                        "r3k2r/Pppp1ppp/1b3nb1/nPB2N2/B1P1P3/5N2/qp1P2PP/R2Q1RK1 b kq - 1 2");
 
         KingMoveGenerator.generateKingMoves(
                 moves,
@@ -313,7 +343,9 @@ public class KingMoveGeneratorTest {
                 0,
                 gameState.getBitBoards(),
                 gameState.getFriendlySide(),
-                gameState.getIrreversibleData().castlingRights());
+                gameState.getEncodedIrreversibleData(),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(
                 4, moves.size(), "Black king should have 4 possible moves, including one castle.");
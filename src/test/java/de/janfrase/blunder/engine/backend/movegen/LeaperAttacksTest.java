@@ -0,0 +1,50 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+import org.junit.jupiter.api.Test;
+
+public class LeaperAttacksTest {
+
+    @Test
+    void testKnightAttacks() {
+        assertEquals(
+                2, Long.bitCount(LeaperAttacks.getKnightAttacks(BitBoard.calculateIndex(0, 0))));
+        assertEquals(
+                8, Long.bitCount(LeaperAttacks.getKnightAttacks(BitBoard.calculateIndex(3, 3))));
+
+        BitBoard expected = new BitBoard();
+        expected.setBit(5, 6);
+        expected.setBit(6, 5);
+        assertEquals(
+                expected.value, LeaperAttacks.getKnightAttacks(BitBoard.calculateIndex(7, 7)));
+    }
+
+    @Test
+    void testKingAttacks() {
+        assertEquals(
+                3, Long.bitCount(LeaperAttacks.getKingAttacks(BitBoard.calculateIndex(7, 0))));
+        assertEquals(
+                5, Long.bitCount(LeaperAttacks.getKingAttacks(BitBoard.calculateIndex(4, 7))));
+        assertEquals(
+                8, Long.bitCount(LeaperAttacks.getKingAttacks(BitBoard.calculateIndex(4, 4))));
+    }
+
+    @Test
+    void testPawnAttacks() {
+        int square = BitBoard.calculateIndex(0, 4);
+
+        // white pawns attack upwards
+        BitBoard expectedWhite = new BitBoard();
+        expectedWhite.setBit(1, 3);
+        assertEquals(expectedWhite.value, LeaperAttacks.getPawnAttacks(square, Piece.WHITE));
+
+        // black pawns attack downwards
+        BitBoard expectedBlack = new BitBoard();
+        expectedBlack.setBit(1, 5);
+        assertEquals(expectedBlack.value, LeaperAttacks.getPawnAttacks(square, Piece.BLACK));
+    }
+}
@@ -0,0 +1,101 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.janfrase.blunder.engine.backend.state.game.FenParser;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class LegalityMasksTest {
+
+    @Test
+    void testPinnedPieceCanNotLeaveTheLine() {
+        // the bishop on e2 is pinned by the rook on e8
+        List<String> moves = generateLegalMoves("4r3/8/8/8/8/8/4B3/4K3 w - - 0 1");
+
+        assertEquals(4, moves.size());
+        for (String move : moves) {
+            assertTrue(move.startsWith("e1"), move);
+        }
+    }
+
+    @Test
+    void testPinnedPieceCanMoveAlongTheLine() {
+        // the rook on e2 is pinned as well, but can move towards the pinning rook and capture it
+        List<String> moves = generateLegalMoves("4r3/8/8/8/8/8/4R3/4K3 w - - 0 1");
+
+        assertTrue(moves.contains("e2e3"));
+        assertTrue(moves.contains("e2e8"));
+        assertFalse(moves.contains("e2d2"));
+        assertEquals(6 + 4, moves.size());
+    }
+
+    @Test
+    void testSingleCheckHasToBeResolved() {
+        // the knight can only block and the king can not step back along the rank
+        List<String> moves = generateLegalMoves("4k3/8/8/8/8/8/3N4/r3K3 w - - 0 1");
+
+        assertEquals(sorted(List.of("e1e2", "e1f2", "d2b1")), sorted(moves));
+    }
+
+    @Test
+    void testDoubleCheckOnlyAllowsKingMoves() {
+        // the rook on h1 could capture nothing and castling out of check is not allowed
+        List<String> moves = generateLegalMoves("4k3/8/8/8/8/5n2/8/r3K2R w K - 0 1");
+
+        assertEquals(List.of("e1e2", "e1f2"), sorted(moves));
+    }
+
+    @Test
+    void testEnPassantCanNotUncoverCheckAlongTheRank() {
+        // taking on d6 would remove both pawns between the king and the rook
+        List<String> moves = generateLegalMoves("8/8/8/K2pP2r/8/8/8/7k w - d6 0 1");
+
+        assertFalse(moves.contains("e5d6"));
+        assertTrue(moves.contains("e5e6"));
+    }
+
+    @Test
+    void testEnPassantCanCaptureTheCheckingPawn() {
+        // the pawn on d5 just double pushed and gives check
+        List<String> moves = generateLegalMoves("8/8/8/3pP3/4K3/8/8/7k w - d6 0 1");
+
+        assertTrue(moves.contains("e5d6"));
+        assertFalse(moves.contains("e5e6"));
+    }
+
+    @Test
+    void testIsInCheck() {
+        LegalityMasks legalityMasks = new LegalityMasks();
+
+        legalityMasks.compute(FenParser.loadFenString("4k3/8/8/8/8/8/3N4/r3K3 w - - 0 1"));
+        assertTrue(legalityMasks.isInCheck());
+
+        legalityMasks.compute(FenParser.loadFenString("4r3/8/8/8/8/8/4B3/4K3 w - - 0 1"));
+        assertFalse(legalityMasks.isInCheck());
+    }
+
+    @Test
+    void testPinnedPieceCanNotBlockACheck() {
+        // the bishop on d2 could block on c1, but it is pinned by the queen on a5
+        List<String> moves = generateLegalMoves("4k3/8/8/q7/8/8/3B4/r3K3 w - - 0 1");
+
+        assertEquals(List.of("e1e2", "e1f2"), sorted(moves));
+    }
+
+    private static List<String> generateLegalMoves(String fenString) {
+        ArrayList<String> moves = new ArrayList<>();
+        for (Move move : MoveGenerator.generateLegalMoves(FenParser.loadFenString(fenString))) {
+            moves.add(move.toString());
+        }
+        return moves;
+    }
+
+    private static List<String> sorted(List<String> moves) {
+        return moves.stream().sorted().toList();
+    }
+}
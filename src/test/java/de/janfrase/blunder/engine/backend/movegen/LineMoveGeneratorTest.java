@@ -4,174 +4,230 @@ package de.janfrase.blunder.engine.backend.movegen;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
 import de.janfrase.blunder.engine.backend.state.game.FenParser;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
-import de.janfrase.blunder.utility.Constants;
 import java.util.ArrayList;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 public class LineMoveGeneratorTest {
 
-    private final GameState gameState = GameState.getInstance();
-    private ArrayList<Move> moves = new ArrayList<>();
+    private GameState gameState = new GameState();
+    private MoveList moves = new MoveList();
 
     @AfterEach
     void setUp() {
-        GameState.resetGameState();
-        moves = new ArrayList<>();
+        gameState = new GameState();
+        moves = new MoveList();
     }
 
     @Test
     void testDiagonalMovementAllDirections() {
-        BoardRepresentation board = gameState.getBitBoards();
-        board.setPieceAt(3, 3, Constants.PieceType.BISHOP, Constants.Side.WHITE);
-
-        LineMoveGenerator.generateDiagonalMoves(moves, 3, 3, board, Constants.Side.WHITE);
+        BitBoards board = gameState.getBitBoards();
+        board.setPieceAt(3, 3, new Piece(Piece.BISHOP, Piece.WHITE));
+
+        LineMoveGenerator.generateDiagonalMoves(
+                moves,
+                3,
+                3,
+                board,
+                Piece.WHITE,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(13, moves.size());
-        assertTrue(moves.contains(new Move(3, 3, 4, 4)));
-        assertTrue(moves.contains(new Move(3, 3, 5, 5)));
-        assertTrue(moves.contains(new Move(3, 3, 6, 6)));
-        assertTrue(moves.contains(new Move(3, 3, 7, 7)));
-        assertTrue(moves.contains(new Move(3, 3, 2, 2)));
-        assertTrue(moves.contains(new Move(3, 3, 1, 1)));
-        assertTrue(moves.contains(new Move(3, 3, 0, 0)));
-        assertTrue(moves.contains(new Move(3, 3, 4, 2)));
-        assertTrue(moves.contains(new Move(3, 3, 5, 1)));
-        assertTrue(moves.contains(new Move(3, 3, 6, 0)));
-        assertTrue(moves.contains(new Move(3, 3, 2, 4)));
-        assertTrue(moves.contains(new Move(3, 3, 1, 5)));
-        assertTrue(moves.contains(new Move(3, 3, 0, 6)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 4, 4)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 5, 5)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 6, 6)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 7, 7)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 2, 2)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 1, 1)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 0, 0)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 4, 2)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 5, 1)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 6, 0)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 2, 4)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 1, 5)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 0, 6)));
     }
 
     @Test
     void testDiagonalBlockedByFriendlyPieces() {
-        BoardRepresentation board = gameState.getBitBoards();
-        board.setPieceAt(3, 3, Constants.PieceType.BISHOP, Constants.Side.WHITE);
-        board.setPieceAt(4, 4, Constants.PieceType.PAWN, Constants.Side.WHITE);
-        board.setPieceAt(2, 2, Constants.PieceType.PAWN, Constants.Side.WHITE);
-
-        LineMoveGenerator.generateDiagonalMoves(moves, 3, 3, board, Constants.Side.WHITE);
+        BitBoards board = gameState.getBitBoards();
+        board.setPieceAt(3, 3, new Piece(Piece.BISHOP, Piece.WHITE));
+        board.setPieceAt(4, 4, new Piece(Piece.PAWN, Piece.WHITE));
+        board.setPieceAt(2, 2, new Piece(Piece.PAWN, Piece.WHITE));
+
+        LineMoveGenerator.generateDiagonalMoves(
+                moves,
+                3,
+                3,
+                board,
+                Piece.WHITE,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(6, moves.size());
-        assertTrue(moves.contains(new Move(3, 3, 4, 2)));
-        assertTrue(moves.contains(new Move(3, 3, 5, 1)));
-        assertTrue(moves.contains(new Move(3, 3, 6, 0)));
-        assertTrue(moves.contains(new Move(3, 3, 2, 4)));
-        assertTrue(moves.contains(new Move(3, 3, 1, 5)));
-        assertTrue(moves.contains(new Move(3, 3, 0, 6)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 4, 2)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 5, 1)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 6, 0)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 2, 4)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 1, 5)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 0, 6)));
     }
 
     @Test
     void testDiagonalCapturingEnemyPieces() {
-        FenParser.loadFenString("8/1n6/8/3B4/8/5p2/8/8 w - - 0 1");
+        gameState = FenParser.loadFenString("8/1n6/8/3B4/8/5p2/8/8 w - - 0 1");
 
-        BoardRepresentation board = gameState.getBitBoards();
+        BitBoards board = gameState.getBitBoards();
 
-        LineMoveGenerator.generateDiagonalMoves(moves, 3, 3, board, Constants.Side.WHITE);
+        LineMoveGenerator.generateDiagonalMoves(
+                moves,
+                3,
+                3,
+                board,
+                Piece.WHITE,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
-        assertTrue(moves.contains(new Move(3, 3, 5, 5, Constants.PieceType.PAWN)));
-        assertTrue(moves.contains(new Move(3, 3, 1, 1, Constants.PieceType.KNIGHT)));
+        assertTrue(
+                moves.contains(EncodedMove.encode(3, 3, 5, 5, new Piece(Piece.PAWN, Piece.BLACK))));
+        assertTrue(
+                moves.contains(
+                        EncodedMove.encode(3, 3, 1, 1, new Piece(Piece.KNIGHT, Piece.BLACK))));
 
         // Execute capture move and verify board state
         Move captureMove =
-                moves.stream()
-                        .filter(move -> move.capturedPieceType() == Constants.PieceType.PAWN)
+                moves.toMoves().stream()
+                        .filter(move -> move.capturedPieceType().getType() == Piece.PAWN)
                         .findFirst()
                         .orElseThrow();
         gameState.makeMove(captureMove);
-        assertEquals(Constants.PieceType.BISHOP, board.getPieceAt(5, 5));
-        assertEquals(Constants.Side.WHITE, board.getSideAt(5, 5));
-        assertEquals(Constants.PieceType.EMPTY, board.getPieceAt(3, 3));
+        assertEquals(Piece.BISHOP, board.getPieceAt(5, 5).getType());
+        assertEquals(Piece.WHITE, board.getPieceAt(5, 5).getSide());
+        assertEquals(Piece.EMPTY, board.getPieceAt(3, 3).getType());
     }
 
     @Test
     void testStraightMovementAllDirections() {
-        BoardRepresentation board = gameState.getBitBoards();
-        board.setPieceAt(3, 3, Constants.PieceType.ROOK, Constants.Side.WHITE);
-
-        LineMoveGenerator.generateStraightMoves(moves, 3, 3, board, Constants.Side.WHITE);
+        BitBoards board = gameState.getBitBoards();
+        board.setPieceAt(3, 3, new Piece(Piece.ROOK, Piece.WHITE));
+
+        LineMoveGenerator.generateStraightMoves(
+                moves,
+                3,
+                3,
+                board,
+                Piece.WHITE,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(14, moves.size());
-        assertTrue(moves.contains(new Move(3, 3, 3, 4)));
-        assertTrue(moves.contains(new Move(3, 3, 3, 5)));
-        assertTrue(moves.contains(new Move(3, 3, 3, 6)));
-        assertTrue(moves.contains(new Move(3, 3, 3, 7)));
-        assertTrue(moves.contains(new Move(3, 3, 3, 2)));
-        assertTrue(moves.contains(new Move(3, 3, 3, 1)));
-        assertTrue(moves.contains(new Move(3, 3, 3, 0)));
-        assertTrue(moves.contains(new Move(3, 3, 4, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 5, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 6, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 7, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 2, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 1, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 0, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 3, 4)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 3, 5)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 3, 6)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 3, 7)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 3, 2)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 3, 1)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 3, 0)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 4, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 5, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 6, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 7, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 2, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 1, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 0, 3)));
     }
 
     @Test
     void testStraightBlockedByFriendlyPieces() {
-        BoardRepresentation board = gameState.getBitBoards();
-        board.setPieceAt(3, 3, Constants.PieceType.ROOK, Constants.Side.WHITE);
-        board.setPieceAt(3, 4, Constants.PieceType.PAWN, Constants.Side.WHITE);
-        board.setPieceAt(3, 2, Constants.PieceType.PAWN, Constants.Side.WHITE);
-
-        LineMoveGenerator.generateStraightMoves(moves, 3, 3, board, Constants.Side.WHITE);
+        BitBoards board = gameState.getBitBoards();
+        board.setPieceAt(3, 3, new Piece(Piece.ROOK, Piece.WHITE));
+        board.setPieceAt(3, 4, new Piece(Piece.PAWN, Piece.WHITE));
+        board.setPieceAt(3, 2, new Piece(Piece.PAWN, Piece.WHITE));
+
+        LineMoveGenerator.generateStraightMoves(
+                moves,
+                3,
+                3,
+                board,
+                Piece.WHITE,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(7, moves.size());
-        assertTrue(moves.contains(new Move(3, 3, 4, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 5, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 6, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 7, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 2, 3)));
-        assertTrue(moves.contains(new Move(3, 3, 1, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 4, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 5, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 6, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 7, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 2, 3)));
+        assertTrue(moves.contains(EncodedMove.encode(3, 3, 1, 3)));
     }
 
     @Test
     void testStraightCapturingEnemyPieces() {
-        FenParser.loadFenString("8/8/8/1n1R4/8/3p4/8/8 w - - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
-
-        LineMoveGenerator.generateStraightMoves(moves, 3, 3, board, Constants.Side.WHITE);
-
-        assertTrue(moves.contains(new Move(3, 3, 3, 5, Constants.PieceType.PAWN)));
-        assertTrue(moves.contains(new Move(3, 3, 1, 3, Constants.PieceType.KNIGHT)));
+        gameState = FenParser.loadFenString("8/8/8/1n1R4/8/3p4/8/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
+
+        LineMoveGenerator.generateStraightMoves(
+                moves,
+                3,
+                3,
+                board,
+                Piece.WHITE,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
+
+        assertTrue(
+                moves.contains(EncodedMove.encode(3, 3, 3, 5, new Piece(Piece.PAWN, Piece.BLACK))));
+        assertTrue(
+                moves.contains(
+                        EncodedMove.encode(3, 3, 1, 3, new Piece(Piece.KNIGHT, Piece.BLACK))));
 
         // Execute capture move and verify board state
         Move capturePawnMove =
-                moves.stream()
-                        .filter(move -> move.capturedPieceType() == Constants.PieceType.PAWN)
+                moves.toMoves().stream()
+                        .filter(move -> move.capturedPieceType().getType() == Piece.PAWN)
                         .findFirst()
                         .orElseThrow();
         gameState.makeMove(capturePawnMove);
-        assertEquals(Constants.PieceType.ROOK, board.getPieceAt(3, 5));
-        assertEquals(Constants.Side.WHITE, board.getSideAt(3, 5));
-        assertEquals(Constants.PieceType.EMPTY, board.getPieceAt(3, 3));
+        assertEquals(Piece.ROOK, board.getPieceAt(3, 5).getType());
+        assertEquals(Piece.WHITE, board.getPieceAt(3, 5).getSide());
+        assertEquals(Piece.EMPTY, board.getPieceAt(3, 3).getType());
     }
 
     @Test
     void testPosition3Part() {
-        FenParser.loadFenString("8/2p5/3p4/KP5r/2R2p1k/8/4P1P1/8 w - - 0 1");
-        BoardRepresentation board = gameState.getBitBoards();
-
-        LineMoveGenerator.generateStraightMoves(moves, 7, 3, board, Constants.Side.BLACK);
+        gameState = FenParser.loadFenString("8/2p5/3p4/KP5r/2R2p1k/8/4P1P1/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
+
+        LineMoveGenerator.generateStraightMoves(
+                moves,
+                7,
+                3,
+                board,
+                Piece.BLACK,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(9, moves.size());
         assertEquals(
                 8,
-                moves.stream()
-                        .filter(move -> move.capturedPieceType() == Constants.PieceType.EMPTY)
+                moves.toMoves().stream()
+                        .filter(move -> move.capturedPieceType().getType() == Piece.EMPTY)
                         .count());
         assertEquals(
                 1,
-                moves.stream()
-                        .filter(move -> move.capturedPieceType() == Constants.PieceType.PAWN)
+                moves.toMoves().stream()
+                        .filter(move -> move.capturedPieceType().getType() == Piece.PAWN)
                         .count());
         assertEquals(
                 0,
-                moves.stream()
-                        .filter(move -> move.capturedPieceType() == Constants.PieceType.KING)
+                moves.toMoves().stream()
+                        .filter(move -> move.capturedPieceType().getType() == Piece.KING)
                         .count());
     }
 }
@@ -0,0 +1,116 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import de.janfrase.blunder.engine.backend.movegen.MoveGenerator.MoveSelection;
+import de.janfrase.blunder.engine.backend.state.game.FenParser;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class MoveGeneratorTest {
+
+    @Test
+    void testCapturesWithEnPassant() {
+        // the pawn on e5 can take f6 en passant
+        assertSelectionsSplitAllMoves(
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        // taking on d6 would uncover the rook on h5, only the king can capture
+        assertSelectionsSplitAllMoves("8/8/1n6/K2pP2r/8/8/8/7k w - d6 0 1");
+        // the pawn that just double pushed gives check and can be taken en passant
+        assertSelectionsSplitAllMoves("8/8/8/3pP3/4K3/8/8/7k w - d6 0 1");
+    }
+
+    @Test
+    void testCapturesWithPromotions() {
+        // quiet promotions and promotions that capture
+        assertSelectionsSplitAllMoves("1r5k/P7/8/8/8/8/8/K7 w - - 0 1");
+        assertSelectionsSplitAllMoves(
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 b kq - 0 1");
+        assertSelectionsSplitAllMoves("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8");
+        // capturing the checking rook with a promotion is the only way out besides moving the king
+        assertSelectionsSplitAllMoves("3rk3/2P5/8/8/8/8/8/3K4 w - - 0 1");
+    }
+
+    @Test
+    void testCapturesWithUnderPromotions() {
+        List<String> captures =
+                generateMoves("3rk3/2P5/8/8/8/8/8/3K4 w - - 0 1", MoveSelection.CAPTURES);
+
+        // every promotion piece has to be generated, not just the queen
+        for (String promotion : List.of("c7d8q", "c7d8r", "c7d8b", "c7d8n")) {
+            assertEquals(1, captures.stream().filter(promotion::equalsIgnoreCase).count());
+        }
+    }
+
+    @Test
+    void testCapturesWithPins() {
+        // the rook is pinned, but can take the pinning rook
+        assertSelectionsSplitAllMoves("4r3/8/8/8/8/8/4R3/4K3 w - - 0 1");
+        // the pawn is pinned diagonally and can only take the pinning bishop
+        assertSelectionsSplitAllMoves("4k3/8/8/8/1b6/2P5/8/4K3 w - - 0 1");
+        // the pinned pawn could take on d8 and promote, but must not leave the file
+        assertSelectionsSplitAllMoves("2rr4/2P2N2/8/8/8/8/8/2K4k w - - 0 1");
+        // kiwipete, lots of captures and a pinned knight
+        assertSelectionsSplitAllMoves(
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+    }
+
+    @Test
+    void testCapturesWhileInCheck() {
+        // the bishop on d2 is pinned, only the knight can take the checking rook
+        assertSelectionsSplitAllMoves("4k3/8/8/q7/8/8/2NB4/r3K3 w - - 0 1");
+        // double check, only the king may capture
+        assertSelectionsSplitAllMoves("4k3/8/8/8/8/5n2/4r3/4K2R w K - 0 1");
+    }
+
+    /**
+     * The captures have to be exactly the legal moves that capture or promote and the quiet moves the rest.
+     */
+    private static void assertSelectionsSplitAllMoves(String fenString) {
+        GameState gameState = FenParser.loadFenString(fenString);
+        List<String> expectedCaptures = new ArrayList<>();
+        List<String> expectedQuiets = new ArrayList<>();
+
+        MoveList allMoves = new MoveList();
+        MoveGenerator.generateLegalMoves(gameState, allMoves);
+        for (int i = 0; i < allMoves.size(); i++) {
+            int move = allMoves.get(i);
+            if (EncodedMove.isCapture(move) || EncodedMove.isPromotion(move)) {
+                expectedCaptures.add(EncodedMove.toMove(move).toString());
+            } else {
+                expectedQuiets.add(EncodedMove.toMove(move).toString());
+            }
+        }
+
+        // otherwise the position does not test anything
+        assertFalse(expectedCaptures.isEmpty(), fenString);
+
+        assertEquals(
+                sorted(expectedCaptures), sorted(generateMoves(fenString, MoveSelection.CAPTURES)));
+        assertEquals(
+                sorted(expectedQuiets), sorted(generateMoves(fenString, MoveSelection.QUIETS)));
+    }
+
+    private static List<String> generateMoves(String fenString, MoveSelection selection) {
+        GameState gameState = FenParser.loadFenString(fenString);
+        LegalityMasks legalityMasks = new LegalityMasks();
+        legalityMasks.compute(gameState);
+
+        MoveList moveList = new MoveList();
+        MoveGenerator.generateLegalMoves(gameState, legalityMasks, moveList, selection);
+
+        List<String> moves = new ArrayList<>();
+        for (int i = 0; i < moveList.size(); i++) {
+            moves.add(EncodedMove.toMove(moveList.get(i)).toString());
+        }
+        return moves;
+    }
+
+    private static List<String> sorted(List<String> moves) {
+        return moves.stream().sorted().toList();
+    }
+}
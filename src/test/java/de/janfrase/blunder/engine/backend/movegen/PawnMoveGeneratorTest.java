@@ -3,120 +3,187 @@ package de.janfrase.blunder.engine.backend.movegen;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
 import de.janfrase.blunder.engine.backend.state.game.FenParser;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
 import de.janfrase.blunder.uci.UciMoveParser;
-import de.janfrase.blunder.utility.Constants;
 import java.util.ArrayList;
-import java.util.OptionalInt;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 public class PawnMoveGeneratorTest {
 
-    private final GameState gameState = GameState.getInstance();
-    private ArrayList<Move> moves = new ArrayList<>();
+    private GameState gameState = new GameState();
+    private MoveList moves = new MoveList();
 
     @AfterEach
     void setUp() {
-        GameState.resetGameState();
-        moves = new ArrayList<>();
+        gameState = new GameState();
+        moves = new MoveList();
     }
 
     @Test
     void testBasicPawnMoves() {
-        FenParser.loadFenString("8/8/8/8/8/8/4P3/8 w - - 0 1");
+        gameState = FenParser.loadFenString("8/8/8/8/8/8/4P3/8 w - - 0 1");
         PawnMoveGenerator.generatePawnMove(
-                moves, 4, 6, gameState.getBitBoards(), Constants.Side.WHITE, OptionalInt.empty());
+                moves,
+                4,
+                6,
+                gameState.getBitBoards(),
+                Piece.WHITE,
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
         assertEquals(2, moves.size());
-        assertTrue(moves.stream().anyMatch(m -> m.toY() == 5 && m.toX() == 4));
-        assertTrue(moves.stream().anyMatch(m -> m.toY() == 4 && m.toX() == 4));
+        assertTrue(moves.toMoves().stream().anyMatch(m -> m.toY() == 5 && m.toX() == 4));
+        assertTrue(moves.toMoves().stream().anyMatch(m -> m.toY() == 4 && m.toX() == 4));
     }
 
     @Test
     void testPawnCaptures() {
-        FenParser.loadFenString("8/8/8/3p1n2/4P3/8/8/8 w - - 0 1");
+        gameState = FenParser.loadFenString("8/8/8/3p1n2/4P3/8/8/8 w - - 0 1");
         PawnMoveGenerator.generatePawnMove(
-                moves, 4, 4, gameState.getBitBoards(), Constants.Side.WHITE, OptionalInt.empty());
+                moves,
+                4,
+                4,
+                gameState.getBitBoards(),
+                Piece.WHITE,
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
         assertEquals(3, moves.size());
-        assertTrue(moves.stream().anyMatch(m -> m.toX() == 3 && m.toY() == 3));
-        assertTrue(moves.stream().anyMatch(m -> m.toX() == 5 && m.toY() == 3));
+        assertTrue(moves.toMoves().stream().anyMatch(m -> m.toX() == 3 && m.toY() == 3));
+        assertTrue(moves.toMoves().stream().anyMatch(m -> m.toX() == 5 && m.toY() == 3));
         assertEquals(
                 2,
-                moves.stream()
-                        .filter(move -> move.capturedPieceType() != Constants.PieceType.EMPTY)
+                moves.toMoves().stream()
+                        .filter(move -> move.capturedPieceType().getType() != Piece.EMPTY)
                         .count());
     }
 
     @Test
     void testEnPassantCapture() {
-        FenParser.loadFenString("1k6/8/8/4Pp2/8/8/8/1K6 w - f6 0 1");
+        gameState = FenParser.loadFenString("1k6/8/8/4Pp2/8/8/8/1K6 w - f6 0 1");
         PawnMoveGenerator.generatePawnMove(
-                moves, 4, 3, gameState.getBitBoards(), Constants.Side.WHITE, OptionalInt.of(5));
+                moves,
+                4,
+                3,
+                gameState.getBitBoards(),
+                Piece.WHITE,
+                5,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(2, moves.size());
-        assertTrue(moves.stream().anyMatch(m -> m.moveType() == Move.MoveType.EP_CAPTURE));
+        assertTrue(
+                moves.toMoves().stream().anyMatch(m -> m.moveType() == Move.MoveType.EP_CAPTURE));
     }
 
     @Test
     void testWrongEnPassantCapture() {
-        FenParser.loadFenString("1k6/8/8/5p2/8/4P3/8/1K6 w - - 0 1");
+        gameState = FenParser.loadFenString("1k6/8/8/5p2/8/4P3/8/1K6 w - - 0 1");
         PawnMoveGenerator.generatePawnMove(
-                moves, 4, 5, gameState.getBitBoards(), Constants.Side.WHITE, OptionalInt.of(5));
+                moves,
+                4,
+                5,
+                gameState.getBitBoards(),
+                Piece.WHITE,
+                5,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(1, moves.size());
-        assertFalse(moves.stream().anyMatch(m -> m.moveType() == Move.MoveType.EP_CAPTURE));
+        assertFalse(
+                moves.toMoves().stream().anyMatch(m -> m.moveType() == Move.MoveType.EP_CAPTURE));
     }
 
     @Test
     void testPawnPromotion() {
-        FenParser.loadFenString("1k6/4P3/8/8/8/8/8/1K6 w - - 0 1");
+        gameState = FenParser.loadFenString("1k6/4P3/8/8/8/8/8/1K6 w - - 0 1");
         PawnMoveGenerator.generatePawnMove(
-                moves, 4, 1, gameState.getBitBoards(), Constants.Side.WHITE, OptionalInt.empty());
+                moves,
+                4,
+                1,
+                gameState.getBitBoards(),
+                Piece.WHITE,
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
         assertEquals(4, moves.size());
-        assertTrue(moves.stream().anyMatch(m -> m.moveType() == Move.MoveType.QUEEN_PROMOTION));
-        assertTrue(moves.stream().anyMatch(m -> m.moveType() == Move.MoveType.ROOK_PROMOTION));
-        assertTrue(moves.stream().anyMatch(m -> m.moveType() == Move.MoveType.BISHOP_PROMOTION));
-        assertTrue(moves.stream().anyMatch(m -> m.moveType() == Move.MoveType.KNIGHT_PROMOTION));
+        assertTrue(
+                moves.toMoves().stream()
+                        .anyMatch(m -> m.moveType() == Move.MoveType.QUEEN_PROMOTION));
+        assertTrue(
+                moves.toMoves().stream()
+                        .anyMatch(m -> m.moveType() == Move.MoveType.ROOK_PROMOTION));
+        assertTrue(
+                moves.toMoves().stream()
+                        .anyMatch(m -> m.moveType() == Move.MoveType.BISHOP_PROMOTION));
+        assertTrue(
+                moves.toMoves().stream()
+                        .anyMatch(m -> m.moveType() == Move.MoveType.KNIGHT_PROMOTION));
     }
 
     @Test
     void testCapturePromotion() {
-        FenParser.loadFenString("1k1n4/4P3/8/8/8/8/8/1K6 w - - 0 1");
+        gameState = FenParser.loadFenString("1k1n4/4P3/8/8/8/8/8/1K6 w - - 0 1");
         PawnMoveGenerator.generatePawnMove(
-                moves, 4, 1, gameState.getBitBoards(), Constants.Side.WHITE, OptionalInt.empty());
+                moves,
+                4,
+                1,
+                gameState.getBitBoards(),
+                Piece.WHITE,
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(8, moves.size());
         assertTrue(
-                moves.stream()
+                moves.toMoves().stream()
                         .anyMatch(
                                 m ->
                                         m.moveType() == Move.MoveType.QUEEN_PROMOTION
                                                 && m.toX() == 3
-                                                && m.capturedPieceType()
-                                                        == Constants.PieceType.KNIGHT));
+                                                && m.capturedPieceType().getType()
+                                                        == Piece.KNIGHT));
 
         assertEquals(
                 4,
-                moves.stream()
-                        .filter(m -> m.capturedPieceType() == Constants.PieceType.KNIGHT)
+                moves.toMoves().stream()
+                        .filter(m -> m.capturedPieceType().getType() == Piece.KNIGHT)
                         .count());
     }
 
     @Test
     void testPawnOnLeftEdge() {
-        FenParser.loadFenString("8/8/8/8/P7/8/8/8 w - - 0 1");
+        gameState = FenParser.loadFenString("8/8/8/8/P7/8/8/8 w - - 0 1");
         PawnMoveGenerator.generatePawnMove(
-                moves, 0, 4, gameState.getBitBoards(), Constants.Side.WHITE, OptionalInt.empty());
+                moves,
+                0,
+                4,
+                gameState.getBitBoards(),
+                Piece.WHITE,
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
         assertEquals(1, moves.size());
-        assertTrue(moves.stream().anyMatch(m -> m.toY() == 3 && m.toX() == 0));
+        assertTrue(moves.toMoves().stream().anyMatch(m -> m.toY() == 3 && m.toX() == 0));
     }
 
     @Test
     void testEnPassantDiscoveredCheck() {
-        FenParser.loadFenString("8/2p5/3p4/KP5r/1R2Pp1k/8/6P1/8 b e3 - 0 1");
+        gameState = FenParser.loadFenString("8/2p5/3p4/KP5r/1R2Pp1k/8/6P1/8 b e3 - 0 1");
         PawnMoveGenerator.generatePawnMove(
-                moves, 5, 4, gameState.getBitBoards(), Constants.Side.BLACK, OptionalInt.of(4));
+                moves,
+                5,
+                4,
+                gameState.getBitBoards(),
+                Piece.BLACK,
+                4,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
     }
 
     /*
@@ -195,15 +262,15 @@ public class PawnMoveGeneratorTest {
         * */
     @Test
     void testMakingUnmakingEnPassant() {
-        FenParser.loadFenString("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        gameState = FenParser.loadFenString("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
 
-        Move doublePawnPushMove = UciMoveParser.parseUciMove("e2e4");
+        int doublePawnPushMove = UciMoveParser.parseUciMove("e2e4", gameState);
         gameState.makeMove(doublePawnPushMove);
 
         // assertTrue(gameState.getIrreversibleData().enPassantX().isPresent());
         // assertEquals(5, gameState.getIrreversibleData().enPassantX().getAsInt());
 
-        // Move enPassantCaptureMove = UciMoveParser.parseUciMove("f4e3");
+        // Move enPassantCaptureMove = UciMoveParser.parseUciMove("f4e3", gameState);
 
         PawnMoveGenerator.generatePawnMove(
                 moves,
@@ -211,29 +278,33 @@ public class PawnMoveGeneratorTest {
                 4,
                 gameState.getBitBoards(),
                 gameState.getFriendlySide(),
-                gameState.getIrreversibleData().enPassantX());
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         Move enPassantCaptureMove =
-                moves.stream()
+                moves.toMoves().stream()
                         .filter(m -> m.moveType() == Move.MoveType.EP_CAPTURE)
                         .findFirst()
                         .orElseThrow();
 
         gameState.makeMove(enPassantCaptureMove);
 
-        assertEquals(Constants.PieceType.EMPTY, gameState.getBitBoards().getPieceAt(4, 4));
-        assertEquals(Constants.PieceType.PAWN, gameState.getBitBoards().getPieceAt(4, 5));
+        assertEquals(Piece.EMPTY, gameState.getBitBoards().getPieceAt(4, 4).getType());
+        assertEquals(Piece.PAWN, gameState.getBitBoards().getPieceAt(4, 5).getType());
 
         gameState.unmakeMove(enPassantCaptureMove);
 
-        assertEquals(Constants.PieceType.PAWN, gameState.getBitBoards().getPieceAt(5, 4));
-        assertEquals(Constants.PieceType.PAWN, gameState.getBitBoards().getPieceAt(4, 4));
-        assertEquals(Constants.PieceType.EMPTY, gameState.getBitBoards().getPieceAt(4, 5));
+        assertEquals(Piece.PAWN, gameState.getBitBoards().getPieceAt(5, 4).getType());
+        assertEquals(Piece.PAWN, gameState.getBitBoards().getPieceAt(4, 4).getType());
+        assertEquals(Piece.EMPTY, gameState.getBitBoards().getPieceAt(4, 5).getType());
     }
 
     @Test
     void testMakingUnmakingEnPassantCapture2() {
-        FenParser.loadFenString("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1R1K b kq - 0 1");
+        gameState =
+                FenParser.loadFenString(
+                        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1R1K b kq - 0 1");
 
         PawnMoveGenerator.generatePawnMove(
                 moves,
@@ -241,7 +312,9 @@ public class PawnMoveGeneratorTest {
                 6,
                 gameState.getBitBoards(),
                 gameState.getFriendlySide(),
-                OptionalInt.empty());
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                MoveGenerator.MoveSelection.ALL,
+                MoveGenerator.ALL_SQUARES);
 
         assertEquals(8, moves.size());
     }
@@ -0,0 +1,126 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.movegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+import org.junit.jupiter.api.Test;
+
+public class SliderAttacksTest {
+
+    @Test
+    void testRookOnEmptyBoard() {
+        // a8
+        long attacks = SliderAttacks.getRookAttacks(BitBoard.calculateIndex(0, 0), 0L);
+
+        assertEquals(14, Long.bitCount(attacks));
+        assertTrue(new BitBoard(attacks).getBit(7, 0));
+        assertTrue(new BitBoard(attacks).getBit(0, 7));
+    }
+
+    @Test
+    void testRookIsBlocked() {
+        BitBoard occupancy = new BitBoard();
+        occupancy.setBit(3, 1);
+        occupancy.setBit(5, 3);
+        occupancy.setBit(3, 6);
+        // behind the blocker on the left, so it does not matter
+        occupancy.setBit(0, 3);
+        occupancy.setBit(1, 3);
+
+        long attacks = SliderAttacks.getRookAttacks(BitBoard.calculateIndex(3, 3), occupancy.value);
+
+        BitBoard expected = new BitBoard();
+        expected.setBit(3, 2);
+        expected.setBit(3, 1);
+        expected.setBit(4, 3);
+        expected.setBit(5, 3);
+        expected.setBit(3, 4);
+        expected.setBit(3, 5);
+        expected.setBit(3, 6);
+        expected.setBit(2, 3);
+        expected.setBit(1, 3);
+        assertEquals(expected.value, attacks);
+    }
+
+    @Test
+    void testBishopIsBlocked() {
+        BitBoard occupancy = new BitBoard();
+        occupancy.setBit(6, 6);
+        occupancy.setBit(1, 1);
+
+        long attacks =
+                SliderAttacks.getBishopAttacks(BitBoard.calculateIndex(3, 3), occupancy.value);
+
+        BitBoard expected = new BitBoard();
+        expected.setBit(2, 2);
+        expected.setBit(1, 1);
+        expected.setBit(4, 4);
+        expected.setBit(5, 5);
+        expected.setBit(6, 6);
+        expected.setBit(4, 2);
+        expected.setBit(5, 1);
+        expected.setBit(6, 0);
+        expected.setBit(2, 4);
+        expected.setBit(1, 5);
+        expected.setBit(0, 6);
+        assertEquals(expected.value, attacks);
+    }
+
+    @Test
+    void testQueenOnEverySquare() {
+        for (int square = 0; square < 64; square++) {
+            // an empty board: 14 straight squares plus everything on both diagonals
+            int x = square % 8;
+            int y = square / 8;
+            int diagonalSquares =
+                    Math.min(x, y)
+                            + Math.min(7 - x, 7 - y)
+                            + Math.min(x, 7 - y)
+                            + Math.min(7 - x, y);
+
+            long attacks = SliderAttacks.getQueenAttacks(square, 0L);
+            assertEquals(14 + diagonalSquares, Long.bitCount(attacks), "square " + square);
+        }
+    }
+
+    @Test
+    void testSquaresBetween() {
+        // a8 and d5 share a diagonal
+        long between =
+                SliderAttacks.getSquaresBetween(
+                        BitBoard.calculateIndex(0, 0), BitBoard.calculateIndex(3, 3));
+
+        BitBoard expected = new BitBoard();
+        expected.setBit(1, 1);
+        expected.setBit(2, 2);
+        assertEquals(expected.value, between);
+
+        // neighbours and squares that share no line have nothing in between
+        assertEquals(
+                0L,
+                SliderAttacks.getSquaresBetween(
+                        BitBoard.calculateIndex(0, 0), BitBoard.calculateIndex(1, 0)));
+        assertEquals(
+                0L,
+                SliderAttacks.getSquaresBetween(
+                        BitBoard.calculateIndex(0, 0), BitBoard.calculateIndex(1, 2)));
+    }
+
+    @Test
+    void testLine() {
+        // c1 and e1 lie on the first rank
+        long line =
+                SliderAttacks.getLine(BitBoard.calculateIndex(2, 7), BitBoard.calculateIndex(4, 7));
+
+        assertEquals(8, Long.bitCount(line));
+        assertTrue(new BitBoard(line).getBit(0, 7));
+        assertTrue(new BitBoard(line).getBit(7, 7));
+
+        assertEquals(
+                0L,
+                SliderAttacks.getLine(
+                        BitBoard.calculateIndex(0, 0), BitBoard.calculateIndex(1, 2)));
+    }
+}
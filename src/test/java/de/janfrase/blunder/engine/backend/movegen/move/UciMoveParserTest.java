@@ -4,36 +4,31 @@ package de.janfrase.blunder.engine.backend.movegen.move;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
 import de.janfrase.blunder.engine.backend.movegen.Move;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
 import de.janfrase.blunder.uci.UciMoveParser;
-import de.janfrase.blunder.utility.Constants;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 public class UciMoveParserTest {
 
-    private final GameState gameState = GameState.getInstance();
-
-    @AfterEach
-    void setUp() {
-        GameState.resetGameState();
-    }
+    private final GameState gameState = new GameState();
 
     /**
      * Test class for the UciMoveParser class.
      * <p>
      * This class tests the parseUciMove method, which parses UCI (Universal Chess Interface) strings
-     * representing chess moves and translates them into Move objects. The method determines the type of move
+     * representing chess moves and translates them into encoded moves. The method determines the type of move
      * (normal, capture, castling, en passant, or promotion) based on the board state, provided by the GameState class.
      */
     @Test
     public void testParsePawnNormalMove() {
-        gameState.getBitBoards().setPieceAt(4, 6, Constants.PieceType.PAWN, Constants.Side.WHITE);
+        gameState.getBitBoards().setPieceAt(4, 6, new Piece(Piece.PAWN, Piece.WHITE));
 
         // Act
         String uciMove = "e2e3";
-        Move move = UciMoveParser.parseUciMove(uciMove);
+        Move move = EncodedMove.toMove(UciMoveParser.parseUciMove(uciMove, gameState));
 
         // Assert
         assertEquals(4, move.fromX());
@@ -46,11 +41,11 @@ public class UciMoveParserTest {
     @Test
     public void testParsePawnDoublePush() {
         // Arrange: Set up board with a pawn
-        gameState.getBitBoards().setPieceAt(4, 6, Constants.PieceType.PAWN, Constants.Side.WHITE);
+        gameState.getBitBoards().setPieceAt(4, 6, new Piece(Piece.PAWN, Piece.WHITE));
 
         // Act
         String uciMove = "e2e4";
-        Move move = UciMoveParser.parseUciMove(uciMove);
+        Move move = EncodedMove.toMove(UciMoveParser.parseUciMove(uciMove, gameState));
 
         // Assert
         assertEquals(4, move.fromX());
@@ -63,12 +58,12 @@ public class UciMoveParserTest {
     @Test
     public void testParseKingShortCastle() {
         // Arrange: Set up board with king
-        gameState.getBitBoards().setPieceAt(4, 7, Constants.PieceType.KING, Constants.Side.WHITE);
-        gameState.getBitBoards().setPieceAt(7, 7, Constants.PieceType.ROOK, Constants.Side.WHITE);
+        gameState.getBitBoards().setPieceAt(4, 7, new Piece(Piece.KING, Piece.WHITE));
+        gameState.getBitBoards().setPieceAt(7, 7, new Piece(Piece.ROOK, Piece.WHITE));
 
         // Act
         String uciMove = "e1g1";
-        Move move = UciMoveParser.parseUciMove(uciMove);
+        Move move = EncodedMove.toMove(UciMoveParser.parseUciMove(uciMove, gameState));
 
         // Assert
         assertEquals(4, move.fromX());
@@ -81,12 +76,12 @@ public class UciMoveParserTest {
     @Test
     public void testParseKingLongCastle() {
         // Arrange: Set up board with king
-        gameState.getBitBoards().setPieceAt(4, 7, Constants.PieceType.KING, Constants.Side.WHITE);
-        gameState.getBitBoards().setPieceAt(0, 7, Constants.PieceType.ROOK, Constants.Side.WHITE);
+        gameState.getBitBoards().setPieceAt(4, 7, new Piece(Piece.KING, Piece.WHITE));
+        gameState.getBitBoards().setPieceAt(0, 7, new Piece(Piece.ROOK, Piece.WHITE));
 
         // Act
         String uciMove = "e1c1";
-        Move move = UciMoveParser.parseUciMove(uciMove);
+        Move move = EncodedMove.toMove(UciMoveParser.parseUciMove(uciMove, gameState));
 
         // Assert
         assertEquals(4, move.fromX());
@@ -99,11 +94,11 @@ public class UciMoveParserTest {
     @Test
     public void testParsePawnPromotionToQueen() {
         // Arrange: Set up board with pawn
-        gameState.getBitBoards().setPieceAt(0, 1, Constants.PieceType.PAWN, Constants.Side.WHITE);
+        gameState.getBitBoards().setPieceAt(0, 1, new Piece(Piece.PAWN, Piece.WHITE));
 
         // Act
         String uciMove = "a7a8q";
-        Move move = UciMoveParser.parseUciMove(uciMove);
+        Move move = EncodedMove.toMove(UciMoveParser.parseUciMove(uciMove, gameState));
 
         // Assert
         assertEquals(0, move.fromX());
@@ -111,18 +106,18 @@ public class UciMoveParserTest {
         assertEquals(0, move.toX());
         assertEquals(0, move.toY());
         assertEquals(Move.MoveType.QUEEN_PROMOTION, move.moveType());
-        assertEquals(Constants.PieceType.EMPTY, move.capturedPieceType());
+        assertEquals(Piece.EMPTY, move.capturedPieceType().getType());
     }
 
     @Test
     public void testParseNormalCapture() {
         // Arrange: Set up board with pieces
-        gameState.getBitBoards().setPieceAt(4, 4, Constants.PieceType.KNIGHT, Constants.Side.WHITE);
-        gameState.getBitBoards().setPieceAt(5, 2, Constants.PieceType.BISHOP, Constants.Side.BLACK);
+        gameState.getBitBoards().setPieceAt(4, 4, new Piece(Piece.KNIGHT, Piece.WHITE));
+        gameState.getBitBoards().setPieceAt(5, 2, new Piece(Piece.BISHOP, Piece.BLACK));
 
         // Act
         String uciMove = "e4f6";
-        Move move = UciMoveParser.parseUciMove(uciMove);
+        Move move = EncodedMove.toMove(UciMoveParser.parseUciMove(uciMove, gameState));
 
         // Assert
         assertEquals(4, move.fromX());
@@ -130,18 +125,18 @@ public class UciMoveParserTest {
         assertEquals(5, move.toX());
         assertEquals(2, move.toY());
         assertEquals(Move.MoveType.NORMAL_MOVE, move.moveType());
-        assertEquals(Constants.PieceType.BISHOP, move.capturedPieceType());
+        assertEquals(Piece.BISHOP, move.capturedPieceType().getType());
     }
 
     @Test
     public void testParsePawnPromotionCapture() {
         // Arrange: Set up board with pieces
-        gameState.getBitBoards().setPieceAt(0, 1, Constants.PieceType.PAWN, Constants.Side.WHITE);
-        gameState.getBitBoards().setPieceAt(1, 0, Constants.PieceType.ROOK, Constants.Side.BLACK);
+        gameState.getBitBoards().setPieceAt(0, 1, new Piece(Piece.PAWN, Piece.WHITE));
+        gameState.getBitBoards().setPieceAt(1, 0, new Piece(Piece.ROOK, Piece.BLACK));
 
         // Act
         String uciMove = "a7b8q";
-        Move move = UciMoveParser.parseUciMove(uciMove);
+        Move move = EncodedMove.toMove(UciMoveParser.parseUciMove(uciMove, gameState));
 
         // Assert
         assertEquals(0, move.fromX());
@@ -149,18 +144,18 @@ public class UciMoveParserTest {
         assertEquals(1, move.toX());
         assertEquals(0, move.toY());
         assertEquals(Move.MoveType.QUEEN_PROMOTION, move.moveType());
-        assertEquals(Constants.PieceType.ROOK, move.capturedPieceType());
+        assertEquals(Piece.ROOK, move.capturedPieceType().getType());
     }
 
     @Test
     public void testParseEnPassantCapture() {
         // Arrange: Set up board with pawns
-        gameState.getBitBoards().setPieceAt(4, 3, Constants.PieceType.PAWN, Constants.Side.WHITE);
-        gameState.getBitBoards().setPieceAt(5, 3, Constants.PieceType.PAWN, Constants.Side.BLACK);
+        gameState.getBitBoards().setPieceAt(4, 3, new Piece(Piece.PAWN, Piece.WHITE));
+        gameState.getBitBoards().setPieceAt(5, 3, new Piece(Piece.PAWN, Piece.BLACK));
 
         // Act
         String uciMove = "e5f6";
-        Move move = UciMoveParser.parseUciMove(uciMove);
+        Move move = EncodedMove.toMove(UciMoveParser.parseUciMove(uciMove, gameState));
 
         // Assert
         assertEquals(4, move.fromX());
@@ -168,6 +163,6 @@ public class UciMoveParserTest {
         assertEquals(5, move.toX());
         assertEquals(2, move.toY());
         assertEquals(Move.MoveType.EP_CAPTURE, move.moveType());
-        assertNotEquals(Constants.PieceType.PAWN, move.capturedPieceType());
+        assertNotEquals(Piece.PAWN, move.capturedPieceType().getType());
     }
 }
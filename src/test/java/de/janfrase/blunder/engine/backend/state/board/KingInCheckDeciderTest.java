@@ -3,66 +3,63 @@ package de.janfrase.blunder.engine.backend.state.board;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import de.janfrase.blunder.engine.backend.Piece;
 import de.janfrase.blunder.engine.backend.movegen.KingInCheckDecider;
 import de.janfrase.blunder.engine.backend.state.game.FenParser;
 import de.janfrase.blunder.engine.backend.state.game.GameState;
-import de.janfrase.blunder.utility.Constants;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 class KingInCheckDeciderTest {
 
-    @AfterEach
-    void setUp() {
-        GameState.resetGameState();
-    }
-
     @Test
     void isKingUnderAttackStraightSimple() {
-        FenParser.loadFenString("8/1r6/8/8/8/8/8/8 w - - 0 1");
+        GameState gameState = FenParser.loadFenString("8/1r6/8/8/8/8/8/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
-        assertTrue(KingInCheckDecider.isKingUnderAttack(0, 1, Constants.Side.WHITE));
-        assertFalse(KingInCheckDecider.isKingUnderAttack(1, 1, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(2, 1, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(3, 1, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(4, 1, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(5, 1, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(6, 1, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(7, 1, Constants.Side.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {0, 1}, Piece.WHITE));
+        assertFalse(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 1}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {2, 1}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {3, 1}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {4, 1}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {5, 1}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {6, 1}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {7, 1}, Piece.WHITE));
 
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 0, Constants.Side.WHITE));
-        assertFalse(KingInCheckDecider.isKingUnderAttack(1, 1, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 2, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 3, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 4, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 5, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 6, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 7, Constants.Side.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 0}, Piece.WHITE));
+        assertFalse(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 1}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 2}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 3}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 4}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 5}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 6}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 7}, Piece.WHITE));
     }
 
     @Test
     void isKingUnderAttackDiagonalSimple() {
-        FenParser.loadFenString("8/8/2b5/8/8/8/8/8 w - - 0 1");
+        GameState gameState = FenParser.loadFenString("8/8/2b5/8/8/8/8/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
-        assertTrue(KingInCheckDecider.isKingUnderAttack(0, 0, Constants.Side.WHITE));
-        assertFalse(KingInCheckDecider.isKingUnderAttack(2, 2, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(3, 3, Constants.Side.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {0, 0}, Piece.WHITE));
+        assertFalse(KingInCheckDecider.isKingUnderAttack(board, new int[] {2, 2}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {3, 3}, Piece.WHITE));
     }
 
     @Test
     void isKingUnderAttackKnightSimple() {
-        FenParser.loadFenString("8/8/2n5/8/8/8/8/8 w - - 0 1");
+        GameState gameState = FenParser.loadFenString("8/8/2n5/8/8/8/8/8 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
 
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 0, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(3, 0, Constants.Side.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 0}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {3, 0}, Piece.WHITE));
 
-        assertTrue(KingInCheckDecider.isKingUnderAttack(0, 1, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(4, 1, Constants.Side.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {0, 1}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {4, 1}, Piece.WHITE));
 
-        assertTrue(KingInCheckDecider.isKingUnderAttack(0, 3, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(4, 3, Constants.Side.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {0, 3}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {4, 3}, Piece.WHITE));
 
-        assertTrue(KingInCheckDecider.isKingUnderAttack(1, 4, Constants.Side.WHITE));
-        assertTrue(KingInCheckDecider.isKingUnderAttack(3, 4, Constants.Side.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {1, 4}, Piece.WHITE));
+        assertTrue(KingInCheckDecider.isKingUnderAttack(board, new int[] {3, 4}, Piece.WHITE));
     }
 }
@@ -0,0 +1,79 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.board;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.MoveGenerator;
+import de.janfrase.blunder.engine.backend.movegen.MoveList;
+import de.janfrase.blunder.engine.backend.state.game.FenParser;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+import de.janfrase.blunder.utility.Constants;
+import org.junit.jupiter.api.Test;
+
+class PieceSquareTablesTest {
+
+    @Test
+    void testStartingPositionIsBalanced() {
+        BitBoards board =
+                FenParser.loadFenString("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1")
+                        .getBitBoards();
+
+        assertEquals(0, board.getMidgameScore());
+        assertEquals(0, board.getEndgameScore());
+        assertEquals(PieceSquareTables.MAX_PHASE, board.getPhase());
+    }
+
+    @Test
+    void testBlackUsesTheMirroredTable() {
+        // d2 for white is d7 for black, the table must be mirrored and not transposed
+        int d2 = BitBoard.calculateIndex(3, 6);
+        int d7 = BitBoard.calculateIndex(3, 1);
+
+        assertEquals(
+                PieceSquareTables.getMidgameScore(Piece.of(Piece.PAWN, Piece.WHITE), d2),
+                -PieceSquareTables.getMidgameScore(Piece.of(Piece.PAWN, Piece.BLACK), d7));
+        assertEquals(80, PieceSquareTables.getMidgameScore(Piece.of(Piece.PAWN, Piece.WHITE), d2));
+    }
+
+    @Test
+    void testIncrementalScoresMatchAFullRecalculation() {
+        String[] fenStrings = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+            "8/8/8/3pP3/8/8/8/4K2k w - d6 0 1"
+        };
+
+        for (String fenString : fenStrings) {
+            GameState gameState = FenParser.loadFenString(fenString);
+            MoveList moves = new MoveList();
+            MoveGenerator.generateLegalMoves(gameState, moves);
+
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                gameState.makeMove(move);
+                assertScoresMatch(gameState.getBitBoards());
+                gameState.unmakeMove(move);
+                assertScoresMatch(gameState.getBitBoards());
+            }
+        }
+    }
+
+    private static void assertScoresMatch(BitBoards board) {
+        int midgameScore = 0;
+        int endgameScore = 0;
+        int phase = 0;
+        for (int square = 0; square < Constants.BOARD_TOTAL_SIZE; square++) {
+            Piece piece = board.getPieceAt(square % 8, square / 8);
+            if (piece.isEmpty()) continue;
+
+            midgameScore += PieceSquareTables.getMidgameScore(piece, square);
+            endgameScore += PieceSquareTables.getEndgameScore(piece, square);
+            phase += PieceSquareTables.getPhase(piece);
+        }
+
+        assertEquals(midgameScore, board.getMidgameScore());
+        assertEquals(endgameScore, board.getEndgameScore());
+        assertEquals(phase, board.getPhase());
+    }
+}
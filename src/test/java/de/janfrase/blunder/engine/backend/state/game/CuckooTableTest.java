@@ -0,0 +1,36 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.state.board.BitBoard;
+import org.junit.jupiter.api.Test;
+
+class CuckooTableTest {
+
+    @Test
+    void testEveryReversibleMoveIsStored() {
+        // the number of moves of knights, bishops, rooks, queens and kings on an empty board
+        // for both sides, counting each pair of squares once
+        assertEquals(3668, CuckooTable.getMoveCount());
+    }
+
+    @Test
+    void testGetMove() {
+        Piece whiteKnight = Piece.of(Piece.KNIGHT, Piece.WHITE);
+        int g1 = BitBoard.calculateIndex(6, 7);
+        int f3 = BitBoard.calculateIndex(5, 5);
+
+        long moveKey =
+                ZobristHasher.getPieceKey(whiteKnight, g1)
+                        ^ ZobristHasher.getPieceKey(whiteKnight, f3)
+                        ^ ZobristHasher.getSideToMoveKey();
+        int move = CuckooTable.getMove(moveKey);
+
+        assertEquals(Math.min(g1, f3), EncodedMove.getFromSquare(move));
+        assertEquals(Math.max(g1, f3), EncodedMove.getToSquare(move));
+        assertEquals(EncodedMove.NO_MOVE, CuckooTable.getMove(moveKey ^ 1));
+    }
+}
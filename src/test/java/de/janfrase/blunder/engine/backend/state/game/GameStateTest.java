@@ -3,60 +3,55 @@ package de.janfrase.blunder.engine.backend.state.game;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
 import de.janfrase.blunder.engine.backend.movegen.Move;
-import de.janfrase.blunder.engine.backend.state.game.irreversibles.CastlingRights;
-import de.janfrase.blunder.utility.Constants;
-import org.junit.jupiter.api.AfterEach;
+import de.janfrase.blunder.engine.backend.state.game.irreversibles.EncodedIrreversibleData;
 import org.junit.jupiter.api.Test;
 
 public class GameStateTest {
 
-    private final GameState gameState = GameState.getInstance();
-
-    @AfterEach
-    void setUp() {
-        GameState.resetGameState();
-    }
+    private GameState gameState = new GameState();
 
     @Test
     void testSimpleUnmakeMove() {
-        gameState.bitBoards.setPieceAt(2, 2, Constants.PieceType.PAWN, Constants.Side.WHITE);
-        gameState.bitBoards.setPieceAt(6, 6, Constants.PieceType.ROOK, Constants.Side.BLACK);
+        gameState.bitBoards.setPieceAt(2, 2, new Piece(Piece.PAWN, Piece.WHITE));
+        gameState.bitBoards.setPieceAt(6, 6, new Piece(Piece.ROOK, Piece.BLACK));
 
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(2, 2),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(2, 2).getType(),
                 "Source square should be a pawn before the move");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(3, 3),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(3, 3).getType(),
                 "Target square should be empty before the move");
 
-        Move pawnMove = new Move(2, 2, 2, 3);
+        int pawnMove = EncodedMove.encode(2, 2, 2, 3);
         gameState.makeMove(pawnMove);
 
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(2, 2),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(2, 2).getType(),
                 "Source square should be empty after the move");
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(2, 3),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(2, 3).getType(),
                 "Target square should contain the moved piece");
 
         assertFalse(gameState.isWhitesTurn, "Turn should toggle after a move");
 
         assertEquals(
                 0,
-                gameState.irreversibleDataStack.peek().halfMoveClock(),
+                EncodedIrreversibleData.getHalfMoveClock(gameState.getEncodedIrreversibleData()),
                 "Half move clock should be 0 since we just moved a pawn");
 
-        Move rookMove = new Move(6, 6, 6, 4);
+        int rookMove = EncodedMove.encode(6, 6, 6, 4);
         gameState.makeMove(rookMove);
 
         assertEquals(
                 1,
-                gameState.irreversibleDataStack.peek().halfMoveClock(),
+                EncodedIrreversibleData.getHalfMoveClock(gameState.getEncodedIrreversibleData()),
                 "Half move clock should be 1");
 
         assertEquals(
@@ -68,7 +63,7 @@ public class GameStateTest {
 
         assertEquals(
                 0,
-                gameState.irreversibleDataStack.peek().halfMoveClock(),
+                EncodedIrreversibleData.getHalfMoveClock(gameState.getEncodedIrreversibleData()),
                 "Half move clock should be 0 after unmaking a move");
 
         assertEquals(
@@ -77,19 +72,19 @@ public class GameStateTest {
                 "Full move counter should decrement after unmaking a move");
 
         assertEquals(
-                Constants.PieceType.ROOK,
-                gameState.bitBoards.getPieceAt(6, 6),
+                Piece.ROOK,
+                gameState.bitBoards.getPieceAt(6, 6).getType(),
                 "Rook should be in the correct position after unmaking a move");
 
         gameState.unmakeMove(pawnMove);
 
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(2, 2),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(2, 2).getType(),
                 "Source square should be a pawn before the move");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(3, 3),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(3, 3).getType(),
                 "Target square should be empty before the move");
 
         assertTrue(gameState.isWhitesTurn, "Turn should toggle after a move");
@@ -97,37 +92,37 @@ public class GameStateTest {
 
     @Test
     void testSimpleMakeMoveBlack() {
-        GameState.resetGameState();
+        gameState = new GameState();
         gameState.isWhitesTurn = false;
-        gameState.bitBoards.setPieceAt(2, 5, Constants.PieceType.PAWN, Constants.Side.BLACK);
-        gameState.bitBoards.setPieceAt(6, 1, Constants.PieceType.ROOK, Constants.Side.WHITE);
+        gameState.bitBoards.setPieceAt(2, 5, new Piece(Piece.PAWN, Piece.BLACK));
+        gameState.bitBoards.setPieceAt(6, 1, new Piece(Piece.ROOK, Piece.WHITE));
 
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(2, 5),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(2, 5).getType(),
                 "Source square should be a pawn before the move");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(2, 4),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(2, 4).getType(),
                 "Target square should be empty before the move");
 
-        Move pawnMove = new Move(2, 5, 2, 4);
+        int pawnMove = EncodedMove.encode(2, 5, 2, 4);
         gameState.makeMove(pawnMove);
 
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(2, 5),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(2, 5).getType(),
                 "Source square should be empty after the move");
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(2, 4),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(2, 4).getType(),
                 "Target square should contain the moved piece");
 
         assertTrue(gameState.isWhitesTurn, "Turn should toggle after a move");
 
         assertEquals(
                 0,
-                gameState.irreversibleDataStack.peek().halfMoveClock(),
+                EncodedIrreversibleData.getHalfMoveClock(gameState.getEncodedIrreversibleData()),
                 "Half move clock should be 0 since we just moved a pawn");
 
         assertEquals(
@@ -135,12 +130,12 @@ public class GameStateTest {
                 gameState.fullMoveCounter,
                 "Full move counter should increment after making a black move");
 
-        Move rookMove = new Move(6, 1, 6, 3);
+        int rookMove = EncodedMove.encode(6, 1, 6, 3);
         gameState.makeMove(rookMove);
 
         assertEquals(
                 1,
-                gameState.irreversibleDataStack.peek().halfMoveClock(),
+                EncodedIrreversibleData.getHalfMoveClock(gameState.getEncodedIrreversibleData()),
                 "Half move clock should be 1");
 
         assertEquals(
@@ -152,7 +147,7 @@ public class GameStateTest {
 
         assertEquals(
                 0,
-                gameState.irreversibleDataStack.peek().halfMoveClock(),
+                EncodedIrreversibleData.getHalfMoveClock(gameState.getEncodedIrreversibleData()),
                 "Half move clock should be 0 after unmaking a move");
 
         assertEquals(
@@ -161,19 +156,19 @@ public class GameStateTest {
                 "Full move counter should not decrement after unmaking a white move");
 
         assertEquals(
-                Constants.PieceType.ROOK,
-                gameState.bitBoards.getPieceAt(6, 1),
+                Piece.ROOK,
+                gameState.bitBoards.getPieceAt(6, 1).getType(),
                 "Rook should be in the correct position after unmaking a move");
 
         gameState.unmakeMove(pawnMove);
 
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(2, 5),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(2, 5).getType(),
                 "Source square should be a pawn before the move");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(2, 4),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(2, 4).getType(),
                 "Target square should be empty before the move");
 
         assertEquals(
@@ -186,480 +181,520 @@ public class GameStateTest {
 
     @Test
     void testEnPassantBlackTakes() {
-        FenParser.loadFenString("8/8/8/8/1p6/8/P7/8 w - - 0 1");
+        gameState = FenParser.loadFenString("8/8/8/8/1p6/8/P7/8 w - - 0 1");
 
-        Move whiteDoublePawnPush = new Move(0, 6, 0, 4, Move.MoveType.DOUBLE_PAWN_PUSH);
+        int whiteDoublePawnPush = EncodedMove.encode(0, 6, 0, 4, Move.MoveType.DOUBLE_PAWN_PUSH);
         gameState.makeMove(whiteDoublePawnPush);
 
-        assertTrue(
-                gameState.irreversibleDataStack.peek().enPassantX().isPresent(),
+        assertNotEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should be present after a double pawn push");
         assertEquals(
                 0,
-                gameState.irreversibleDataStack.peek().enPassantX().getAsInt(),
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should be the correct square after a double pawn push");
 
-        Move enPassant = new Move(1, 4, 0, 5, Move.MoveType.EP_CAPTURE);
+        int enPassant = EncodedMove.encode(1, 4, 0, 5, Move.MoveType.EP_CAPTURE);
         gameState.makeMove(enPassant);
 
-        assertFalse(
-                gameState.irreversibleDataStack.peek().enPassantX().isPresent(),
+        assertEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should not be present en passant capture");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(0, 4),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(0, 4).getType(),
                 "The captured pawn square should be empty after en passant.");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(1, 4),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(1, 4).getType(),
                 "The source square should be empty after en passant.");
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(0, 5),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(0, 5).getType(),
                 "The capturing pawn should exist in the correct target square after en passant.");
 
         gameState.unmakeMove(enPassant);
 
-        assertTrue(
-                gameState.irreversibleDataStack.peek().enPassantX().isPresent(),
+        assertNotEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should be present after a double pawn push");
         assertEquals(
                 0,
-                gameState.irreversibleDataStack.peek().enPassantX().getAsInt(),
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should be the correct square after a double pawn push");
     }
 
     @Test
     void testEnPassantWhiteTakes() {
-        FenParser.loadFenString("8/p7/8/1P6/8/8/8/8 b - - 0 1");
+        gameState = FenParser.loadFenString("8/p7/8/1P6/8/8/8/8 b - - 0 1");
 
-        Move blackDoublePawnPush = new Move(0, 1, 0, 3, Move.MoveType.DOUBLE_PAWN_PUSH);
+        int blackDoublePawnPush = EncodedMove.encode(0, 1, 0, 3, Move.MoveType.DOUBLE_PAWN_PUSH);
         gameState.makeMove(blackDoublePawnPush);
 
-        assertTrue(
-                gameState.irreversibleDataStack.peek().enPassantX().isPresent(),
+        assertNotEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should be present after a double pawn push");
         assertEquals(
                 0,
-                gameState.irreversibleDataStack.peek().enPassantX().getAsInt(),
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should be the correct square after a double pawn push");
 
-        Move enPassant = new Move(1, 3, 0, 2, Move.MoveType.EP_CAPTURE);
+        int enPassant = EncodedMove.encode(1, 3, 0, 2, Move.MoveType.EP_CAPTURE);
         gameState.makeMove(enPassant);
 
-        assertFalse(
-                gameState.irreversibleDataStack.peek().enPassantX().isPresent(),
+        assertEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should not be present en passant capture");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(0, 3),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(0, 3).getType(),
                 "The captured pawn square should be empty after en passant.");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(1, 3),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(1, 3).getType(),
                 "The source square should be empty after en passant.");
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(0, 2),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(0, 2).getType(),
                 "The capturing pawn should exist in the correct target square after en passant.");
 
         gameState.unmakeMove(enPassant);
 
-        assertTrue(
-                gameState.irreversibleDataStack.peek().enPassantX().isPresent(),
+        assertNotEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should be present after a double pawn push");
         assertEquals(
                 0,
-                gameState.irreversibleDataStack.peek().enPassantX().getAsInt(),
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()),
                 "En passant target square should be the correct square after a double pawn push");
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(0, 3),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(0, 3).getType(),
                 "The capturing pawn should exist in the correct target square after en passant.");
         assertEquals(
-                Constants.PieceType.PAWN,
-                gameState.bitBoards.getPieceAt(1, 3),
+                Piece.PAWN,
+                gameState.bitBoards.getPieceAt(1, 3).getType(),
                 "The capturing pawn should exist in the correct target square after en passant.");
     }
 
     @Test
     void testCastle() {
-        gameState.bitBoards.setPieceAt(4, 0, Constants.PieceType.KING, Constants.Side.WHITE);
-        gameState.bitBoards.setPieceAt(7, 0, Constants.PieceType.ROOK, Constants.Side.WHITE);
+        gameState.bitBoards.setPieceAt(4, 0, new Piece(Piece.KING, Piece.WHITE));
+        gameState.bitBoards.setPieceAt(7, 0, new Piece(Piece.ROOK, Piece.WHITE));
 
-        Move kingCastle = new Move(4, 0, 6, 0, Move.MoveType.SHORT_CASTLE);
+        int kingCastle = EncodedMove.encode(4, 0, 6, 0, Move.MoveType.SHORT_CASTLE);
         gameState.makeMove(kingCastle);
 
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(7, 0),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(7, 0).getType(),
                 "The rook's original position should be empty after castling.");
         assertEquals(
-                Constants.PieceType.ROOK,
-                gameState.bitBoards.getPieceAt(5, 0),
+                Piece.ROOK,
+                gameState.bitBoards.getPieceAt(5, 0).getType(),
                 "The rook should be in the correct position after castling.");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(4, 0),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(4, 0).getType(),
                 "The king's original position should be empty after castling.");
         assertEquals(
-                Constants.PieceType.KING,
-                gameState.bitBoards.getPieceAt(6, 0),
+                Piece.KING,
+                gameState.bitBoards.getPieceAt(6, 0).getType(),
                 "The king should be in the correct position after castling.");
 
-        CastlingRights castlingRights = gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRights = gameState.getEncodedIrreversibleData();
         assertFalse(
-                castlingRights.whiteShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRights, Piece.WHITE),
                 "White should not be able to castle kingside after castling");
         assertFalse(
-                castlingRights.whiteLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRights, Piece.WHITE),
                 "White should not be able to castle queenside after castling");
 
         gameState.unmakeMove(kingCastle);
 
         assertNotEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(7, 0),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(7, 0).getType(),
                 "The rook's original position should be full before castling.");
         assertNotEquals(
-                Constants.PieceType.ROOK,
-                gameState.bitBoards.getPieceAt(5, 0),
+                Piece.ROOK,
+                gameState.bitBoards.getPieceAt(5, 0).getType(),
                 "The rook should be in the correct position before castling.");
         assertNotEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(4, 0),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(4, 0).getType(),
                 "The king's original position should be full before castling.");
         assertNotEquals(
-                Constants.PieceType.KING,
-                gameState.bitBoards.getPieceAt(6, 0),
+                Piece.KING,
+                gameState.bitBoards.getPieceAt(6, 0).getType(),
                 "The king should be in the correct position before castling.");
 
-        CastlingRights castlingRightsAfterUnmake =
-                gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRightsAfterUnmake = gameState.getEncodedIrreversibleData();
         assertTrue(
-                castlingRightsAfterUnmake.whiteShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRightsAfterUnmake, Piece.WHITE),
                 "White should be able to castle kingside after unmaking castling");
         assertTrue(
-                castlingRightsAfterUnmake.whiteLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRightsAfterUnmake, Piece.WHITE),
                 "White should be able to castle queenside after unmaking castling");
     }
 
     @Test
     void testCastleBlack() {
-        GameState.resetGameState();
+        gameState = new GameState();
         gameState.isWhitesTurn = false;
-        gameState.bitBoards.setPieceAt(4, 7, Constants.PieceType.KING, Constants.Side.BLACK);
-        gameState.bitBoards.setPieceAt(7, 7, Constants.PieceType.ROOK, Constants.Side.BLACK);
+        gameState.bitBoards.setPieceAt(4, 7, new Piece(Piece.KING, Piece.BLACK));
+        gameState.bitBoards.setPieceAt(7, 7, new Piece(Piece.ROOK, Piece.BLACK));
 
-        Move kingCastle = new Move(4, 7, 6, 7, Move.MoveType.SHORT_CASTLE);
+        int kingCastle = EncodedMove.encode(4, 7, 6, 7, Move.MoveType.SHORT_CASTLE);
         gameState.makeMove(kingCastle);
 
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(7, 7),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(7, 7).getType(),
                 "The rook's original position should be empty after castling.");
         assertEquals(
-                Constants.PieceType.ROOK,
-                gameState.bitBoards.getPieceAt(5, 7),
+                Piece.ROOK,
+                gameState.bitBoards.getPieceAt(5, 7).getType(),
                 "The rook should be in the correct position after castling.");
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(4, 7),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(4, 7).getType(),
                 "The king's original position should be empty after castling.");
         assertEquals(
-                Constants.PieceType.KING,
-                gameState.bitBoards.getPieceAt(6, 7),
+                Piece.KING,
+                gameState.bitBoards.getPieceAt(6, 7).getType(),
                 "The king should be in the correct position after castling.");
 
-        CastlingRights castlingRights = gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRights = gameState.getEncodedIrreversibleData();
         assertFalse(
-                castlingRights.blackShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRights, Piece.BLACK),
                 "Black should not be able to castle kingside after castling");
         assertFalse(
-                castlingRights.blackLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRights, Piece.BLACK),
                 "Black should not be able to castle queenside after castling");
 
         gameState.unmakeMove(kingCastle);
 
         assertNotEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(7, 7),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(7, 7).getType(),
                 "The rook's original position should be full before castling.");
         assertNotEquals(
-                Constants.PieceType.ROOK,
-                gameState.bitBoards.getPieceAt(5, 7),
+                Piece.ROOK,
+                gameState.bitBoards.getPieceAt(5, 7).getType(),
                 "The rook should be in the correct position before castling.");
         assertNotEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(4, 7),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(4, 7).getType(),
                 "The king's original position should be full before castling.");
         assertNotEquals(
-                Constants.PieceType.KING,
-                gameState.bitBoards.getPieceAt(6, 7),
+                Piece.KING,
+                gameState.bitBoards.getPieceAt(6, 7).getType(),
                 "The king should be in the correct position before castling.");
 
-        CastlingRights castlingRightsAfterUnmake =
-                gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRightsAfterUnmake = gameState.getEncodedIrreversibleData();
         assertTrue(
-                castlingRightsAfterUnmake.blackShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRightsAfterUnmake, Piece.BLACK),
                 "Black should be able to castle kingside before castling");
         assertTrue(
-                castlingRightsAfterUnmake.blackLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRightsAfterUnmake, Piece.BLACK),
                 "Black should be able to castle queenside before castling");
     }
 
     @Test
     void testPromotion() {
-        gameState.bitBoards.setPieceAt(6, 6, Constants.PieceType.PAWN, Constants.Side.WHITE);
+        gameState.bitBoards.setPieceAt(6, 6, new Piece(Piece.PAWN, Piece.WHITE));
 
-        Move promotionMove = new Move(6, 6, 7, 6, Move.MoveType.QUEEN_PROMOTION);
+        int promotionMove = EncodedMove.encode(6, 6, 7, 6, Move.MoveType.QUEEN_PROMOTION);
         gameState.makeMove(promotionMove);
 
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(6, 6),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(6, 6).getType(),
                 "The source square should be empty after the pawn promotion.");
         assertEquals(
-                Constants.PieceType.QUEEN,
-                gameState.bitBoards.getPieceAt(7, 6),
+                Piece.QUEEN,
+                gameState.bitBoards.getPieceAt(7, 6).getType(),
                 "The promoted piece should be a queen in the correct position.");
 
         gameState.unmakeMove(promotionMove);
 
         assertNotEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(6, 6),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(6, 6).getType(),
                 "The source square should be full before the pawn promotion.");
         assertNotEquals(
-                Constants.PieceType.QUEEN,
-                gameState.bitBoards.getPieceAt(7, 6),
+                Piece.QUEEN,
+                gameState.bitBoards.getPieceAt(7, 6).getType(),
                 "The promoted piece should be a empty in the correct position.");
     }
 
     @Test
     void testPromotionCapture() {
-        gameState.bitBoards.setPieceAt(6, 6, Constants.PieceType.PAWN, Constants.Side.WHITE);
-        gameState.bitBoards.setPieceAt(7, 7, Constants.PieceType.BISHOP, Constants.Side.BLACK);
-
-        Move promotionCaptureMove =
-                new Move(6, 6, 7, 7, Move.MoveType.QUEEN_PROMOTION, Constants.PieceType.BISHOP);
+        gameState.bitBoards.setPieceAt(6, 6, new Piece(Piece.PAWN, Piece.WHITE));
+        gameState.bitBoards.setPieceAt(7, 7, new Piece(Piece.BISHOP, Piece.BLACK));
+
+        int promotionCaptureMove =
+                EncodedMove.encode(
+                        6,
+                        6,
+                        7,
+                        7,
+                        Move.MoveType.QUEEN_PROMOTION,
+                        new Piece(Piece.BISHOP, Piece.BLACK));
         gameState.makeMove(promotionCaptureMove);
 
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(6, 6),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(6, 6).getType(),
                 "The source square should be empty after the pawn promotion capture.");
-        assertEquals(
-                Constants.PieceType.QUEEN,
-                gameState.bitBoards.getPieceAt(7, 7),
+        assertEquals(Piece.QUEEN, gameState.bitBoards.getPieceAt(7, 7).getType(),
                 "The promoted piece should replace the captured piece, becoming a queen in the"
                         + " correct position.");
 
         gameState.unmakeMove(promotionCaptureMove);
 
         assertNotEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(6, 6),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(6, 6).getType(),
                 "The source square should not be empty before the pawn promotion capture.");
-        assertNotEquals(
-                Constants.PieceType.QUEEN,
-                gameState.bitBoards.getPieceAt(7, 7),
+        assertNotEquals(Piece.QUEEN, gameState.bitBoards.getPieceAt(7, 7).getType(),
                 "The promoted piece should not replace the captured piece, becoming a queen in the"
                         + " correct position.");
     }
 
     @Test
     void testKingMovementRemovesCastlingRights() {
-        gameState.bitBoards.setPieceAt(4, 7, Constants.PieceType.KING, Constants.Side.WHITE);
-        gameState.bitBoards.setPieceAt(7, 7, Constants.PieceType.ROOK, Constants.Side.WHITE);
-        gameState.bitBoards.setPieceAt(0, 7, Constants.PieceType.ROOK, Constants.Side.WHITE);
+        gameState.bitBoards.setPieceAt(4, 7, new Piece(Piece.KING, Piece.WHITE));
+        gameState.bitBoards.setPieceAt(7, 7, new Piece(Piece.ROOK, Piece.WHITE));
+        gameState.bitBoards.setPieceAt(0, 7, new Piece(Piece.ROOK, Piece.WHITE));
 
-        Move kingMove = new Move(4, 7, 4, 6);
+        int kingMove = EncodedMove.encode(4, 7, 4, 6);
         gameState.makeMove(kingMove);
 
-        CastlingRights castlingRights = gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRights = gameState.getEncodedIrreversibleData();
         assertFalse(
-                castlingRights.whiteShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRights, Piece.WHITE),
                 "White should not be able to castle kingside after king movement");
         assertFalse(
-                castlingRights.whiteLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRights, Piece.WHITE),
                 "White should not be able to castle queenside after king movement");
 
         gameState.unmakeMove(kingMove);
 
-        CastlingRights castlingRightsAfterUnmake =
-                gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRightsAfterUnmake = gameState.getEncodedIrreversibleData();
         assertTrue(
-                castlingRightsAfterUnmake.whiteShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRightsAfterUnmake, Piece.WHITE),
                 "White should be able to castle kingside before king movement");
         assertTrue(
-                castlingRightsAfterUnmake.whiteLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRightsAfterUnmake, Piece.WHITE),
                 "White should be able to castle queenside before king movement");
     }
 
     @Test
     void testKingMovementRemovesCastlingRightsBlack() {
-        GameState.resetGameState();
+        gameState = new GameState();
         gameState.isWhitesTurn = false;
-        gameState.bitBoards.setPieceAt(4, 0, Constants.PieceType.KING, Constants.Side.BLACK);
-        gameState.bitBoards.setPieceAt(7, 0, Constants.PieceType.ROOK, Constants.Side.BLACK);
-        gameState.bitBoards.setPieceAt(0, 0, Constants.PieceType.ROOK, Constants.Side.BLACK);
+        gameState.bitBoards.setPieceAt(4, 0, new Piece(Piece.KING, Piece.BLACK));
+        gameState.bitBoards.setPieceAt(7, 0, new Piece(Piece.ROOK, Piece.BLACK));
+        gameState.bitBoards.setPieceAt(0, 0, new Piece(Piece.ROOK, Piece.BLACK));
 
-        Move kingMove = new Move(4, 0, 4, 1);
+        int kingMove = EncodedMove.encode(4, 0, 4, 1);
         gameState.makeMove(kingMove);
 
-        CastlingRights castlingRights = gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRights = gameState.getEncodedIrreversibleData();
         assertFalse(
-                castlingRights.blackShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRights, Piece.BLACK),
                 "Black should not be able to castle kingside after king movement");
         assertFalse(
-                castlingRights.blackLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRights, Piece.BLACK),
                 "Black should not be able to castle queenside after king movement");
 
         gameState.unmakeMove(kingMove);
 
-        CastlingRights castlingRightsAfterUnmake =
-                gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRightsAfterUnmake = gameState.getEncodedIrreversibleData();
         assertTrue(
-                castlingRightsAfterUnmake.blackShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRightsAfterUnmake, Piece.BLACK),
                 "Black should be able to castle kingside before king movement");
         assertTrue(
-                castlingRightsAfterUnmake.blackLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRightsAfterUnmake, Piece.BLACK),
                 "Black should be able to castle queenside before king movement");
     }
 
     @Test
     void testRookMovementRemovesSpecificCastlingRight() {
-        gameState.bitBoards.setPieceAt(4, 7, Constants.PieceType.KING, Constants.Side.WHITE);
-        gameState.bitBoards.setPieceAt(7, 7, Constants.PieceType.ROOK, Constants.Side.WHITE);
-        gameState.bitBoards.setPieceAt(0, 7, Constants.PieceType.ROOK, Constants.Side.WHITE);
+        gameState.bitBoards.setPieceAt(4, 7, new Piece(Piece.KING, Piece.WHITE));
+        gameState.bitBoards.setPieceAt(7, 7, new Piece(Piece.ROOK, Piece.WHITE));
+        gameState.bitBoards.setPieceAt(0, 7, new Piece(Piece.ROOK, Piece.WHITE));
 
-        Move kingSideRookMove = new Move(7, 7, 7, 6);
+        int kingSideRookMove = EncodedMove.encode(7, 7, 7, 6);
         gameState.makeMove(kingSideRookMove);
 
-        CastlingRights castlingRights = gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRights = gameState.getEncodedIrreversibleData();
         assertFalse(
-                castlingRights.whiteShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRights, Piece.WHITE),
                 "White should not be able to castle kingside after kingside rook movement");
         assertTrue(
-                castlingRights.whiteLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRights, Piece.WHITE),
                 "White should still be able to castle queenside after kingside rook movement");
 
         gameState.unmakeMove(kingSideRookMove);
 
-        CastlingRights castlingRightsAfterUnmake =
-                gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRightsAfterUnmake = gameState.getEncodedIrreversibleData();
         assertTrue(
-                castlingRightsAfterUnmake.whiteShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRightsAfterUnmake, Piece.WHITE),
                 "White should be able to castle kingside before kingside rook movement");
         assertTrue(
-                castlingRightsAfterUnmake.whiteLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRightsAfterUnmake, Piece.WHITE),
                 "White should still be able to castle queenside before kingside rook movement");
     }
 
     @Test
     void testRookMovementRemovesSpecificCastlingRightBlack() {
-        GameState.resetGameState();
+        gameState = new GameState();
         gameState.isWhitesTurn = false;
-        gameState.bitBoards.setPieceAt(4, 0, Constants.PieceType.KING, Constants.Side.BLACK);
-        gameState.bitBoards.setPieceAt(7, 0, Constants.PieceType.ROOK, Constants.Side.BLACK);
-        gameState.bitBoards.setPieceAt(0, 0, Constants.PieceType.ROOK, Constants.Side.BLACK);
+        gameState.bitBoards.setPieceAt(4, 0, new Piece(Piece.KING, Piece.BLACK));
+        gameState.bitBoards.setPieceAt(7, 0, new Piece(Piece.ROOK, Piece.BLACK));
+        gameState.bitBoards.setPieceAt(0, 0, new Piece(Piece.ROOK, Piece.BLACK));
 
-        Move kingSideRookMove = new Move(7, 0, 7, 1);
+        int kingSideRookMove = EncodedMove.encode(7, 0, 7, 1);
         gameState.makeMove(kingSideRookMove);
 
-        CastlingRights castlingRights = gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRights = gameState.getEncodedIrreversibleData();
         assertFalse(
-                castlingRights.blackShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRights, Piece.BLACK),
                 "Black should not be able to castle kingside after kingside rook movement");
         assertTrue(
-                castlingRights.blackLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRights, Piece.BLACK),
                 "Black should still be able to castle queenside after kingside rook movement");
 
         gameState.unmakeMove(kingSideRookMove);
 
-        CastlingRights castlingRightsAfterUnmake =
-                gameState.irreversibleDataStack.peek().castlingRights();
+        long castlingRightsAfterUnmake = gameState.getEncodedIrreversibleData();
         assertTrue(
-                castlingRightsAfterUnmake.blackShortCastle(),
+                EncodedIrreversibleData.canShortCastle(castlingRightsAfterUnmake, Piece.BLACK),
                 "Black should be able to castle kingside before kingside rook movement");
         assertTrue(
-                castlingRightsAfterUnmake.blackLongCastle(),
+                EncodedIrreversibleData.canLongCastle(castlingRightsAfterUnmake, Piece.BLACK),
                 "Black should still be able to castle queenside before kingside rook movement");
     }
 
     @Test
     void testUnmakingCapture() {
-        gameState.bitBoards.setPieceAt(4, 0, Constants.PieceType.QUEEN, Constants.Side.WHITE);
-        gameState.bitBoards.setPieceAt(5, 0, Constants.PieceType.QUEEN, Constants.Side.BLACK);
+        gameState.bitBoards.setPieceAt(4, 0, new Piece(Piece.QUEEN, Piece.WHITE));
+        gameState.bitBoards.setPieceAt(5, 0, new Piece(Piece.QUEEN, Piece.BLACK));
 
-        Move captureMove = new Move(4, 0, 5, 0, Constants.PieceType.QUEEN);
+        int captureMove = EncodedMove.encode(4, 0, 5, 0, new Piece(Piece.QUEEN, Piece.BLACK));
         gameState.makeMove(captureMove);
 
         assertEquals(
-                Constants.PieceType.EMPTY,
-                gameState.bitBoards.getPieceAt(4, 0),
+                Piece.EMPTY,
+                gameState.bitBoards.getPieceAt(4, 0).getType(),
                 "The white queen should be removed from the board after a capture.");
 
-        assertEquals(
-                Constants.Side.EMPTY,
-                gameState.bitBoards.getSideAt(4, 0),
+        assertTrue(
+                gameState.bitBoards.getPieceAt(4, 0).isEmpty(),
                 "The white queen should be removed from the board after a capture.");
 
         assertEquals(
-                Constants.PieceType.QUEEN,
-                gameState.bitBoards.getPieceAt(5, 0),
+                Piece.QUEEN,
+                gameState.bitBoards.getPieceAt(5, 0).getType(),
                 "The white queen should now be on the target square after a capture.");
 
         assertEquals(
-                Constants.Side.WHITE,
-                gameState.bitBoards.getSideAt(5, 0),
+                Piece.WHITE,
+                gameState.bitBoards.getPieceAt(5, 0).getSide(),
                 "The white queen should now be on the target square after a capture.");
 
         gameState.unmakeMove(captureMove);
 
         assertEquals(
-                Constants.PieceType.QUEEN,
-                gameState.bitBoards.getPieceAt(4, 0),
+                Piece.QUEEN,
+                gameState.bitBoards.getPieceAt(4, 0).getType(),
                 "The white queen should be put back on the board after an unmake.");
 
         assertEquals(
-                Constants.Side.WHITE,
-                gameState.bitBoards.getSideAt(4, 0),
+                Piece.WHITE,
+                gameState.bitBoards.getPieceAt(4, 0).getSide(),
                 "The white queen should be put back on the board after an unmake.");
 
         assertEquals(
-                Constants.PieceType.QUEEN,
-                gameState.bitBoards.getPieceAt(5, 0),
+                Piece.QUEEN,
+                gameState.bitBoards.getPieceAt(5, 0).getType(),
                 "The black queen should be put back on the board after an unmake.");
 
         assertEquals(
-                Constants.Side.BLACK,
-                gameState.bitBoards.getSideAt(5, 0),
+                Piece.BLACK,
+                gameState.bitBoards.getPieceAt(5, 0).getSide(),
                 "The white queen should be put back on the board after an unmake.");
     }
 
     @Test
     void testCastlingLossOnRightRookCapture() {
-        FenParser.loadFenString(
-                "r3k2r/p1ppqNb1/1n2pnp1/1b1P4/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 1 2");
+        gameState =
+                FenParser.loadFenString(
+                        "r3k2r/p1ppqNb1/1n2pnp1/1b1P4/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 1 2");
 
-        Move captureMove = new Move(5, 1, 7, 0, Constants.PieceType.ROOK);
+        int captureMove = EncodedMove.encode(5, 1, 7, 0, new Piece(Piece.ROOK, Piece.BLACK));
         gameState.makeMove(captureMove);
 
-        assertFalse(gameState.irreversibleDataStack.peek().castlingRights().blackShortCastle());
-        assertTrue(gameState.irreversibleDataStack.peek().castlingRights().blackLongCastle());
+        assertFalse(
+                EncodedIrreversibleData.canShortCastle(
+                        gameState.getEncodedIrreversibleData(), Piece.BLACK));
+        assertTrue(
+                EncodedIrreversibleData.canLongCastle(
+                        gameState.getEncodedIrreversibleData(), Piece.BLACK));
     }
 
     @Test
     void testCastlingLossOnLeftRookCapture() {
-        FenParser.loadFenString(
-                "r3k2r/p1p1qpb1/bN1ppnp1/1B1P4/1p2P3/2N2Q1p/PPPB1PPP/1R3K1R w KAkq - 0 1");
+        gameState =
+                FenParser.loadFenString(
+                        "r3k2r/p1p1qpb1/bN1ppnp1/1B1P4/1p2P3/2N2Q1p/PPPB1PPP/1R3K1R w KAkq - 0 1");
 
-        Move captureMove = new Move(1, 2, 0, 0, Constants.PieceType.ROOK);
+        int captureMove = EncodedMove.encode(1, 2, 0, 0, new Piece(Piece.ROOK, Piece.BLACK));
         gameState.makeMove(captureMove);
 
-        assertTrue(gameState.irreversibleDataStack.peek().castlingRights().blackShortCastle());
-        assertFalse(gameState.irreversibleDataStack.peek().castlingRights().blackLongCastle());
+        assertTrue(
+                EncodedIrreversibleData.canShortCastle(
+                        gameState.getEncodedIrreversibleData(), Piece.BLACK));
+        assertFalse(
+                EncodedIrreversibleData.canLongCastle(
+                        gameState.getEncodedIrreversibleData(), Piece.BLACK));
+    }
+
+    @Test
+    void testNullMove() {
+        gameState = FenParser.loadFenString("4k3/8/8/8/3pP3/8/8/4K3 b - e3 5 20");
+        long zobristHash = gameState.getZobristHash();
+
+        gameState.makeNullMove();
+
+        // the same as if the position had been loaded with white to move and no en passant
+        GameState expected = FenParser.loadFenString("4k3/8/8/8/3pP3/8/8/4K3 w - - 0 21");
+        assertTrue(gameState.isWhitesTurn());
+        assertEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT,
+                EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()));
+        assertEquals(
+                0,
+                EncodedIrreversibleData.getHalfMoveClock(gameState.getEncodedIrreversibleData()));
+        assertEquals(expected.getZobristHash(), gameState.getZobristHash());
+
+        gameState.unmakeNullMove();
+
+        assertFalse(gameState.isWhitesTurn());
+        assertEquals(
+                4, EncodedIrreversibleData.getEnPassantX(gameState.getEncodedIrreversibleData()));
+        assertEquals(
+                5,
+                EncodedIrreversibleData.getHalfMoveClock(gameState.getEncodedIrreversibleData()));
+        assertEquals(zobristHash, gameState.getZobristHash());
     }
 }
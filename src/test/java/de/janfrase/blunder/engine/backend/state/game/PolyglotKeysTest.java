@@ -0,0 +1,39 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import org.junit.jupiter.api.Test;
+
+class PolyglotKeysTest {
+
+    @Test
+    void parseReadsTheRandom64Array() {
+        StringBuilder array = new StringBuilder("const uint64 Random64[781] = {\n");
+        for (int i = 0; i < PolyglotKeys.KEY_COUNT; i++) {
+            array.append("   U64(0x").append(Long.toHexString(-1L - i)).append("),\n");
+        }
+        array.append("};\n");
+
+        long[] keys = PolyglotKeys.parse(array.toString());
+
+        assertEquals(PolyglotKeys.KEY_COUNT, keys.length);
+        assertEquals(0xFFFFFFFFFFFFFFFFL, keys[0]);
+        assertEquals(-1L - 780, keys[PolyglotKeys.WHITE_TO_MOVE]);
+    }
+
+    @Test
+    void parseRejectsAnIncompleteTable() {
+        assertThrows(IllegalArgumentException.class, () -> PolyglotKeys.parse("0x1 0x2 0x3"));
+    }
+
+    @Test
+    void pieceKeyIndex() {
+        // the white pawn on e2 and the black king on e8
+        assertEquals(76, PolyglotKeys.getPieceKeyIndex(Piece.of(Piece.PAWN, Piece.WHITE), 4, 6));
+        assertEquals(
+                64 * 10 + 8 * 7 + 4,
+                PolyglotKeys.getPieceKeyIndex(Piece.of(Piece.KING, Piece.BLACK), 4, 0));
+    }
+}
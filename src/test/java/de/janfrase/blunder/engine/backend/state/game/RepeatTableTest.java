@@ -0,0 +1,93 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.game;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.janfrase.blunder.uci.UciMoveParser;
+import org.junit.jupiter.api.Test;
+
+class RepeatTableTest {
+
+    private static final String STARTING_POSITION =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String[] KNIGHT_SHUFFLE = {"g1f3", "g8f6", "f3g1", "f6g8"};
+
+    @Test
+    void testTwofoldRepetitionDuringTheSearch() {
+        GameState gameState = FenParser.loadFenString(STARTING_POSITION);
+        makeMoves(gameState, KNIGHT_SHUFFLE);
+
+        // the search started before the first knight move, so the repetition happened inside it
+        assertTrue(gameState.isRepeatedPosition(4));
+        // the search started afterward, so the position only occurred twice in the game history
+        assertFalse(gameState.isRepeatedPosition(0));
+    }
+
+    @Test
+    void testThreefoldRepetitionInTheGameHistory() {
+        GameState gameState = FenParser.loadFenString(STARTING_POSITION);
+        makeMoves(gameState, KNIGHT_SHUFFLE);
+        makeMoves(gameState, KNIGHT_SHUFFLE);
+
+        assertTrue(gameState.isRepeatedPosition(0));
+    }
+
+    @Test
+    void testNoRepetitionAcrossAPawnMove() {
+        GameState gameState = FenParser.loadFenString(STARTING_POSITION);
+        makeMoves(gameState, KNIGHT_SHUFFLE);
+        makeMoves(gameState, "e2e3", "e7e6");
+        makeMoves(gameState, KNIGHT_SHUFFLE);
+
+        // the positions before the pawn moves had the pawns somewhere else
+        assertTrue(gameState.isRepeatedPosition(4));
+        assertFalse(gameState.isRepeatedPosition(0));
+    }
+
+    @Test
+    void testUnmakeRemovesTheRepetition() {
+        GameState gameState = FenParser.loadFenString(STARTING_POSITION);
+        makeMoves(gameState, KNIGHT_SHUFFLE);
+        assertTrue(gameState.isRepeatedPosition(4));
+
+        gameState.unmakeMove(UciMoveParser.parseUciMove("f6g8", gameState));
+        assertFalse(gameState.isRepeatedPosition(3));
+    }
+
+    @Test
+    void testUpcomingRepetitionDuringTheSearch() {
+        GameState gameState = FenParser.loadFenString(STARTING_POSITION);
+        // black can go back to g8 next
+        makeMoves(gameState, "g1f3", "g8f6", "f3g1");
+
+        assertTrue(gameState.hasUpcomingRepetition(3));
+        // before the search the starting position only occurred once
+        assertFalse(gameState.hasUpcomingRepetition(0));
+    }
+
+    @Test
+    void testUpcomingThreefoldRepetition() {
+        GameState gameState = FenParser.loadFenString(STARTING_POSITION);
+        makeMoves(gameState, KNIGHT_SHUFFLE);
+        makeMoves(gameState, "g1f3", "g8f6", "f3g1");
+
+        assertTrue(gameState.hasUpcomingRepetition(0));
+    }
+
+    @Test
+    void testNoUpcomingRepetitionWithoutAMoveBack() {
+        GameState gameState = FenParser.loadFenString(STARTING_POSITION);
+        // the knight on f3 would have to go back to g1, but it is black's turn
+        makeMoves(gameState, "g1f3", "g8f6", "b1c3");
+
+        assertFalse(gameState.hasUpcomingRepetition(3));
+    }
+
+    private static void makeMoves(GameState gameState, String... moves) {
+        for (String move : moves) {
+            gameState.makeMove(UciMoveParser.parseUciMove(move, gameState));
+        }
+    }
+}
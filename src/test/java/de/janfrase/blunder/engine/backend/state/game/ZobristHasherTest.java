@@ -3,17 +3,28 @@ package de.janfrase.blunder.engine.backend.state.game;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-import de.janfrase.blunder.engine.backend.movegen.Move;
 import de.janfrase.blunder.uci.UciMoveParser;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 class ZobristHasherTest {
 
-    private final GameState gameState = GameState.getInstance();
+    // a made up table, only the layout of the keys is tested here
+    private static final long[] POLYGLOT_KEYS =
+            new Random(42).longs(PolyglotKeys.KEY_COUNT).toArray();
+
+    private GameState gameState = new GameState();
+
+    @AfterEach
+    void useOwnKeysAgain() {
+        ZobristHasher.useOwnKeys();
+    }
 
     @Test
     void enPassantTest() {
-        FenParser.loadFenString("3k4/8/8/8/3p4/8/2P5/3K4 w - - 0 1");
+        gameState = FenParser.loadFenString("3k4/8/8/8/3p4/8/2P5/3K4 w - - 0 1");
 
         String[] moves =
                 new String[] {
@@ -25,7 +36,7 @@ class ZobristHasherTest {
 
     @Test
     void enPassantTest2() {
-        FenParser.loadFenString("4k3/8/2b5/8/8/8/2P5/4K3 w - - 0 1");
+        gameState = FenParser.loadFenString("4k3/8/2b5/8/8/8/2P5/4K3 w - - 0 1");
 
         String[] moves = new String[] {"c2c4", "c6b7", "e1e2", "b7c6", "e2e1"};
 
@@ -34,7 +45,7 @@ class ZobristHasherTest {
 
     @Test
     void castlingTest() {
-        FenParser.loadFenString("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        gameState = FenParser.loadFenString("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1");
 
         String[] moves =
                 new String[] {
@@ -46,7 +57,7 @@ class ZobristHasherTest {
 
     @Test
     void captureTest() {
-        FenParser.loadFenString("4k3/8/2b5/8/8/8/2B5/4K3 w - - 0 1");
+        gameState = FenParser.loadFenString("4k3/8/2b5/8/8/8/2B5/4K3 w - - 0 1");
 
         String[] moves =
                 new String[] {
@@ -56,20 +67,223 @@ class ZobristHasherTest {
         testHelper(moves);
     }
 
+    @Test
+    void incrementalHashMatchesFreshHash() {
+        // castling moves the rook as well
+        assertHashAfterMove(
+                "4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "e1g1", "4k3/8/8/8/8/8/8/R4RK1 b - - 1 1");
+        // the promoted piece is on the board, not the pawn
+        assertHashAfterMove(
+                "4k3/1P6/8/8/8/8/8/4K3 w - - 0 1", "b7b8q", "1Q2k3/8/8/8/8/8/8/4K3 b - - 0 1");
+        // the en passant file is part of the hash after a double push
+        assertHashAfterMove(
+                "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1", "e2e4", "4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1");
+    }
+
+    @Test
+    void castlingRightsAreHashedWithOneKeyPerRight() {
+        String position = "r3k2r/8/8/8/8/8/8/R3K2R w %s - 0 1";
+        long all = FenParser.loadFenString(position.formatted("KQkq")).getZobristHash();
+        long withoutWhiteShort =
+                FenParser.loadFenString(position.formatted("Qkq")).getZobristHash();
+        long onlyWhiteShort = FenParser.loadFenString(position.formatted("K")).getZobristHash();
+        long none = FenParser.loadFenString(position.formatted("-")).getZobristHash();
+
+        // removing the same right always flips the same key
+        assertEquals(all ^ withoutWhiteShort, onlyWhiteShort ^ none);
+    }
+
+    @Test
+    void enPassantFileIsHashedEvenIfNoPawnCanCapture() {
+        // unlike Polyglot, which would give both positions the same hash
+        long withEnPassant =
+                FenParser.loadFenString("4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1").getZobristHash();
+        long withoutEnPassant =
+                FenParser.loadFenString("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1").getZobristHash();
+
+        assertNotEquals(withEnPassant, withoutEnPassant);
+    }
+
+    @Test
+    void hashIsTheSameInEveryRun() {
+        // the keys come from a fixed seed, so this only changes if the seed or the key layout does
+        GameState startingPosition =
+                FenParser.loadFenString("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+
+        assertEquals(0x72f6fdfb4beebf3bL, startingPosition.getZobristHash());
+    }
+
+    @Test
+    void polyglotHashMatchesTheBookFormat() {
+        ZobristHasher.usePolyglotKeys(POLYGLOT_KEYS);
+
+        String[] fenStrings =
+                new String[] {
+                    "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    // no black pawn next to e4, so the en passant file does not count
+                    "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+                    // the pawn on f4 could take on e3
+                    "rnbqkbnr/ppppp1pp/8/8/4Pp2/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3",
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    "r3k2r/8/8/3pP3/8/8/8/R3K2R w Kq d6 0 1",
+                    "r3k3/8/8/8/8/8/8/4K2R b Kq - 0 1"
+                };
+
+        for (String fenString : fenStrings) {
+            assertEquals(
+                    polyglotHash(fenString),
+                    FenParser.loadFenString(fenString).getZobristHash(),
+                    fenString);
+        }
+    }
+
+    @Test
+    void polyglotHashIsUpdatedIncrementally() {
+        ZobristHasher.usePolyglotKeys(POLYGLOT_KEYS);
+
+        // the double push can be taken en passant, the king move takes the right away again
+        assertPolyglotHashAfterMove(
+                "4k3/8/8/8/3p4/8/2P5/4K3 w - - 0 1", "c2c4", "4k3/8/8/8/2Pp4/8/8/4K3 b - c3 0 1");
+        assertPolyglotHashAfterMove(
+                "4k3/8/8/8/2Pp4/8/8/4K3 b - c3 0 1", "d4c3", "4k3/8/8/8/8/2p5/8/4K3 w - - 0 1");
+        assertPolyglotHashAfterMove(
+                "4k3/8/8/8/2Pp4/8/8/4K3 b - c3 0 1", "e8e7", "8/4k3/8/8/2Pp4/8/8/4K3 w - - 1 2");
+        // nothing can take on e3
+        assertPolyglotHashAfterMove(
+                "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1", "e2e4", "4k3/8/8/8/4P3/8/8/4K3 b - - 0 1");
+        assertPolyglotHashAfterMove(
+                "r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1",
+                "e8c8",
+                "2kr3r/8/8/8/8/8/8/R3K2R w KQ - 1 2");
+
+        // making and unmaking moves and null moves has to end up where it started
+        gameState = FenParser.loadFenString("4k3/8/8/8/3p4/8/2P5/3K4 w - - 0 1");
+        testHelper(new String[] {"c2c4", "d4c3", "d1e1"});
+
+        gameState = FenParser.loadFenString("4k3/8/8/8/2Pp4/8/8/4K3 b - c3 0 1");
+        long hash = gameState.getZobristHash();
+        gameState.makeNullMove();
+        assertEquals(polyglotHash("4k3/8/8/8/2Pp4/8/8/4K3 w - - 0 1"), gameState.getZobristHash());
+        gameState.unmakeNullMove();
+        assertEquals(hash, gameState.getZobristHash());
+    }
+
+    @Test
+    void polyglotOnlyHashesEnPassantIfAPawnCanCapture() {
+        ZobristHasher.usePolyglotKeys(POLYGLOT_KEYS);
+
+        assertEquals(
+                FenParser.loadFenString("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1").getZobristHash(),
+                FenParser.loadFenString("4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1").getZobristHash());
+        // a pawn of the side that just moved does not count
+        assertEquals(
+                FenParser.loadFenString("4k3/8/8/8/3PP3/8/8/4K3 b - - 0 1").getZobristHash(),
+                FenParser.loadFenString("4k3/8/8/8/3PP3/8/8/4K3 b - e3 0 1").getZobristHash());
+        assertNotEquals(
+                FenParser.loadFenString("4k3/8/8/8/4Pp2/8/8/4K3 b - - 0 1").getZobristHash(),
+                FenParser.loadFenString("4k3/8/8/8/4Pp2/8/8/4K3 b - e3 0 1").getZobristHash());
+    }
+
+    @Test
+    void switchingBackRestoresOurOwnKeys() {
+        ZobristHasher.usePolyglotKeys(POLYGLOT_KEYS);
+        ZobristHasher.useOwnKeys();
+
+        assertEquals(0x72f6fdfb4beebf3bL, FenParser.loadStartingPosition().getZobristHash());
+    }
+
+    @Test
+    void polyglotKeysNeedTheWholeTable() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> ZobristHasher.usePolyglotKeys(new long[PolyglotKeys.KEY_COUNT - 1]));
+    }
+
+    @Test
+    void polyglotKeysThatCanNotFindRepetitionsAreRejected() {
+        // every move would have the same key, so the cuckoo table can not hold them
+        long[] sameKeys = new long[PolyglotKeys.KEY_COUNT];
+        Arrays.fill(sameKeys, 0x1234L);
+
+        assertThrows(IllegalArgumentException.class, () -> ZobristHasher.usePolyglotKeys(sameKeys));
+        assertEquals(0x72f6fdfb4beebf3bL, FenParser.loadStartingPosition().getZobristHash());
+    }
+
+    /**
+     * Computes the Polyglot hash straight from the fen string, the way the book format describes it.
+     */
+    private static long polyglotHash(String fenString) {
+        String[] segments = fenString.split(" ");
+        String[] rows = segments[0].split("/");
+        boolean whiteToMove = segments[1].equals("w");
+
+        char[][] board = new char[8][8];
+        long hash = 0;
+        for (int rank = 7; rank >= 0; rank--) {
+            int file = 0;
+            for (char c : rows[7 - rank].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    file += c - '0';
+                    continue;
+                }
+
+                board[rank][file] = c;
+                int kind = 2 * "pnbrqk".indexOf(Character.toLowerCase(c));
+                if (Character.isUpperCase(c)) kind++;
+                hash ^= POLYGLOT_KEYS[64 * kind + 8 * rank + file];
+                file++;
+            }
+        }
+
+        String castling = segments[2];
+        String[] rights = new String[] {"K", "Q", "k", "q"};
+        for (int i = 0; i < rights.length; i++) {
+            if (castling.contains(rights[i])) hash ^= POLYGLOT_KEYS[768 + i];
+        }
+
+        if (!segments[3].equals("-")) {
+            int file = segments[3].charAt(0) - 'a';
+            int rank = whiteToMove ? 4 : 3;
+            char pawn = whiteToMove ? 'P' : 'p';
+            if ((file > 0 && board[rank][file - 1] == pawn)
+                    || (file < 7 && board[rank][file + 1] == pawn)) {
+                hash ^= POLYGLOT_KEYS[772 + file];
+            }
+        }
+
+        if (whiteToMove) hash ^= POLYGLOT_KEYS[780];
+        return hash;
+    }
+
+    private void assertPolyglotHashAfterMove(
+            String fenString, String uciMove, String expectedFenString) {
+        assertHashAfterMove(fenString, uciMove, expectedFenString);
+        assertEquals(polyglotHash(expectedFenString), gameState.getZobristHash());
+    }
+
+    private void assertHashAfterMove(String fenString, String uciMove, String expectedFenString) {
+        gameState = FenParser.loadFenString(fenString);
+        gameState.makeMove(UciMoveParser.parseUciMove(uciMove, gameState));
+
+        assertEquals(
+                FenParser.loadFenString(expectedFenString).getZobristHash(),
+                gameState.getZobristHash());
+    }
+
     private void testHelper(String[] moves) {
         long[] hashes = new long[moves.length];
-        Move[] parsedMoves = new Move[moves.length];
+        int[] parsedMoves = new int[moves.length];
         for (int i = 0; i < moves.length; i++) {
             long zobristHash = gameState.zobristHasher.getZobristHash();
             hashes[i] = zobristHash;
 
-            Move move = UciMoveParser.parseUciMove(moves[i]);
+            int move = UciMoveParser.parseUciMove(moves[i], gameState);
             parsedMoves[i] = move;
             gameState.makeMove(move);
         }
 
         for (int i = moves.length - 1; i >= 0; i--) {
-            Move move = parsedMoves[i];
+            int move = parsedMoves[i];
             gameState.unmakeMove(move);
 
             long zobristHash = gameState.zobristHasher.getZobristHash();
@@ -0,0 +1,60 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.backend.state.game.irreversibles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import org.junit.jupiter.api.Test;
+
+public class EncodedIrreversibleDataTest {
+
+    @Test
+    void testDefault() {
+        long data = EncodedIrreversibleData.DEFAULT;
+
+        assertTrue(EncodedIrreversibleData.canLongCastle(data, Piece.WHITE));
+        assertTrue(EncodedIrreversibleData.canShortCastle(data, Piece.WHITE));
+        assertTrue(EncodedIrreversibleData.canLongCastle(data, Piece.BLACK));
+        assertTrue(EncodedIrreversibleData.canShortCastle(data, Piece.BLACK));
+        assertEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT, EncodedIrreversibleData.getEnPassantX(data));
+        assertEquals(0, EncodedIrreversibleData.getHalfMoveClock(data));
+    }
+
+    @Test
+    void testDisableCastle() {
+        long data =
+                EncodedIrreversibleData.disableShortCastle(
+                        EncodedIrreversibleData.DEFAULT, Piece.BLACK);
+        data = EncodedIrreversibleData.disableLongCastle(data, Piece.WHITE);
+
+        assertFalse(EncodedIrreversibleData.canLongCastle(data, Piece.WHITE));
+        assertTrue(EncodedIrreversibleData.canShortCastle(data, Piece.WHITE));
+        assertTrue(EncodedIrreversibleData.canLongCastle(data, Piece.BLACK));
+        assertFalse(EncodedIrreversibleData.canShortCastle(data, Piece.BLACK));
+        assertEquals(
+                EncodedIrreversibleData.WHITE_SHORT_CASTLE
+                        | EncodedIrreversibleData.BLACK_LONG_CASTLE,
+                EncodedIrreversibleData.getCastlingRights(data));
+    }
+
+    @Test
+    void testFieldsDoNotOverlap() {
+        long data = EncodedIrreversibleData.withHalfMoveClock(EncodedIrreversibleData.DEFAULT, 99);
+        data = EncodedIrreversibleData.withEnPassantX(data, 0);
+
+        assertEquals(0, EncodedIrreversibleData.getEnPassantX(data));
+        assertEquals(99, EncodedIrreversibleData.getHalfMoveClock(data));
+
+        data = EncodedIrreversibleData.withEnPassantX(data, EncodedIrreversibleData.NO_EN_PASSANT);
+        data = EncodedIrreversibleData.withHalfMoveClock(data, 3);
+
+        assertEquals(
+                EncodedIrreversibleData.NO_EN_PASSANT, EncodedIrreversibleData.getEnPassantX(data));
+        assertEquals(3, EncodedIrreversibleData.getHalfMoveClock(data));
+        assertEquals(
+                EncodedIrreversibleData.DEFAULT, EncodedIrreversibleData.getCastlingRights(data));
+    }
+}
@@ -0,0 +1,44 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.evaluation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.janfrase.blunder.engine.backend.state.board.BitBoards;
+import de.janfrase.blunder.engine.backend.state.game.FenParser;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+import org.junit.jupiter.api.Test;
+
+class EvaluatorTest {
+
+    @Test
+    void testOnlyPawnsAndKingsUseTheEndgameScore() {
+        GameState gameState = FenParser.loadFenString("8/pp3k2/8/8/8/8/5PPP/6K1 w - - 0 1");
+        BitBoards board = gameState.getBitBoards();
+
+        assertEquals(0, board.getPhase());
+        assertEquals(board.getEndgameScore(), Evaluator.calculateEvaluation(gameState));
+    }
+
+    @Test
+    void testAllPiecesUseTheMidgameScore() {
+        GameState gameState =
+                FenParser.loadFenString(
+                        "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 5 4");
+        BitBoards board = gameState.getBitBoards();
+
+        assertEquals(board.getMidgameScore(), Evaluator.calculateEvaluation(gameState));
+    }
+
+    @Test
+    void testScoresAreBlendedInBetween() {
+        // the queens and two white minor pieces are gone, so this is in between
+        GameState gameState =
+                FenParser.loadFenString("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNB2RK1 w kq - 0 1");
+        BitBoards board = gameState.getBitBoards();
+
+        assertEquals(14, board.getPhase());
+        assertEquals(
+                (board.getMidgameScore() * 14 + board.getEndgameScore() * 10) / 24,
+                Evaluator.calculateEvaluation(gameState));
+    }
+}
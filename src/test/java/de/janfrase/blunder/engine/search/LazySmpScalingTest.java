@@ -0,0 +1,105 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.janfrase.blunder.engine.backend.movegen.Move;
+import de.janfrase.blunder.engine.backend.state.game.FenParser;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+import de.janfrase.blunder.uci.UciMessageHandler;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures how the search scales with more threads: the time until every position is searched to a fixed
+ * depth, and the nodes per second all threads search together.
+ * Lazy SMP should reach the depth faster, but the nodes per second usually grow a lot more than the speedup.
+ * Both are only checked for thread counts the machine has cores for.
+ */
+@Tag("Slow")
+class LazySmpScalingTest {
+
+    private static final int DEPTH = 9;
+
+    private static final String[] POSITIONS =
+            new String[] {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r4r1k/pp1q2np/2pp1bRQ/4pN2/2B1P3/3P1P2/PPP2P1P/7K w - - 3 22"
+            };
+
+    private static volatile Move bestMove = null;
+
+    @Test
+    void timeToDepthAndNodesPerSecond() {
+        UciMessageHandler.getInstance().setMoveConsumer(move -> bestMove = move);
+
+        int processorCount = Runtime.getRuntime().availableProcessors();
+        int maxThreadCount = Math.max(2, processorCount);
+
+        // the first run also pays for loading the attack tables and the jit, so it is not measured
+        searchAllPositions(1);
+        SearchStatistics single = searchAllPositions(1);
+        System.out.printf(
+                "threads 1: time to depth %d %dms, %d nps%n",
+                DEPTH, single.timeInMillis(), single.nodesPerSecond());
+
+        for (int threadCount = 2; threadCount <= maxThreadCount; threadCount *= 2) {
+            SearchStatistics multi = searchAllPositions(threadCount);
+            System.out.printf(
+                    "threads %d: time to depth %d %dms (%.2fx), %d nps (%.2fx)%n",
+                    threadCount,
+                    DEPTH,
+                    multi.timeInMillis(),
+                    (double) single.timeInMillis() / multi.timeInMillis(),
+                    multi.nodesPerSecond(),
+                    (double) multi.nodesPerSecond() / single.nodesPerSecond());
+
+            // with fewer cores than threads the threads just take turns, so nothing can be expected
+            if (threadCount <= processorCount) {
+                // every extra thread has to add at least half of the nodes a single one searches
+                assertTrue(
+                        multi.nodesPerSecond() >= single.nodesPerSecond() * (threadCount + 1) / 2,
+                        "the nodes per second did not grow enough with "
+                                + threadCount
+                                + " threads");
+                assertTrue(
+                        multi.timeInMillis() < single.timeInMillis(),
+                        "reaching the depth with " + threadCount + " threads was not faster");
+            }
+        }
+
+        SearchManager.getInstance().setThreadCount(SearchManager.DEFAULT_THREAD_COUNT);
+    }
+
+    /**
+     * @return The summed up statistics of searching every position to {@link #DEPTH} with an empty table.
+     */
+    private static SearchStatistics searchAllPositions(int threadCount) {
+        SearchManager searchManager = SearchManager.getInstance();
+        searchManager.setThreadCount(threadCount);
+        SearchLimitations searchLimitations =
+                new SearchLimitations(null, false, DEPTH, -1, -1, -1, false);
+
+        long nodes = 0;
+        long timeInMillis = 0;
+        for (String fen : POSITIONS) {
+            GameState gameState = FenParser.loadFenString(fen);
+            searchManager.clearTranspositionTable();
+
+            bestMove = null;
+            searchManager.go(gameState, searchLimitations);
+            while (bestMove == null) {
+                Thread.onSpinWait();
+            }
+
+            SearchStatistics statistics = searchManager.getLastSearchStatistics();
+            assertEquals(DEPTH, statistics.depth());
+            nodes += statistics.nodes();
+            timeInMillis += statistics.timeInMillis();
+        }
+
+        return new SearchStatistics(DEPTH, nodes, timeInMillis);
+    }
+}
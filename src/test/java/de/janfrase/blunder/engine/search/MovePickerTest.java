@@ -0,0 +1,118 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.movegen.LegalityMasks;
+import de.janfrase.blunder.engine.backend.movegen.MoveGenerator;
+import de.janfrase.blunder.engine.backend.movegen.MoveList;
+import de.janfrase.blunder.engine.backend.state.game.FenParser;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+import java.util.ArrayList;
+import java.util.HashSet;
+import org.junit.jupiter.api.Test;
+
+class MovePickerTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private final MovePicker movePicker = new MovePicker();
+    private final LegalityMasks legalityMasks = new LegalityMasks();
+
+    @Test
+    void testPicksEveryMoveExactlyOnce() {
+        String[] fenStrings = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            KIWIPETE,
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+        };
+
+        for (String fenString : fenStrings) {
+            GameState gameState = FenParser.loadFenString(fenString);
+            MoveList expectedMoves = new MoveList();
+            MoveGenerator.generateLegalMoves(gameState, expectedMoves);
+
+            legalityMasks.compute(gameState);
+            movePicker.init(
+                    gameState,
+                    legalityMasks,
+                    EncodedMove.NO_MOVE,
+                    EncodedMove.NO_MOVE,
+                    EncodedMove.NO_MOVE);
+            ArrayList<Integer> pickedMoves = pickAll();
+
+            assertEquals(expectedMoves.size(), pickedMoves.size(), fenString);
+            assertEquals(expectedMoves.size(), new HashSet<>(pickedMoves).size(), fenString);
+            for (int move : pickedMoves) {
+                assertTrue(expectedMoves.contains(move), fenString);
+            }
+        }
+    }
+
+    @Test
+    void testStageOrder() {
+        GameState gameState = FenParser.loadFenString(KIWIPETE);
+        // a quiet move stored with only from, to and move type, like in the transposition table
+        int hashMove = EncodedMove.encode(0, 7, 1, 7);
+        int killer = EncodedMove.encode(4, 7, 3, 7);
+
+        legalityMasks.compute(gameState);
+        movePicker.init(gameState, legalityMasks, hashMove, killer, EncodedMove.NO_MOVE);
+        ArrayList<Integer> pickedMoves = pickAll();
+
+        assertEquals(hashMove, (int) pickedMoves.getFirst());
+
+        // then the captures that do not lose material
+        int killerIndex = pickedMoves.indexOf(killer);
+        for (int i = 1; i < killerIndex; i++) {
+            assertTrue(EncodedMove.isCapture(pickedMoves.get(i)));
+        }
+
+        // then the quiet moves
+        int firstBadCaptureIndex = killerIndex + 1;
+        while (!EncodedMove.isCapture(pickedMoves.get(firstBadCaptureIndex))) {
+            firstBadCaptureIndex++;
+        }
+        assertTrue(firstBadCaptureIndex > killerIndex + 1);
+
+        // and the captures that lose material last, the queen taking the pawn defended by the rook
+        // is the worst one
+        for (int i = firstBadCaptureIndex; i < pickedMoves.size(); i++) {
+            assertTrue(EncodedMove.isCapture(pickedMoves.get(i)));
+        }
+        assertEquals("f3h3", EncodedMove.toMove(pickedMoves.getLast()).toString());
+    }
+
+    @Test
+    void testUnplayableMovesAreSkipped() {
+        GameState gameState = FenParser.loadFenString(KIWIPETE);
+        MoveList expectedMoves = new MoveList();
+        MoveGenerator.generateLegalMoves(gameState, expectedMoves);
+
+        // there is no piece on d4, and the queen move would capture the knight on f6 here
+        int hashMove = EncodedMove.encode(3, 4, 3, 5);
+        int killer = EncodedMove.encode(5, 5, 5, 2);
+
+        legalityMasks.compute(gameState);
+        movePicker.init(gameState, legalityMasks, hashMove, killer, EncodedMove.NO_MOVE);
+        ArrayList<Integer> pickedMoves = pickAll();
+
+        assertFalse(pickedMoves.contains(hashMove));
+        assertFalse(pickedMoves.contains(killer));
+        assertEquals(expectedMoves.size(), pickedMoves.size());
+    }
+
+    private ArrayList<Integer> pickAll() {
+        ArrayList<Integer> pickedMoves = new ArrayList<>();
+        int move;
+        while ((move = movePicker.next()) != EncodedMove.NO_MOVE) {
+            pickedMoves.add(move);
+        }
+        return pickedMoves;
+    }
+}
@@ -2,21 +2,24 @@
 package de.janfrase.blunder.engine.search;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import de.janfrase.blunder.engine.backend.movegen.Move;
+import de.janfrase.blunder.engine.backend.movegen.MoveGenerator;
 import de.janfrase.blunder.engine.backend.state.game.FenParser;
-import java.util.ArrayList;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class SearcherTest {
 
     @Test
     void testSimpleCase() {
-        FenParser.loadFenString("qR6/8/8/8/8/8/8/k6K w - - 0 1");
+        GameState gameState = FenParser.loadFenString("qR6/8/8/8/8/8/8/k6K w - - 0 1");
 
-        Searcher searcher = new Searcher();
+        Searcher searcher = new Searcher(gameState);
 
-        Move move = searcher.startSearching(4, new ArrayList<>()).principalVariation().getFirst();
+        Move move = searcher.startSearching(4).principalVariation().getFirst();
         String moveString = move.toString();
 
         assertEquals("b8a8", moveString);
@@ -24,11 +27,11 @@ class SearcherTest {
 
     @Test
     void testSimpleCase2() {
-        FenParser.loadFenString("qR6/k7/8/8/8/8/8/7K w - - 0 1");
+        GameState gameState = FenParser.loadFenString("qR6/k7/8/8/8/8/8/7K w - - 0 1");
 
-        Searcher searcher = new Searcher();
+        Searcher searcher = new Searcher(gameState);
 
-        Move move = searcher.startSearching(4, new ArrayList<>()).principalVariation().getFirst();
+        Move move = searcher.startSearching(4).principalVariation().getFirst();
         String moveString = move.toString();
 
         assertEquals("b8a8", moveString);
@@ -36,13 +39,65 @@ class SearcherTest {
 
     @Test
     void testMate() {
-        FenParser.loadFenString("6k1/8/8/8/3K4/8/2r1r3/1r6 b - - 0 1");
+        GameState gameState = FenParser.loadFenString("6k1/8/8/8/3K4/8/2r1r3/1r6 b - - 0 1");
 
-        Searcher searcher = new Searcher();
+        Searcher searcher = new Searcher(gameState);
 
-        Move move = searcher.startSearching(4, new ArrayList<>()).principalVariation().getFirst();
+        Move move = searcher.startSearching(4).principalVariation().getFirst();
         String moveString = move.toString();
 
         assertEquals("b1d1", moveString);
     }
+
+    @Test
+    void testMateScore() {
+        GameState gameState = FenParser.loadFenString("6k1/8/8/8/3K4/8/2r1r3/1r6 b - - 0 1");
+
+        Searcher searcher = new Searcher(gameState);
+
+        // mate in one ply
+        assertEquals(Searcher.MATE_SCORE - 1, searcher.startSearching(4).eval());
+    }
+
+    @Test
+    void testScoreIsFromTheSideToMove() {
+        // black is a queen up
+        GameState blackToMove = FenParser.loadFenString("3qk3/8/8/8/8/8/8/4K3 b - - 0 1");
+        GameState whiteToMove = FenParser.loadFenString("3qk3/8/8/8/8/8/8/4K3 w - - 0 1");
+
+        assertTrue(new Searcher(blackToMove).startSearching(2).eval() > 0);
+        assertTrue(new Searcher(whiteToMove).startSearching(2).eval() < 0);
+    }
+
+    @Test
+    void testPrincipalVariationIsPlayable() {
+        GameState gameState =
+                FenParser.loadFenString(
+                        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+
+        List<Move> principalVariation =
+                new Searcher(new GameState(gameState)).startSearching(4).principalVariation();
+
+        assertEquals(4, principalVariation.size());
+        for (Move move : principalVariation) {
+            assertTrue(MoveGenerator.generateLegalMoves(gameState).contains(move), move.toString());
+            gameState.makeMove(move);
+        }
+    }
+
+    @Test
+    void testWindow() {
+        String fenString = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        int score = new Searcher(FenParser.loadFenString(fenString)).startSearching(3).eval();
+
+        // the score is inside the window, so it is exact
+        Searcher searcher = new Searcher(FenParser.loadFenString(fenString));
+        assertEquals(score, searcher.startSearching(3, score - 1, score + 1).eval());
+
+        // the score is outside the window, so only the bound is right
+        searcher = new Searcher(FenParser.loadFenString(fenString));
+        assertTrue(searcher.startSearching(3, score + 10, score + 20).eval() <= score + 10);
+        searcher = new Searcher(FenParser.loadFenString(fenString));
+        assertTrue(searcher.startSearching(3, score - 20, score - 10).eval() >= score - 10);
+    }
 }
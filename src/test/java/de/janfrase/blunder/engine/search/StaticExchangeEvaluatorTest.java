@@ -0,0 +1,53 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.janfrase.blunder.engine.backend.Piece;
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.movegen.Move;
+import de.janfrase.blunder.engine.backend.state.game.FenParser;
+import de.janfrase.blunder.engine.backend.state.game.GameState;
+import org.junit.jupiter.api.Test;
+
+class StaticExchangeEvaluatorTest {
+
+    private static final Piece BLACK_PAWN = Piece.of(Piece.PAWN, Piece.BLACK);
+
+    private final StaticExchangeEvaluator staticExchangeEvaluator = new StaticExchangeEvaluator();
+
+    @Test
+    void testUndefendedPiece() {
+        int queenTakesPawn = EncodedMove.encode(3, 7, 3, 3, BLACK_PAWN);
+
+        assertEquals(100, evaluate("4k3/8/8/3p4/8/8/8/3QK3 w - - 0 1", queenTakesPawn));
+    }
+
+    @Test
+    void testDefendedPiece() {
+        // the pawn on e6 takes the queen back
+        int queenTakesPawn = EncodedMove.encode(3, 7, 3, 3, BLACK_PAWN);
+
+        assertEquals(-800, evaluate("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1", queenTakesPawn));
+    }
+
+    @Test
+    void testXRay() {
+        // the rook on d1 only joins once the rook on d2 has captured
+        int rookTakesPawn = EncodedMove.encode(3, 6, 3, 3, BLACK_PAWN);
+
+        assertEquals(100, evaluate("3rk3/8/8/3p4/8/8/3R4/3RK3 w - - 0 1", rookTakesPawn));
+    }
+
+    @Test
+    void testEnPassant() {
+        int enPassant = EncodedMove.encode(4, 3, 3, 2, Move.MoveType.EP_CAPTURE);
+
+        assertEquals(100, evaluate("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", enPassant));
+    }
+
+    private int evaluate(String fenString, int move) {
+        GameState gameState = FenParser.loadFenString(fenString);
+        return staticExchangeEvaluator.evaluate(gameState.getBitBoards(), move);
+    }
+}
@@ -0,0 +1,57 @@
+/* Made by Jan Frase :) */
+package de.janfrase.blunder.engine.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.janfrase.blunder.engine.backend.movegen.EncodedMove;
+import de.janfrase.blunder.engine.backend.movegen.Move;
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+
+    private final TranspositionTable transpositionTable = new TranspositionTable(1);
+
+    @Test
+    void testStoreAndProbe() {
+        int move = EncodedMove.encode(4, 6, 4, 4, Move.MoveType.DOUBLE_PAWN_PUSH);
+        transpositionTable.store(
+                0x1234_5678_9ABC_DEF0L, 5, TranspositionTable.LOWER_BOUND, -120, move);
+
+        long entry = transpositionTable.probe(0x1234_5678_9ABC_DEF0L);
+
+        assertNotEquals(TranspositionTable.NO_ENTRY, entry);
+        assertEquals(-120, TranspositionTable.getScore(entry));
+        assertEquals(5, TranspositionTable.getDepth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getBound(entry));
+        assertTrue(TranspositionTable.isBestMove(entry, move));
+        assertFalse(TranspositionTable.isBestMove(entry, EncodedMove.encode(4, 6, 4, 5)));
+    }
+
+    @Test
+    void testProbeMiss() {
+        transpositionTable.store(42L, 3, TranspositionTable.EXACT, 10, EncodedMove.NO_MOVE);
+
+        // same index, different key
+        long otherKey = 42L + (1L << 40);
+        assertEquals(TranspositionTable.NO_ENTRY, transpositionTable.probe(otherKey));
+    }
+
+    @Test
+    void testDeeperEntryIsKept() {
+        long key = 7L;
+        long otherKey = 7L + (1L << 40);
+
+        transpositionTable.store(key, 6, TranspositionTable.EXACT, 10, EncodedMove.NO_MOVE);
+        transpositionTable.store(otherKey, 2, TranspositionTable.EXACT, 20, EncodedMove.NO_MOVE);
+
+        assertNotEquals(TranspositionTable.NO_ENTRY, transpositionTable.probe(key));
+        assertEquals(TranspositionTable.NO_ENTRY, transpositionTable.probe(otherKey));
+
+        // once a new search started, the old entry may be replaced
+        transpositionTable.incrementAge();
+        transpositionTable.store(otherKey, 2, TranspositionTable.EXACT, 20, EncodedMove.NO_MOVE);
+
+        assertEquals(TranspositionTable.NO_ENTRY, transpositionTable.probe(key));
+        assertEquals(20, TranspositionTable.getScore(transpositionTable.probe(otherKey)));
+    }
+}